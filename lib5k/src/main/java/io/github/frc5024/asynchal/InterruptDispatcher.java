@@ -0,0 +1,158 @@
+package io.github.frc5024.asynchal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * Runs edge callbacks for every interrupt-driven sensor on one shared thread.
+ * The HAL calls each interrupt handler from its own thread, so handlers only
+ * queue the edge (with its hardware timestamp) and return. This keeps user
+ * callbacks from ever blocking an interrupt, and means callbacks from
+ * different sensors never run at the same time.
+ */
+public class InterruptDispatcher {
+    private static InterruptDispatcher instance = null;
+
+    // Most edges that can be waiting at once. Edges past this are dropped
+    private static final int QUEUE_SIZE = 256;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    /**
+     * Something that handles edges
+     */
+    @FunctionalInterface
+    public interface EdgeHandler {
+
+        /**
+         * Handle an edge. Called from the dispatch thread
+         *
+         * @param rising    Was this a rising edge?
+         * @param timestamp FPGA time of the edge in seconds
+         */
+        public void handleEdge(boolean rising, double timestamp);
+    }
+
+    /**
+     * A single queued edge
+     */
+    private static final class Edge {
+        final EdgeHandler handler;
+        final boolean rising;
+        final double timestamp;
+
+        Edge(EdgeHandler handler, boolean rising, double timestamp) {
+            this.handler = handler;
+            this.rising = rising;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final ArrayBlockingQueue<Edge> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final AtomicLong dropped = new AtomicLong();
+    private final boolean startThread;
+    private volatile Thread thread = null;
+
+    /**
+     * Create an InterruptDispatcher
+     *
+     * @param startThread Should the dispatch thread be started? Turned off for
+     *                    tests, which drain the queue by hand with
+     *                    {@link #drain()}
+     */
+    public InterruptDispatcher(boolean startThread) {
+        this.startThread = startThread;
+    }
+
+    /**
+     * Get the InterruptDispatcher instance
+     *
+     * @return InterruptDispatcher
+     */
+    public static synchronized InterruptDispatcher getInstance() {
+        if (instance == null) {
+            instance = new InterruptDispatcher(true);
+        }
+        return instance;
+    }
+
+    /**
+     * Queue an edge to be handled on the dispatch thread. This never blocks
+     *
+     * @param handler   Edge handler
+     * @param rising    Was this a rising edge?
+     * @param timestamp FPGA time of the edge in seconds
+     */
+    public void post(EdgeHandler handler, boolean rising, double timestamp) {
+        if (thread == null) {
+            start();
+        }
+        if (!queue.offer(new Edge(handler, rising, timestamp))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of edges dropped because the queue was full
+     *
+     * @return Dropped edge count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Start the dispatch thread if it isn't running
+     */
+    private synchronized void start() {
+        if (startThread && thread == null) {
+            thread = new Thread(this::run, "Lib5K InterruptDispatcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Dispatch thread
+     */
+    private void run() {
+        while (true) {
+            Edge edge;
+            try {
+                edge = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            dispatch(edge);
+        }
+    }
+
+    /**
+     * Handle every queued edge on the calling thread. This is mostly useful for
+     * unit tests, where the dispatch thread isn't started
+     */
+    public void drain() {
+        Edge edge;
+        while ((edge = queue.poll()) != null) {
+            dispatch(edge);
+        }
+    }
+
+    /**
+     * Run a single edge's handler
+     *
+     * @param edge Edge
+     */
+    private void dispatch(Edge edge) {
+        try {
+            edge.handler.handleEdge(edge.rising, edge.timestamp);
+        } catch (Throwable t) {
+            // A broken callback shouldn't stop every other sensor's callbacks
+            logger.log("Edge callback threw: %s", Level.kWarning, t.toString());
+        }
+    }
+}
@@ -2,9 +2,35 @@ package io.github.frc5024.asynchal;
 
 public interface Pollable {
 
+    /**
+     * How often a Pollable is checked for updates. Pollables that share a rate are
+     * polled together. When groups are due at the same time, faster groups are
+     * polled first, but every group shares the control lane's thread, so a slow
+     * group that is already running will still hold up a faster one
+     */
+    public enum Rate {
+        k1000Hz(0.001), k200Hz(0.005), k50Hz(0.02), k10Hz(0.1);
+
+        public final double period;
+
+        private Rate(double period) {
+            this.period = period;
+        }
+    }
+
     /**
      * Check for, and handle any updates since the last call. This should only be
      * called from the Poller
      */
     public void checkForUpdates();
-}
\ No newline at end of file
+
+    /**
+     * Get how often this should be polled. This is only read once, when the
+     * Pollable is registered
+     * 
+     * @return Poll rate
+     */
+    public default Rate getPollRate() {
+        return Rate.k200Hz;
+    }
+}
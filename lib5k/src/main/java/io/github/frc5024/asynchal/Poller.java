@@ -1,29 +1,85 @@
 package io.github.frc5024.asynchal;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
-import edu.wpi.first.wpilibj.Notifier;
+import io.github.frc5024.asynchal.Pollable.Rate;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.NotifierStats;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 
 /**
  * You have been lied to. This library is not fully real-time. I don't want to
  * deal with writing a JNI wrapper for some FPGA DMA code, so this quick-refresh
  * loop is the best you'll get for callbacks.
+ * 
+ * Pollables are grouped by their {@link Rate}, and each group is polled by its
+ * own task on the control lane. Groups are started the first time something
+ * registers at their rate, and are offset from each other so they don't all
+ * wake up at once. Faster groups get higher priorities (rate-monotonic), so
+ * when several are due together, the fastest is polled first. Groups share the
+ * lane's thread, so slow Pollables should keep their checks short. Registering
+ * and de-registering is safe from any thread.
  */
 public class Poller {
     private static Poller instance;
 
-    private Notifier thread;
+    // Offset between each group's first poll
+    private static final double GROUP_PHASE = 0.00025;
 
-    private ArrayList<Pollable> pollables = new ArrayList<>();
+    // Priority of the slowest group. Every group runs ahead of default tasks
+    private static final int BASE_PRIORITY = 10;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+    private final boolean startTasks;
 
     /**
-     * Poller constructor
+     * Every Pollable at a single rate
      */
-    private Poller() {
+    private final class RateGroup {
+        final Rate rate;
+        ScheduledTask task = null;
+
+        // Replaced (never modified) while holding the Poller
+        volatile Pollable[] pollables = new Pollable[0];
+
+        RateGroup(Rate rate) {
+            this.rate = rate;
+        }
+
+        /**
+         * Poll every member of the group
+         */
+        void poll() {
+            for (Pollable p : pollables) {
+                try {
+                    p.checkForUpdates();
+                } catch (Throwable t) {
+                    // Don't let one broken Pollable stop the rest of the group
+                    logger.log("%s threw while polling, and has been removed: %s", Level.kWarning,
+                            p.getClass().getSimpleName(), t.toString());
+                    deregister(p);
+                }
+            }
+        }
+    }
+
+    // One group per rate
+    private final RateGroup[] groups = new RateGroup[Rate.values().length];
 
-        // Start up the polling thread
-        this.thread = new Notifier(this::update);
-        this.thread.startPeriodic(0.01);
+    /**
+     * Poller constructor
+     * 
+     * @param startTasks Should groups be scheduled? Turned off for tests, which
+     *                   poll by hand
+     */
+    Poller(boolean startTasks) {
+        this.startTasks = startTasks;
+        for (Rate rate : Rate.values()) {
+            groups[rate.ordinal()] = new RateGroup(rate);
+        }
     }
 
     /**
@@ -31,20 +87,55 @@ public class Poller {
      * 
      * @return Instance
      */
-    public static Poller getInstance() {
+    public static synchronized Poller getInstance() {
         if (instance == null) {
-            instance = new Poller();
+            instance = new Poller(true);
         }
         return instance;
     }
 
     /**
-     * Register a pollable component
+     * Register a pollable component at its own poll rate
      * 
      * @param p Pollable
      */
     public void register(Pollable p) {
-        pollables.add(p);
+        register(p, p.getPollRate());
+    }
+
+    /**
+     * Register a pollable component at a specific rate
+     * 
+     * @param p    Pollable
+     * @param rate Poll rate
+     */
+    public synchronized void register(Pollable p, Rate rate) {
+
+        // Only register once
+        if (getRate(p) != null) {
+            return;
+        }
+
+        RateGroup group = groups[rate.ordinal()];
+        Pollable[] next = Arrays.copyOf(group.pollables, group.pollables.length + 1);
+        next[next.length - 1] = p;
+        group.pollables = next;
+
+        // Start polling the group on the control lane, ahead of everything else
+        if (startTasks && group.task == null) {
+            group.task = RealTimeExecutor.getInstance().schedule("Poller-" + rate.name(), Lane.kControl, rate.period,
+                    rate.ordinal() * GROUP_PHASE, getPriority(rate), group::poll);
+        }
+    }
+
+    /**
+     * Get the task priority for a rate group. Faster rates get higher priorities
+     * 
+     * @param rate Rate
+     * @return Priority
+     */
+    static int getPriority(Rate rate) {
+        return BASE_PRIORITY + (Rate.values().length - 1 - rate.ordinal());
     }
 
     /**
@@ -52,17 +143,66 @@ public class Poller {
      * 
      * @param p Pollable
      */
-    public void deregister(Pollable p) {
-        pollables.remove(p);
+    public synchronized void deregister(Pollable p) {
+        for (RateGroup group : groups) {
+            Pollable[] current = group.pollables;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == p) {
+                    Pollable[] next = new Pollable[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    group.pollables = next;
+                    return;
+                }
+            }
+        }
     }
 
     /**
-     * Update the thread
+     * Get the rate a Pollable is registered at
+     * 
+     * @param p Pollable
+     * @return Rate, or null if not registered
      */
-    private void update() {
-        for (Pollable p : pollables) {
-            p.checkForUpdates();
+    public Rate getRate(Pollable p) {
+        for (RateGroup group : groups) {
+            for (Pollable member : group.pollables) {
+                if (member == p) {
+                    return group.rate;
+                }
+            }
         }
+        return null;
+    }
+
+    /**
+     * Get the number of Pollables registered at a rate
+     * 
+     * @param rate Rate
+     * @return Pollable count
+     */
+    public int getCount(Rate rate) {
+        return groups[rate.ordinal()].pollables.length;
+    }
+
+    /**
+     * Get the timing stats for a rate group
+     * 
+     * @param rate Rate
+     * @return Stats, or null if nothing has been registered at this rate yet
+     */
+    public NotifierStats getStats(Rate rate) {
+        ScheduledTask task = groups[rate.ordinal()].task;
+        return (task == null) ? null : task.getStats();
+    }
+
+    /**
+     * Poll every member of a rate group. Only used by tests
+     * 
+     * @param rate Rate
+     */
+    void poll(Rate rate) {
+        groups[rate.ordinal()].poll();
     }
 
-}
\ No newline at end of file
+}
@@ -1,31 +1,152 @@
 package io.github.frc5024.asynchal.sensors;
 
+import java.util.function.DoubleConsumer;
+
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.InterruptHandlerFunction;
+import edu.wpi.first.wpilibj.RobotBase;
+import io.github.frc5024.asynchal.InterruptDispatcher;
 import io.github.frc5024.asynchal.Pollable;
 import io.github.frc5024.asynchal.Poller;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 
 /**
- * An asynchronous wrapper for {@link DigitalInput}
+ * An asynchronous wrapper for {@link DigitalInput}.
+ * 
+ * On a real robot, edges are detected by the FPGA's digital interrupts, so even
+ * very short pulses are caught, and every callback gets the exact hardware
+ * timestamp of its edge. In simulation (or if the RoboRIO runs out of
+ * interrupts), the input is polled instead. Either way, callbacks are run from
+ * the shared {@link InterruptDispatcher} thread.
  */
 public class AsyncDigitalInput extends DigitalInput implements Pollable {
 
+    // Masks for the edges in an interrupt
+    private static final int RISING_MASK = 0x1;
+    private static final int FALLING_MASK = 0x100;
+
+    private final InterruptDispatcher dispatcher;
+
     /* Sensor state tracking */
     private boolean lastState = false;
-    private Runnable triggerCallback = null;
-    private Runnable releaseCallback = null;
+    private volatile DoubleConsumer triggerCallback = null;
+    private volatile DoubleConsumer releaseCallback = null;
+    private boolean usingInterrupts = false;
 
     /**
      * Create an instance of a Digital Input class. Creates a digital input given a
-     * channel with asynchronous capabilities.
+     * channel with asynchronous capabilities. Interrupts are used on a real robot
      *
      * @param channel the DIO channel for the digital input 0-9 are on-board, 10-25
      *                are on the MXP
      */
     public AsyncDigitalInput(int channel) {
+        this(channel, RobotBase.isReal());
+    }
+
+    /**
+     * Create an instance of a Digital Input class. Creates a digital input given a
+     * channel with asynchronous capabilities.
+     *
+     * @param channel       the DIO channel for the digital input 0-9 are on-board,
+     *                      10-25 are on the MXP
+     * @param useInterrupts Should edges be detected with interrupts instead of
+     *                      polling?
+     */
+    public AsyncDigitalInput(int channel, boolean useInterrupts) {
+        this(channel, useInterrupts, InterruptDispatcher.getInstance());
+    }
+
+    /**
+     * Create an AsyncDigitalInput that runs its callbacks from a specific
+     * dispatcher. Used by tests, which drain the dispatcher by hand
+     *
+     * @param channel       the DIO channel for the digital input
+     * @param useInterrupts Should edges be detected with interrupts?
+     * @param dispatcher    Dispatcher to run callbacks from
+     */
+    AsyncDigitalInput(int channel, boolean useInterrupts, InterruptDispatcher dispatcher) {
         super(channel);
+        this.dispatcher = dispatcher;
+
+        if (useInterrupts) {
+            try {
+                requestInterrupts(new InterruptHandlerFunction<Object>() {
+                    @Override
+                    public void interruptFired(int interruptAssertedMask, Object param) {
+                        handleInterrupt(interruptAssertedMask);
+                    }
+                });
+                setUpSourceEdge(true, true);
+                enableInterrupts();
+                usingInterrupts = true;
+            } catch (RuntimeException e) {
+                // There are only 8 interrupts on the FPGA
+                RobotLogger.getInstance().log("Could not get an interrupt for DIO %d, falling back to polling",
+                        Level.kWarning, channel);
+            }
+        }
 
         // Register with the poller
-        Poller.getInstance().register(this);
+        if (!usingInterrupts) {
+            lastState = get();
+            Poller.getInstance().register(this);
+        }
+    }
+
+    /**
+     * Check if edges are detected with interrupts
+     * 
+     * @return Is using interrupts?
+     */
+    public boolean isUsingInterrupts() {
+        return usingInterrupts;
+    }
+
+    /**
+     * Handle an interrupt. This is called from the HAL's interrupt thread, so it
+     * only queues the edges
+     * 
+     * @param mask Edges that fired
+     */
+    private void handleInterrupt(int mask) {
+        double risingTime = ((mask & RISING_MASK) != 0) ? readRisingTimestamp() : 0.0;
+        double fallingTime = ((mask & FALLING_MASK) != 0) ? readFallingTimestamp() : 0.0;
+        handleInterrupt(mask, risingTime, fallingTime);
+    }
+
+    /**
+     * Queue the edges in an interrupt, with timestamps that have already been
+     * read
+     * 
+     * @param mask        Edges that fired
+     * @param risingTime  Rising edge time in seconds
+     * @param fallingTime Falling edge time in seconds
+     */
+    void handleInterrupt(int mask, double risingTime, double fallingTime) {
+        boolean rising = (mask & RISING_MASK) != 0;
+        boolean falling = (mask & FALLING_MASK) != 0;
+
+        // A short pulse can fire both edges at once, so send them in order
+        if (rising && falling && fallingTime < risingTime) {
+            dispatcher.post(this::dispatch, false, fallingTime);
+            dispatcher.post(this::dispatch, true, risingTime);
+            return;
+        }
+        if (rising) {
+            dispatcher.post(this::dispatch, true, risingTime);
+        }
+        if (falling) {
+            dispatcher.post(this::dispatch, false, fallingTime);
+        }
+    }
+
+    @Override
+    public Rate getPollRate() {
+        // Reading a DIO is cheap, and short pulses are easy to miss
+        return Rate.k1000Hz;
     }
 
     @Override
@@ -36,15 +157,7 @@ public class AsyncDigitalInput extends DigitalInput implements Pollable {
 
         // Compare states
         if (currentState != lastState) {
-            if (currentState) {
-                if (triggerCallback != null) {
-                    triggerCallback.run();
-                }
-            } else {
-                if (releaseCallback != null) {
-                    releaseCallback.run();
-                }
-            }
+            dispatcher.post(this::dispatch, currentState, FPGAClock.getFPGASeconds());
         }
 
         // Set the last state
@@ -52,12 +165,35 @@ public class AsyncDigitalInput extends DigitalInput implements Pollable {
 
     }
 
+    /**
+     * Run the callback for an edge. Called from the dispatch thread
+     * 
+     * @param rising    Was this a rising edge?
+     * @param timestamp Edge time in seconds
+     */
+    private void dispatch(boolean rising, double timestamp) {
+        DoubleConsumer callback = rising ? triggerCallback : releaseCallback;
+        if (callback != null) {
+            callback.accept(timestamp);
+        }
+    }
+
     /**
      * Register a callback function to be run when the input is pulled high
      * 
      * @param callback Callback function
      */
     public void registerTriggerCallback(Runnable callback) {
+        registerTriggerCallback(timestamp -> callback.run());
+    }
+
+    /**
+     * Register a callback function to be run when the input is pulled high. The
+     * callback is given the FPGA time of the edge in seconds
+     * 
+     * @param callback Callback function
+     */
+    public void registerTriggerCallback(DoubleConsumer callback) {
         this.triggerCallback = callback;
     }
 
@@ -67,15 +203,29 @@ public class AsyncDigitalInput extends DigitalInput implements Pollable {
      * @param callback Callback function
      */
     public void registerReleaseCallback(Runnable callback) {
+        registerReleaseCallback(timestamp -> callback.run());
+    }
+
+    /**
+     * Register a callback function to be run when the input is pulled low. The
+     * callback is given the FPGA time of the edge in seconds
+     * 
+     * @param callback Callback function
+     */
+    public void registerReleaseCallback(DoubleConsumer callback) {
         this.releaseCallback = callback;
     }
 
     @Override
     public void close() {
-        super.close();
+        if (usingInterrupts) {
+            cancelInterrupts();
+        } else {
+            // Remove from poller
+            Poller.getInstance().deregister(this);
+        }
 
-        // Remove from poller
-        Poller.getInstance().deregister(this);
+        super.close();
     }
 
-}
\ No newline at end of file
+}
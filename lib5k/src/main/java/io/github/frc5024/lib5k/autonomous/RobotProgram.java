@@ -8,8 +8,14 @@ import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 
 import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer;
 import io.github.frc5024.lib5k.hardware.ni.roborio.FaultReporter;
 import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.telemetry.GCMonitor;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler.Section;
+import io.github.frc5024.lib5k.telemetry.OverrunSampler;
+import io.github.frc5024.lib5k.telemetry.TelemetryScheduler;
 
 /**
  * RobotProgram is the base class for all robot programs.
@@ -36,6 +42,21 @@ public abstract class RobotProgram extends TimedRobot {
     private SendableChooser<AutonomousSequence> chooser;
     private AutonomousSequence autonomous = null;
 
+    // Profiling
+    private LoopProfiler profiler = LoopProfiler.getInstance();
+    private Section periodicSection = profiler.getSection("RobotProgram.periodic");
+    private Section autonomousSection = profiler.getSection("RobotProgram.autonomous");
+    private Section teleopSection = profiler.getSection("RobotProgram.teleop");
+    private Section disabledSection = profiler.getSection("RobotProgram.disabled");
+    private Section testSection = profiler.getSection("RobotProgram.test");
+    private Section schedulerSection = profiler.getSection("CommandScheduler.run");
+    private OverrunSampler overrunSampler = OverrunSampler.getInstance();
+    private GCMonitor gcMonitor = null;
+    private boolean wasEnabled = false;
+
+    // Motor outputs
+    private OutputCoalescer outputCoalescer = OutputCoalescer.getInstance();
+
     /**
      * Create a robot program
      * 
@@ -74,6 +95,25 @@ public abstract class RobotProgram extends TimedRobot {
         // Start logger
         logger.start(0.02);
 
+        // Publish telemetry at the end of every loop
+        TelemetryScheduler.getInstance().setLoopPeriod(getPeriod());
+
+        // Publish loop timing
+        TelemetryScheduler.getInstance().register(profiler, 1.0);
+
+        // Publish GC stats. This needs the jdk.management module, which some JREs
+        // leave out
+        try {
+            gcMonitor = GCMonitor.getInstance();
+            gcMonitor.setLoopPeriod(getPeriod());
+            TelemetryScheduler.getInstance().register(gcMonitor, 1.0);
+        } catch (LinkageError e) {
+            logger.log("GC monitoring is not supported by this JVM", RobotLogger.Level.kWarning);
+        }
+
+        // Publish CAN output stats
+        TelemetryScheduler.getInstance().register(outputCoalescer, 1.0);
+
         // Report language
         RR_HAL.reportFRCVersion("Java", RR_HAL.getLibraryVersion());
 
@@ -146,7 +186,23 @@ public abstract class RobotProgram extends TimedRobot {
     public void robotPeriodic() {
 
         // Call robot
+        periodicSection.start();
         periodic(false);
+        periodicSection.stop();
+
+        // The mode-specific methods run first, so every motor output for this loop
+        // has been requested by now
+        outputCoalescer.flush();
+    }
+
+    @Override
+    protected void loopFunc() {
+
+        // Time the whole iteration, including the dashboard and LiveWindow updates
+        // that run after robotPeriodic()
+        startIteration();
+        super.loopFunc();
+        endIteration();
     }
 
     /**
@@ -203,6 +259,7 @@ public abstract class RobotProgram extends TimedRobot {
         }
 
         // Call autonomous
+        wasEnabled = true;
         autonomous(true);
     }
 
@@ -210,10 +267,12 @@ public abstract class RobotProgram extends TimedRobot {
     public void autonomousPeriodic() {
 
         // Call autonomous
+        autonomousSection.start();
         autonomous(false);
+        autonomousSection.stop();
 
         // Run scheduler
-        scheduler.run();
+        runScheduler();
     }
 
     @Override
@@ -228,6 +287,7 @@ public abstract class RobotProgram extends TimedRobot {
         }
 
         // Call teleop
+        wasEnabled = true;
         teleop(true);
     }
 
@@ -235,16 +295,28 @@ public abstract class RobotProgram extends TimedRobot {
     public void teleopPeriodic() {
 
         // Call teleop
+        teleopSection.start();
         teleop(false);
+        teleopSection.stop();
 
         // Run scheduler
-        scheduler.run();
+        runScheduler();
     }
 
     @Override
     public void disabledInit() {
         logger.log("Robot disabled");
 
+        // Save the loop timing from the last match
+        if (wasEnabled) {
+            profiler.dump("match");
+            overrunSampler.dump("match");
+            if (gcMonitor != null) {
+                gcMonitor.logStatus();
+            }
+            wasEnabled = false;
+        }
+
         // Call disabled
         disabled(true);
     }
@@ -253,10 +325,12 @@ public abstract class RobotProgram extends TimedRobot {
     public void disabledPeriodic() {
 
         // Call disabled
+        disabledSection.start();
         disabled(false);
+        disabledSection.stop();
 
         // Run scheduler
-        scheduler.run();
+        runScheduler();
     }
 
     @Override
@@ -271,6 +345,7 @@ public abstract class RobotProgram extends TimedRobot {
         }
 
         // Call test
+        wasEnabled = true;
         test(true);
     }
 
@@ -278,12 +353,46 @@ public abstract class RobotProgram extends TimedRobot {
     public void testPeriodic() {
 
         // Call test
+        testSection.start();
         test(false);
+        testSection.stop();
 
         // Run scheduler if enable d
         if (runSchedulerInTestMode) {
-            scheduler.run();
+            runScheduler();
         }
     }
 
+    /**
+     * Mark the start of a loop iteration
+     */
+    private void startIteration() {
+        overrunSampler.startIteration();
+        if (gcMonitor != null) {
+            gcMonitor.startIteration();
+        }
+    }
+
+    /**
+     * Mark the end of a loop iteration
+     */
+    private void endIteration() {
+        // Publish component telemetry from this thread, so it sees this loop's state
+        TelemetryScheduler.getInstance().update();
+
+        overrunSampler.endIteration();
+        if (gcMonitor != null) {
+            gcMonitor.endIteration();
+        }
+    }
+
+    /**
+     * Run the command scheduler, and time it
+     */
+    private void runScheduler() {
+        schedulerSection.start();
+        scheduler.run();
+        schedulerSection.stop();
+    }
+
 }
\ No newline at end of file
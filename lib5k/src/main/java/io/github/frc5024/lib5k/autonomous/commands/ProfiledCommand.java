@@ -0,0 +1,76 @@
+package io.github.frc5024.lib5k.autonomous.commands;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler.Section;
+
+/**
+ * Wraps a command, and times its execute() and isFinished() methods with the
+ * {@link LoopProfiler}
+ */
+public class ProfiledCommand extends CommandBase {
+
+    private Command command;
+    private Section executeSection;
+    private Section isFinishedSection;
+
+    /**
+     * Wrap a command, naming its sections after the command
+     *
+     * @param command Command to profile
+     */
+    public ProfiledCommand(Command command) {
+        this(command.getName(), command);
+    }
+
+    /**
+     * Wrap a command
+     *
+     * @param name    Name to use for the command's sections
+     * @param command Command to profile
+     */
+    public ProfiledCommand(String name, Command command) {
+        this.command = command;
+        setName(name);
+
+        // Look up sections once
+        LoopProfiler profiler = LoopProfiler.getInstance();
+        executeSection = profiler.getSection(name + ".execute");
+        isFinishedSection = profiler.getSection(name + ".isFinished");
+
+        // Take over the wrapped command's requirements
+        addRequirements(command.getRequirements().toArray(new Subsystem[0]));
+    }
+
+    @Override
+    public void initialize() {
+        command.initialize();
+    }
+
+    @Override
+    public void execute() {
+        executeSection.start();
+        command.execute();
+        executeSection.stop();
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        command.end(interrupted);
+    }
+
+    @Override
+    public boolean isFinished() {
+        isFinishedSection.start();
+        boolean finished = command.isFinished();
+        isFinishedSection.stop();
+        return finished;
+    }
+
+    @Override
+    public boolean runsWhenDisabled() {
+        return command.runsWhenDisabled();
+    }
+}
@@ -10,6 +10,8 @@ import io.github.frc5024.lib5k.bases.drivetrain.commands.PathFollowerCommand;
 import io.github.frc5024.lib5k.bases.drivetrain.commands.TurnToCommand;
 import io.github.frc5024.lib5k.hardware.common.drivebase.IDifferentialDrivebase;
 import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler;
+import io.github.frc5024.lib5k.telemetry.LoopProfiler.Section;
 import io.github.frc5024.lib5k.utils.FRCFieldConstants;
 import io.github.frc5024.lib5k.utils.interfaces.SafeSystem;
 import io.github.frc5024.libkontrol.statemachines.StateMachine;
@@ -41,6 +43,10 @@ public abstract class AbstractDriveTrain extends SubsystemBase
     // Simulation
     private Field2d simField = new Field2d();
 
+    // Profiling
+    private Section periodicSection = LoopProfiler.getInstance()
+            .getSection(getClass().getSimpleName() + ".periodic");
+
     /**
      * Create an AbstractDriveTrain
      */
@@ -205,6 +211,8 @@ public abstract class AbstractDriveTrain extends SubsystemBase
 
     @Override
     public void periodic() {
+        periodicSection.start();
+
         // Run user periodic code
         runIteration();
 
@@ -214,6 +222,8 @@ public abstract class AbstractDriveTrain extends SubsystemBase
 
         // Save the field location
         simField.setRobotPose(getPose().plus(FRCFieldConstants.LIB5K_TO_WPILIB_COORDINATE_TRANSFORM));
+
+        periodicSection.stop();
     }
 
     /**
@@ -115,8 +115,9 @@ public class PathFollowerCommand extends CommandBase {
         // Attempt to open a log file
         try {
             logger.log("Opening a CSV logfile to save path progress to");
-            this.logFile = new CSVFile("PathFollowCommand", "Timestamp (seconds)", "Robot X", "Robot Y", "Robot Theta",
-                    "Goal X", "Goal Y");
+            this.logFile = CSVFile.builder("PathFollowCommand").doubleCol("Timestamp (seconds)", 4)
+                    .doubleCol("Robot X", 4).doubleCol("Robot Y", 4).doubleCol("Robot Theta", 3).doubleCol("Goal X", 4)
+                    .doubleCol("Goal Y", 4).build();
         } catch (IOException e) {
             logger.log("Failed to open CSV logfile. Not going to log data");
         }
@@ -153,12 +154,13 @@ public class PathFollowerCommand extends CommandBase {
             double dt = curTime - initTime;
 
             // Write line to the logfile
-            try {
-                logFile.writeRow(dt, currentPose.getTranslation().getX(), currentPose.getTranslation().getY(),
-                        currentPose.getRotation().getDegrees(), goalPose.getX(), goalPose.getY());
-            } catch (IOException e) {
-                logger.log("Failed to write line to logFile");
-            }
+            logFile.set(0, dt);
+            logFile.set(1, currentPose.getTranslation().getX());
+            logFile.set(2, currentPose.getTranslation().getY());
+            logFile.set(3, currentPose.getRotation().getDegrees());
+            logFile.set(4, goalPose.getX());
+            logFile.set(5, goalPose.getY());
+            logFile.endRow();
         }
 
     }
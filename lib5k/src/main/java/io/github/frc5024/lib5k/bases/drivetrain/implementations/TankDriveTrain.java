@@ -10,6 +10,7 @@ import io.github.frc5024.lib5k.bases.drivetrain.AbstractDriveTrain;
 import io.github.frc5024.lib5k.bases.drivetrain.Chassis;
 import io.github.frc5024.lib5k.bases.drivetrain.Chassis.Side;
 import io.github.frc5024.lib5k.control_loops.base.Controller;
+import io.github.frc5024.lib5k.hardware.common.sensors.SensorFrame;
 import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 import io.github.frc5024.lib5k.math.DifferentialDriveMath;
@@ -42,6 +43,16 @@ public abstract class TankDriveTrain extends AbstractDriveTrain {
     // Tracker for last pose
     private Pose2d lastPose = new Pose2d();
 
+    // Sensor frame channels
+    private static final int HEADING_CHANNEL = 0;
+    private static final int LEFT_CHANNEL = 1;
+    private static final int RIGHT_CHANNEL = 2;
+
+    // Sensors, read once per loop (or in the background)
+    private final SensorFrame sensorFrame = new SensorFrame("heading", "left", "right");
+    private final SensorFrame.Snapshot sensors = sensorFrame.newSnapshot();
+    private final SensorFrame.Source sensorSource = this::readSensors;
+
     /**
      * Create a new TankDriveTrain
      */
@@ -98,10 +109,58 @@ public abstract class TankDriveTrain extends AbstractDriveTrain {
         // Run super code
         super.periodic();
 
+        // Read every sensor once, unless they are already being read in the
+        // background
+        if (!sensorFrame.isReading()) {
+            sensorFrame.update(sensorSource);
+        }
+        sensorFrame.read(sensors);
+
         // Update localization
         lastPose = getPose();
-        localizer.update(getCurrentHeading(), getLeftMeters(), getRightMeters());
+        localizer.update(new Rotation2d(sensors.get(HEADING_CHANNEL)), sensors.get(LEFT_CHANNEL),
+                sensors.get(RIGHT_CHANNEL));
+
+    }
+
+    /**
+     * Read the gyroscope and encoders into a sensor frame
+     * 
+     * @param values Frame values
+     */
+    private void readSensors(double[] values) {
+        values[HEADING_CHANNEL] = getCurrentHeading().getRadians();
+        values[LEFT_CHANNEL] = getLeftMeters();
+        values[RIGHT_CHANNEL] = getRightMeters();
+    }
+
+    /**
+     * Get the sensor readings used for the latest localization update. Every
+     * reading in the snapshot was taken at the same time
+     * 
+     * @return Sensor snapshot (heading in radians, distances in meters)
+     */
+    public SensorFrame.Snapshot getSensorSnapshot() {
+        return sensors;
+    }
+
+    /**
+     * Read the gyroscope and encoders on the control lane of the
+     * RealTimeExecutor, instead of from periodic(). This keeps slow sensor reads
+     * out of the main loop. The sensor getters must be safe to call from another
+     * thread
+     * 
+     * @param periodSeconds Time between reads
+     */
+    public void enableBackgroundSensorReading(double periodSeconds) {
+        sensorFrame.startReading(getClass().getSimpleName() + " sensors", periodSeconds, sensorSource);
+    }
 
+    /**
+     * Go back to reading sensors from periodic()
+     */
+    public void disableBackgroundSensorReading() {
+        sensorFrame.stopReading();
     }
 
     @Override
@@ -111,6 +170,10 @@ public abstract class TankDriveTrain extends AbstractDriveTrain {
         // Reset the encoders
         resetEncoders();
         lastPose = pose;
+
+        // Replace any frame read before the reset
+        sensorFrame.update(sensorSource);
+        sensorFrame.read(sensors);
     }
 
     @Override
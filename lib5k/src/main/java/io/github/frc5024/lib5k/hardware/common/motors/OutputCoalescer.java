@@ -0,0 +1,439 @@
+package io.github.frc5024.lib5k.hardware.common.motors;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleConsumer;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.logging.Loggable;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+/**
+ * The OutputCoalescer cuts down on CAN traffic from motor collections. Once
+ * enabled, a collection's set() only records the output it wants. At the end
+ * of each loop, {@link #flush()} sends the outputs that actually need sending:
+ * <ul>
+ * <li>Outputs that moved more than the deadband from what was last sent</li>
+ * <li>Outputs going to exactly zero</li>
+ * <li>Outputs that haven't been sent in the keep-alive interval (so motor
+ * safety doesn't trip)</li>
+ * <li>Outputs that don't use any CAN frames (like PWM controllers), which are
+ * always sent</li>
+ * </ul>
+ *
+ * If a frame budget is set, only that many frames are sent per loop. Outputs
+ * are sent highest priority first, then longest-waiting first, and anything
+ * over the budget is sent next loop instead. Stops are never held back by the
+ * budget, and are sent before anything else.
+ *
+ * <pre>
+ * {@code
+ * OutputCoalescer.getInstance().setFrameBudget(8);
+ * OutputCoalescer.getInstance().setEnabled(true);
+ *
+ * // Make sure the drivetrain is always sent first
+ * leftMotors.getCoalescedOutput().setPriority(10);
+ * }
+ * </pre>
+ *
+ * {@link io.github.frc5024.lib5k.autonomous.RobotProgram} flushes the
+ * coalescer at the end of every loop. Frames written, saved and deferred are
+ * published to the "CAN Outputs" component table.
+ */
+public class OutputCoalescer implements Loggable {
+    private static OutputCoalescer instance = null;
+
+    /**
+     * Default deadband, in percent output
+     */
+    public static final double DEFAULT_DEADBAND = 0.005;
+
+    /**
+     * Default keep-alive interval in seconds. This is half the default motor
+     * safety timeout
+     */
+    public static final double DEFAULT_KEEP_ALIVE = 0.05;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    /**
+     * A single collection's output
+     */
+    public static final class Output {
+        private final OutputCoalescer coalescer;
+        private final String name;
+        private final int frames;
+        private final DoubleConsumer writer;
+        private volatile int priority = 0;
+
+        // Output state. Guarded by the coalescer
+        private double desired = 0.0;
+        private boolean pending = false;
+        private boolean requested = false;
+        private boolean written = false;
+        private double lastWritten = 0.0;
+        private double lastWriteTime = 0.0;
+
+        private Output(OutputCoalescer coalescer, String name, int frames, DoubleConsumer writer) {
+            this.coalescer = coalescer;
+            this.name = name;
+            this.frames = frames;
+            this.writer = writer;
+        }
+
+        /**
+         * Get the output name
+         *
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Set this output's priority. Higher priority outputs are sent first when
+         * the frame budget is limited. Defaults to 0
+         *
+         * @param priority Priority
+         */
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * Get this output's priority
+         *
+         * @return Priority
+         */
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * Request a new output. If the coalescer is disabled, this is written
+         * immediately
+         *
+         * @param value Output
+         */
+        public void request(double value) {
+            coalescer.request(this, value);
+        }
+
+        /**
+         * Get the last output the coalescer sent to the controllers. Writes made
+         * while the coalescer is disabled are not tracked
+         *
+         * @return Output
+         */
+        public double getLastWritten() {
+            synchronized (coalescer) {
+                return lastWritten;
+            }
+        }
+    }
+
+    // Settings
+    private volatile boolean enabled = false;
+    private volatile double deadband = DEFAULT_DEADBAND;
+    private volatile double keepAlive = DEFAULT_KEEP_ALIVE;
+    private volatile int frameBudget = Integer.MAX_VALUE;
+
+    // Registered outputs. Copy-on-write
+    private volatile Output[] outputs = new Output[0];
+
+    // Outputs that need writing this flush. Guarded by this
+    private Output[] candidates = new Output[0];
+
+    // Stats. Frames written is also counted by uncoalesced writes, which don't
+    // take the lock
+    private final LongAdder framesWritten = new LongAdder();
+    private volatile long framesSaved = 0;
+    private volatile long framesDeferred = 0;
+
+    // Telemetry
+    private DoubleField writtenField = null;
+    private DoubleField savedField = null;
+    private DoubleField deferredField = null;
+
+    OutputCoalescer() {
+    }
+
+    /**
+     * Get the OutputCoalescer instance
+     *
+     * @return OutputCoalescer
+     */
+    public static synchronized OutputCoalescer getInstance() {
+        if (instance == null) {
+            instance = new OutputCoalescer();
+        }
+        return instance;
+    }
+
+    /**
+     * Register an output
+     *
+     * @param name   Output name
+     * @param frames CAN frames used by each write
+     * @param writer Sends an output to the controllers
+     * @return Output
+     */
+    public synchronized Output register(String name, int frames, DoubleConsumer writer) {
+        Output output = new Output(this, name, frames, writer);
+        Output[] updated = Arrays.copyOf(outputs, outputs.length + 1);
+        updated[outputs.length] = output;
+        outputs = updated;
+        candidates = new Output[updated.length];
+        return output;
+    }
+
+    /**
+     * Set if outputs should be coalesced. While disabled, every request is
+     * written immediately, without any locking. Any pending outputs are written
+     * when disabling
+     *
+     * @param enabled Should coalesce?
+     */
+    public void setEnabled(boolean enabled) {
+        boolean wasEnabled = this.enabled;
+        if (!wasEnabled && enabled) {
+
+            // Uncoalesced writes aren't tracked, so the next flush must send every
+            // output instead of comparing against a stale value
+            synchronized (this) {
+                for (Output output : outputs) {
+                    output.written = false;
+                }
+            }
+        }
+
+        this.enabled = enabled;
+        if (wasEnabled && !enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Check if outputs are being coalesced
+     *
+     * @return Is enabled?
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set how far an output must move from the last value sent before it is sent
+     * again
+     *
+     * @param deadband Deadband, in percent output
+     */
+    public void setDeadband(double deadband) {
+        this.deadband = Math.abs(deadband);
+    }
+
+    /**
+     * Set the longest time an output can go without being re-sent
+     *
+     * @param seconds Keep-alive interval
+     */
+    public void setKeepAlive(double seconds) {
+        this.keepAlive = seconds;
+    }
+
+    /**
+     * Set the most frames that can be sent per loop
+     *
+     * @param frames Frame budget
+     */
+    public void setFrameBudget(int frames) {
+        this.frameBudget = frames;
+    }
+
+    /**
+     * Get the total number of frames sent
+     *
+     * @return Frames written
+     */
+    public long getFramesWritten() {
+        return framesWritten.sum();
+    }
+
+    /**
+     * Get the total number of frames skipped, either because their output was
+     * within the deadband, or because it was requested more than once in a loop.
+     * This counts explicit writes that were skipped. CTRE controllers still
+     * re-send their last control frame periodically on their own, so this is not
+     * a direct count of frames removed from the bus
+     *
+     * @return Frames saved
+     */
+    public long getFramesSaved() {
+        return framesSaved;
+    }
+
+    /**
+     * Get the total number of frames pushed to a later loop by the frame budget
+     *
+     * @return Frames deferred
+     */
+    public long getFramesDeferred() {
+        return framesDeferred;
+    }
+
+    /**
+     * Handle an output request
+     *
+     * @param output Output
+     * @param value  Requested value
+     */
+    private void request(Output output, double value) {
+
+        // Without coalescing, write straight through. This keeps set() as cheap as
+        // it is without the coalescer
+        if (!enabled) {
+            output.writer.accept(value);
+            framesWritten.add(output.frames);
+            return;
+        }
+
+        synchronized (this) {
+            output.desired = value;
+
+            // Coalescing was turned off after the check above, and the final flush
+            // has already run
+            if (!enabled) {
+                write(output, FPGAClock.getFPGASeconds());
+                return;
+            }
+
+            // Several requests in one loop only need one write. An output still
+            // waiting from an earlier loop was deferred, not skipped
+            if (output.requested) {
+                framesSaved += output.frames;
+            }
+            output.requested = true;
+            output.pending = true;
+        }
+    }
+
+    /**
+     * Send every output that needs sending, within the frame budget. This should
+     * be called once at the end of each loop
+     */
+    public synchronized void flush() {
+        double now = FPGAClock.getFPGASeconds();
+        Output[] outputs = this.outputs;
+
+        // Find every output that needs to be sent. Stops, and outputs that don't
+        // use the CAN bus, are sent right away without touching the budget
+        int count = 0;
+        for (Output output : outputs) {
+            output.requested = false;
+            if (!output.pending) {
+                continue;
+            }
+
+            if (output.frames == 0 || (output.desired == 0.0 && output.lastWritten != 0.0)) {
+                write(output, now);
+            } else if (needsWrite(output, now)) {
+                candidates[count++] = output;
+            } else {
+                output.pending = false;
+                framesSaved += output.frames;
+            }
+        }
+
+        // Sort by priority, then by time since the last write. There are only a
+        // few outputs, so this is an allocation-free insertion sort
+        for (int i = 1; i < count; i++) {
+            Output output = candidates[i];
+            int j = i - 1;
+            while (j >= 0 && comesBefore(output, candidates[j])) {
+                candidates[j + 1] = candidates[j];
+                j--;
+            }
+            candidates[j + 1] = output;
+        }
+
+        // Write until the budget runs out
+        int budget = enabled ? frameBudget : Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            Output output = candidates[i];
+            if (output.frames <= budget) {
+                budget -= output.frames;
+                write(output, now);
+            } else {
+                framesDeferred += output.frames;
+            }
+            candidates[i] = null;
+        }
+    }
+
+    /**
+     * Check if an output needs to be sent
+     *
+     * @param output Output
+     * @param now    Current time
+     * @return Needs write?
+     */
+    private boolean needsWrite(Output output, double now) {
+        return !output.written || Math.abs(output.desired - output.lastWritten) > deadband
+                || now - output.lastWriteTime >= keepAlive;
+    }
+
+    /**
+     * Check if one output should be sent before another
+     *
+     * @param a Output
+     * @param b Output
+     * @return Should a be sent first?
+     */
+    private static boolean comesBefore(Output a, Output b) {
+        if (a.priority != b.priority) {
+            return a.priority > b.priority;
+        }
+        return a.lastWriteTime < b.lastWriteTime;
+    }
+
+    /**
+     * Send an output to its controllers
+     *
+     * @param output Output
+     * @param now    Current time
+     */
+    private void write(Output output, double now) {
+        output.writer.accept(output.desired);
+        output.pending = false;
+        output.written = true;
+        output.lastWritten = output.desired;
+        output.lastWriteTime = now;
+        framesWritten.add(output.frames);
+    }
+
+    @Override
+    public void logStatus() {
+        logger.log("CAN outputs: %d frames written, %d saved, %d deferred", Level.kInfo, framesWritten.sum(),
+                framesSaved, framesDeferred);
+    }
+
+    @Override
+    public void updateTelemetry() {
+
+        // Set up the fields once
+        if (writtenField == null) {
+            TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent("CAN Outputs");
+            writtenField = telemetry.doubleField("Frames written");
+            savedField = telemetry.doubleField("Frames saved");
+            deferredField = telemetry.doubleField("Frames deferred");
+        }
+
+        writtenField.set(framesWritten.sum());
+        savedField.set(framesSaved);
+        deferredField.set(framesDeferred);
+    }
+}
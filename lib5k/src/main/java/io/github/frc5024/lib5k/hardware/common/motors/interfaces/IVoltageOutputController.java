@@ -2,7 +2,10 @@ package io.github.frc5024.lib5k.hardware.common.motors.interfaces;
 
 /**
  * A common interface for devices that can be controlled with a desired output
- * voltage
+ * voltage. Implementations should convert between volts and percent output
+ * with the shared
+ * {@link io.github.frc5024.lib5k.hardware.ni.roborio.BusVoltageSampler}, so
+ * voltage commands don't cost extra status reads
  */
 public interface IVoltageOutputController {
 
@@ -0,0 +1,262 @@
+package io.github.frc5024.lib5k.hardware.common.sensors;
+
+import java.lang.invoke.VarHandle;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+
+/**
+ * A SensorFrame holds one timestamped reading of a fixed set of sensor
+ * channels, so everything that runs in a loop iteration can work from the same
+ * coherent snapshot instead of reading each sensor (over CAN or JNI) again.
+ *
+ * Frames are filled by a single {@link Source}, either by calling
+ * {@link #update(Source)} at the start of a loop, or from the control lane of
+ * the {@link RealTimeExecutor} with {@link #startReading(String, double, Source)}.
+ * Readings are taken into a private buffer, then published with a sequence
+ * lock, so readers never block, never allocate, and never see half of one
+ * frame mixed with half of another.
+ *
+ * <pre>
+ * {@code
+ * SensorFrame frame = new SensorFrame("heading", "left", "right");
+ * SensorFrame.Snapshot sensors = frame.newSnapshot();
+ *
+ * frame.startReading("DriveTrain sensors", 0.01, (values) -> {
+ *     values[0] = gyro.getHeading();
+ *     values[1] = leftEncoder.getPosition();
+ *     values[2] = rightEncoder.getPosition();
+ * });
+ *
+ * // Once per loop
+ * frame.read(sensors);
+ * }
+ * </pre>
+ *
+ * This is a general replacement for
+ * {@code common_drive.queue.DriveTrainSensors}.
+ */
+public class SensorFrame {
+
+    /**
+     * Something that reads every channel of a frame
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        /**
+         * Read each sensor into its channel
+         *
+         * @param values Channel values. The array is reused, and must not be kept
+         */
+        public void read(double[] values);
+    }
+
+    /**
+     * A caller-owned copy of a frame
+     */
+    public static final class Snapshot {
+        private final double[] values;
+        private double timestamp = Double.NaN;
+        private long sequence = 0;
+
+        private Snapshot(int channels) {
+            this.values = new double[channels];
+        }
+
+        /**
+         * Get a channel's value
+         *
+         * @param channel Channel index
+         * @return Value
+         */
+        public double get(int channel) {
+            return values[channel];
+        }
+
+        /**
+         * Get the FPGA time the frame was read at
+         *
+         * @return Seconds, or NaN if no frame has been published yet
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get the frame's sequence number. This goes up by one for every frame
+         * published, and is 0 if none have been
+         *
+         * @return Sequence number
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
+
+    private final String[] channels;
+
+    // Published frame. Even sequence numbers mean the frame is stable
+    private volatile long m_sequence = 0;
+    private final double[] m_values;
+    private double m_timestamp = Double.NaN;
+
+    // Buffer the source reads into, so readers only wait for a copy. Guarded by
+    // this
+    private final double[] m_readBuffer;
+
+    private volatile ScheduledTask task = null;
+
+    /**
+     * Create a SensorFrame
+     *
+     * @param channels Channel names, in index order
+     */
+    public SensorFrame(String... channels) {
+        this.channels = channels.clone();
+        this.m_values = new double[channels.length];
+        this.m_readBuffer = new double[channels.length];
+    }
+
+    /**
+     * Get the number of channels in this frame
+     *
+     * @return Channel count
+     */
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    /**
+     * Get a channel's name
+     *
+     * @param channel Channel index
+     * @return Name
+     */
+    public String getChannelName(int channel) {
+        return channels[channel];
+    }
+
+    /**
+     * Find a channel by name
+     *
+     * @param name Channel name
+     * @return Channel index
+     */
+    public int getChannel(String name) {
+        for (int i = 0; i < channels.length; i++) {
+            if (channels[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("SensorFrame has no channel named " + name);
+    }
+
+    /**
+     * Create a snapshot sized for this frame. Snapshots should be created once,
+     * and reused every loop
+     *
+     * @return Empty snapshot
+     */
+    public Snapshot newSnapshot() {
+        return new Snapshot(channels.length);
+    }
+
+    /**
+     * Read a new frame from a source, and publish it. Only one update runs at a
+     * time
+     *
+     * @param source Frame source
+     */
+    public synchronized void update(Source source) {
+        double timestamp = FPGAClock.getFPGASeconds();
+        source.read(m_readBuffer);
+
+        // Mark the frame as being written. The fence keeps the copy from being
+        // reordered before the odd sequence number is visible
+        long sequence = m_sequence;
+        m_sequence = sequence + 1;
+        VarHandle.storeStoreFence();
+
+        System.arraycopy(m_readBuffer, 0, m_values, 0, m_values.length);
+        m_timestamp = timestamp;
+
+        // Publish
+        m_sequence = sequence + 2;
+    }
+
+    /**
+     * Copy the latest frame into a snapshot. This never blocks or allocates, but
+     * will retry if a frame is published while it is being copied
+     *
+     * @param out Snapshot to fill
+     * @return The same snapshot
+     */
+    public Snapshot read(Snapshot out) {
+        while (true) {
+            long before = m_sequence;
+
+            // A frame is being published right now
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            System.arraycopy(m_values, 0, out.values, 0, out.values.length);
+            double timestamp = m_timestamp;
+
+            // Make sure the copy finished before checking if it was overwritten
+            VarHandle.loadLoadFence();
+            if (m_sequence == before) {
+                out.timestamp = timestamp;
+                out.sequence = before / 2;
+                return out;
+            }
+        }
+    }
+
+    /**
+     * Get the number of frames published so far
+     *
+     * @return Frame count
+     */
+    public long getFrameCount() {
+        return m_sequence / 2;
+    }
+
+    /**
+     * Start reading frames from a source on the control lane of the
+     * {@link RealTimeExecutor}. The source is called from the executor's thread
+     *
+     * @param name          Task name
+     * @param periodSeconds Time between reads
+     * @param source        Frame source
+     * @return Scheduled task
+     */
+    public synchronized ScheduledTask startReading(String name, double periodSeconds, Source source) {
+        stopReading();
+        task = RealTimeExecutor.getInstance().schedule(name, Lane.kControl, periodSeconds, () -> update(source));
+        return task;
+    }
+
+    /**
+     * Stop reading frames in the background
+     */
+    public synchronized void stopReading() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Check if frames are being read in the background
+     *
+     * @return Is reading?
+     */
+    public boolean isReading() {
+        return task != null;
+    }
+}
@@ -3,17 +3,20 @@ package io.github.frc5024.lib5k.hardware.common.sensors.simulation;
 import edu.wpi.first.hal.SimBoolean;
 import edu.wpi.first.hal.SimDevice;
 import edu.wpi.first.hal.SimDouble;
-import edu.wpi.first.wpilibj.Notifier;
 import io.github.frc5024.lib5k.hardware.common.drivebase.IDifferentialDrivebase;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
 
 /**
  * A utility class for simulating gyroscope data based on two encoders
  */
 public class GyroSimUtil implements AutoCloseable {
 
-    // Internal thread
+    // Internal task
+    private String name;
     private double threadPeriod;
-    private Notifier thread;
+    private ScheduledTask thread = null;
 
     // Sim device
     private SimDevice simDevice;
@@ -53,7 +56,7 @@ public class GyroSimUtil implements AutoCloseable {
             double rotationGain) {
 
         // Set up locals
-        this.thread = new Notifier(this::update);
+        this.name = name;
         this.threadPeriod = threadPeriod;
         this.drivebase = drivebase;
         this.kGain = rotationGain;
@@ -73,8 +76,9 @@ public class GyroSimUtil implements AutoCloseable {
      * Start the simulation
      */
     public void start() {
-        if (simDevice != null) {
-            thread.startPeriodic(threadPeriod);
+        if (simDevice != null && thread == null) {
+            thread = RealTimeExecutor.getInstance().schedule("GyroSimUtil " + name, Lane.kControl, threadPeriod,
+                    this::update);
         }
     }
 
@@ -191,6 +195,9 @@ public class GyroSimUtil implements AutoCloseable {
 
     @Override
     public void close() {
+        if (thread != null) {
+            thread.cancel();
+        }
         simDevice.close();
     }
 
@@ -8,9 +8,9 @@ import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
 import edu.wpi.first.hal.SimBoolean;
 import edu.wpi.first.hal.SimDevice;
 import edu.wpi.first.hal.SimDouble;
-import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.SpeedControllerGroup;
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.ICurrentController;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorCollection;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorGroupSafety;
@@ -19,12 +19,15 @@ import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IVoltageOutputC
 import io.github.frc5024.lib5k.hardware.ctre.util.TalonHelper;
 import io.github.frc5024.lib5k.control_loops.TimedSlewLimiter;
 import io.github.frc5024.lib5k.logging.Loggable;
-import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.hardware.ni.roborio.BusVoltageSampler;
 import io.github.frc5024.lib5k.utils.ObjectCounter;
 import io.github.frc5024.lib5k.utils.annotations.FieldTested;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
 
 /**
  * Collection of multiple WPI_TalonSRX controllers that wraps a
@@ -47,12 +50,21 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
     private boolean inverted, voltageCompEnabled, currentLimited;
 
     /* Telemetry */
-    private NetworkTable telemetryTable;
+    private DoubleField outputField;
+    private BooleanField invertedField;
+    private BooleanField currentLimitedField;
+    private BooleanField compensationField;
+    private DoubleField currentThreshField;
+    private DoubleField currentHoldField;
+    private DoubleField rampRateField;
     private SimDevice m_simDevice;
     private SimBoolean m_simConnected;
     private SimBoolean m_simInverted;
     private SimDouble m_simSpeed;
 
+    /* Output coalescing */
+    private OutputCoalescer.Output coalescedOutput;
+
     public TalonSRXCollection(WPI_TalonSRX master, WPI_TalonSRX... slaves) {
         super(master, slaves);
 
@@ -73,8 +85,18 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
         // Determine name
         name = String.format("TalonSRXCollection (Master ID %d)", master.getDeviceID());
 
-        // Get the telemetry NetworkTable
-        telemetryTable = ComponentTelemetry.getInstance().getTableForComponent(name);
+        // Send outputs through the coalescer
+        coalescedOutput = OutputCoalescer.getInstance().register(name, 1 + slaves.length, super::set);
+
+        // Set up telemetry fields
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent(name);
+        outputField = telemetry.doubleField("Output");
+        invertedField = telemetry.booleanField("Is Inverted");
+        currentLimitedField = telemetry.booleanField("Is Current Limited");
+        compensationField = telemetry.booleanField("Voltage Compensation");
+        currentThreshField = telemetry.doubleField("Curent Threshold");
+        currentHoldField = telemetry.doubleField("Current Hold");
+        rampRateField = telemetry.doubleField("Ramp Rate");
 
         // handle simulation device settings
         m_simDevice = SimDevice.create("TalonSRXCollection", master.getDeviceID());
@@ -94,7 +116,7 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
             m_simSpeed.set(speed);
         }
 
-        super.set(speed);
+        coalescedOutput.request(speed);
     }
 
     @Override
@@ -125,15 +147,9 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
     }
 
     private double getControllerVoltage() {
-        if (m_simDevice != null) {
 
-            // Determine sim-safe voltage
-            return RR_HAL.getSimSafeVoltage();
-        } else {
-
-            // Determine TalonSRX input bus voltage
-            return master.getBusVoltage();
-        }
+        // Use the shared bus voltage, instead of reading it from the TalonSRX
+        return BusVoltageSampler.getInstance().getVoltage();
     }
 
     @Override
@@ -295,6 +311,16 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
 
     }
 
+    /**
+     * Get this collection's output in the {@link OutputCoalescer}, for setting
+     * its priority
+     * 
+     * @return Coalesced output
+     */
+    public OutputCoalescer.Output getCoalescedOutput() {
+        return coalescedOutput;
+    }
+
     /**
      * Log all component data with RobotLogger
      */
@@ -313,13 +339,13 @@ public class TalonSRXCollection extends SpeedControllerGroup implements IMotorCo
 
     @Override
     public void updateTelemetry() {
-        telemetryTable.getEntry("Output").setNumber(output);
-        telemetryTable.getEntry("Is Inverted").setBoolean(inverted);
-        telemetryTable.getEntry("Is Current Limited").setBoolean(currentLimited);
-        telemetryTable.getEntry("Voltage Compensation").setBoolean(voltageCompEnabled);
-        telemetryTable.getEntry("Curent Threshold").setNumber(currentThresh);
-        telemetryTable.getEntry("Current Hold").setNumber(currentHold);
-        telemetryTable.getEntry("Ramp Rate").setNumber(rampRate);
+        outputField.set(output);
+        invertedField.set(inverted);
+        currentLimitedField.set(currentLimited);
+        compensationField.set(voltageCompEnabled);
+        currentThreshField.set(currentThresh);
+        currentHoldField.set(currentHold);
+        rampRateField.set(rampRate);
 
     }
 
@@ -5,21 +5,24 @@ import java.util.function.Consumer;
 
 import com.ctre.phoenix.motorcontrol.can.WPI_VictorSPX;
 
-import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.SpeedControllerGroup;
 
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorCollection;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorGroupSafety;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IRampRateController;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IVoltageOutputController;
 import io.github.frc5024.lib5k.control_loops.TimedSlewLimiter;
 import io.github.frc5024.lib5k.logging.Loggable;
-import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.hardware.ni.roborio.BusVoltageSampler;
 import io.github.frc5024.lib5k.utils.ObjectCounter;
 import io.github.frc5024.lib5k.utils.annotations.FieldTested;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
 
 @Deprecated(since="July 2020", forRemoval=false)
 @FieldTested(year = 2020)
@@ -38,7 +41,16 @@ public class VictorSPXCollection extends SpeedControllerGroup implements IMotorC
     private boolean inverted, voltageCompEnabled, currentLimited;
 
     /* Telemetry */
-    private NetworkTable telemetryTable;
+    private DoubleField outputField;
+    private BooleanField invertedField;
+    private BooleanField currentLimitedField;
+    private BooleanField compensationField;
+    private DoubleField currentThreshField;
+    private DoubleField currentHoldField;
+    private DoubleField rampRateField;
+
+    /* Output coalescing */
+    private OutputCoalescer.Output coalescedOutput;
 
     public VictorSPXCollection(WPI_VictorSPX master, WPI_VictorSPX... slaves) {
         super(master, slaves);
@@ -60,15 +72,25 @@ public class VictorSPXCollection extends SpeedControllerGroup implements IMotorC
         // Determine name
         name = String.format("VictorSPXCollection (Master ID %d)", master.getDeviceID());
 
-        // Get the telemetry NetworkTable
-        telemetryTable = ComponentTelemetry.getInstance().getTableForComponent(name);
+        // Send outputs through the coalescer
+        coalescedOutput = OutputCoalescer.getInstance().register(name, 1 + slaves.length, super::set);
+
+        // Set up telemetry fields
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent(name);
+        outputField = telemetry.doubleField("Output");
+        invertedField = telemetry.booleanField("Is Inverted");
+        currentLimitedField = telemetry.booleanField("Is Current Limited");
+        compensationField = telemetry.booleanField("Voltage Compensation");
+        currentThreshField = telemetry.doubleField("Curent Threshold");
+        currentHoldField = telemetry.doubleField("Current Hold");
+        rampRateField = telemetry.doubleField("Ramp Rate");
     }
 
     @Override
     public void set(double speed) {
         output = speed;
 
-        super.set(speed);
+        coalescedOutput.request(speed);
     }
 
     @Override
@@ -96,8 +118,8 @@ public class VictorSPXCollection extends SpeedControllerGroup implements IMotorC
     @Override
     public void setVoltage(double volts) {
 
-        // Determine VictorSPX input bus voltage
-        double busVoltage = master.getBusVoltage();
+        // Use the shared bus voltage, instead of reading it from the VictorSPX
+        double busVoltage = BusVoltageSampler.getInstance().getVoltage();
 
         // Just stop the motor if the bus is at 0V
         // Many things would go wrong otherwise (do you really want a div-by-zero error
@@ -171,6 +193,16 @@ public class VictorSPXCollection extends SpeedControllerGroup implements IMotorC
         }
     }
 
+    /**
+     * Get this collection's output in the {@link OutputCoalescer}, for setting
+     * its priority
+     * 
+     * @return Coalesced output
+     */
+    public OutputCoalescer.Output getCoalescedOutput() {
+        return coalescedOutput;
+    }
+
     /**
      * Log all component data with RobotLogger
      */
@@ -189,13 +221,13 @@ public class VictorSPXCollection extends SpeedControllerGroup implements IMotorC
 
     @Override
     public void updateTelemetry() {
-        telemetryTable.getEntry("Output").setNumber(output);
-        telemetryTable.getEntry("Is Inverted").setBoolean(inverted);
-        telemetryTable.getEntry("Is Current Limited").setBoolean(currentLimited);
-        telemetryTable.getEntry("Voltage Compensation").setBoolean(voltageCompEnabled);
-        telemetryTable.getEntry("Curent Threshold").setNumber(currentThresh);
-        telemetryTable.getEntry("Current Hold").setNumber(currentHold);
-        telemetryTable.getEntry("Ramp Rate").setNumber(rampRate);
+        outputField.set(output);
+        invertedField.set(inverted);
+        currentLimitedField.set(currentLimited);
+        compensationField.set(voltageCompEnabled);
+        currentThreshField.set(currentThresh);
+        currentHoldField.set(currentHold);
+        rampRateField.set(rampRate);
 
     }
 
@@ -1,6 +1,5 @@
 package io.github.frc5024.lib5k.hardware.generic.cameras;
 
-import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Solenoid;
 import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
 
@@ -13,7 +12,6 @@ public class USBVisionCamera extends AutoCamera {
 
     private Solenoid m_relay;
     private LEDMode m_desiredMode;
-    private Notifier m_thread;
     private final double blink_ms = 25;
 
     /**
@@ -2,21 +2,24 @@ package io.github.frc5024.lib5k.hardware.generic.motors.motorcollection;
 
 import java.util.function.Consumer;
 
-import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj.SpeedControllerGroup;
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorCollection;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IRampRateController;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IVoltageOutputController;
 import io.github.frc5024.lib5k.control_loops.TimedSlewLimiter;
 import io.github.frc5024.lib5k.logging.Loggable;
-import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.hardware.ni.roborio.BusVoltageSampler;
 import io.github.frc5024.lib5k.utils.ObjectCounter;
 import io.github.frc5024.lib5k.utils.annotations.FieldTested;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
 
 /**
  * Collection of multiple motor controllers of mixed types that wraps a
@@ -37,7 +40,8 @@ public class MixedMotorCollection extends SpeedControllerGroup
     private double output;
     private boolean inverted;
     private String name;
-    private NetworkTable telemetryTable;
+    private DoubleField outputField;
+    private BooleanField invertedField;
 
     /* ID tracking */
     private static ObjectCounter idCounter = new ObjectCounter();
@@ -45,6 +49,9 @@ public class MixedMotorCollection extends SpeedControllerGroup
     /* Locals */
     private TimedSlewLimiter slewLimiter;
 
+    /* Output coalescing */
+    private OutputCoalescer.Output coalescedOutput;
+
     public MixedMotorCollection(SpeedController master, SpeedController... slaves) {
         super(master, slaves);
 
@@ -59,8 +66,13 @@ public class MixedMotorCollection extends SpeedControllerGroup
         // Determine name
         name = String.format("MixedMotorCollection (Master ID %d)", idCounter.getNewID());
 
-        // Get the telemetry NetworkTable
-        telemetryTable = ComponentTelemetry.getInstance().getTableForComponent(name);
+        // Send outputs through the coalescer
+        coalescedOutput = OutputCoalescer.getInstance().register(name, 1 + slaves.length, super::set);
+
+        // Set up telemetry fields
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent(name);
+        outputField = telemetry.doubleField("Output");
+        invertedField = telemetry.booleanField("Is Inverted");
 
     }
 
@@ -68,7 +80,7 @@ public class MixedMotorCollection extends SpeedControllerGroup
     public void set(double speed) {
         output = speed;
 
-        super.set(speed);
+        coalescedOutput.request(speed);
     }
 
     @Override
@@ -97,7 +109,7 @@ public class MixedMotorCollection extends SpeedControllerGroup
     public void setVoltage(double volts) {
 
         // Determine Robot bus voltage
-        double busVoltage = RR_HAL.getSimSafeVoltage();
+        double busVoltage = BusVoltageSampler.getInstance().getVoltage();
 
         // Just stop the motor if the bus is at 0V
         // Many things would go wrong otherwise (do you really want a div-by-zero error
@@ -119,7 +131,7 @@ public class MixedMotorCollection extends SpeedControllerGroup
     public double getEstimatedVoltage() {
 
         // Determine Robot bus voltage
-        double busVoltage = RR_HAL.getSimSafeVoltage();
+        double busVoltage = BusVoltageSampler.getInstance().getVoltage();
 
         // Convert percent output to voltage
         double voltage_estimate = get() * busVoltage;
@@ -155,6 +167,16 @@ public class MixedMotorCollection extends SpeedControllerGroup
         }
     }
 
+    /**
+     * Get this collection's output in the {@link OutputCoalescer}, for setting
+     * its priority
+     * 
+     * @return Coalesced output
+     */
+    public OutputCoalescer.Output getCoalescedOutput() {
+        return coalescedOutput;
+    }
+
     @Override
     public void logStatus() {
         // Build info string
@@ -167,8 +189,8 @@ public class MixedMotorCollection extends SpeedControllerGroup
 
     @Override
     public void updateTelemetry() {
-        telemetryTable.getEntry("Output").setNumber(output);
-        telemetryTable.getEntry("Is Inverted").setBoolean(inverted);
+        outputField.set(output);
+        invertedField.set(inverted);
 
     }
 
@@ -2,21 +2,24 @@ package io.github.frc5024.lib5k.hardware.generic.motors.motorcollection;
 
 import java.util.function.Consumer;
 
-import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.Spark;
 import edu.wpi.first.wpilibj.SpeedControllerGroup;
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IMotorCollection;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IRampRateController;
 import io.github.frc5024.lib5k.hardware.common.motors.interfaces.IVoltageOutputController;
 import io.github.frc5024.lib5k.control_loops.TimedSlewLimiter;
 import io.github.frc5024.lib5k.logging.Loggable;
-import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.hardware.ni.roborio.BusVoltageSampler;
 import io.github.frc5024.lib5k.utils.ObjectCounter;
 import io.github.frc5024.lib5k.utils.annotations.FieldTested;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
 
 /**
  * Collection of multiple Spark controllers that wraps a SpeedControllerGroup
@@ -37,11 +40,16 @@ public class SparkCollection extends SpeedControllerGroup
     private double output;
     private boolean inverted;
     private String name;
-    private NetworkTable telemetryTable;
+    private DoubleField outputField;
+    private BooleanField invertedField;
+    private DoubleField rampRateField;
 
     /* Locals */
     private TimedSlewLimiter slewLimiter;
 
+    /* Output coalescing */
+    private OutputCoalescer.Output coalescedOutput;
+
     public SparkCollection(Spark master, Spark... slaves) {
         super(master, slaves);
 
@@ -56,8 +64,15 @@ public class SparkCollection extends SpeedControllerGroup
         // Determine name
         name = String.format("SparkCollection (Master ID %d)", master.getChannel());
 
-        // Get the telemetry NetworkTable
-        telemetryTable = ComponentTelemetry.getInstance().getTableForComponent(name);
+        // Send outputs through the coalescer. Sparks are PWM, so they don't count
+        // against the CAN frame budget
+        coalescedOutput = OutputCoalescer.getInstance().register(name, 0, super::set);
+
+        // Set up telemetry fields
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent(name);
+        outputField = telemetry.doubleField("Output");
+        invertedField = telemetry.booleanField("Is Inverted");
+        rampRateField = telemetry.doubleField("Ramp Rate");
 
     }
 
@@ -66,7 +81,7 @@ public class SparkCollection extends SpeedControllerGroup
         output = speed;
 
         // Process, then set the speed
-        super.set(slewLimiter.feed(speed));
+        coalescedOutput.request(slewLimiter.feed(speed));
     }
 
     @Override
@@ -95,7 +110,7 @@ public class SparkCollection extends SpeedControllerGroup
     public void setVoltage(double volts) {
 
         // Determine Robot bus voltage
-        double busVoltage = RR_HAL.getSimSafeVoltage();
+        double busVoltage = BusVoltageSampler.getInstance().getVoltage();
 
         // Just stop the motor if the bus is at 0V
         // Many things would go wrong otherwise (do you really want a div-by-zero error
@@ -117,7 +132,7 @@ public class SparkCollection extends SpeedControllerGroup
     public double getEstimatedVoltage() {
 
         // Determine Robot bus voltage
-        double busVoltage = RR_HAL.getSimSafeVoltage();
+        double busVoltage = BusVoltageSampler.getInstance().getVoltage();
 
         // Convert percent output to voltage
         double voltage_estimate = get() * busVoltage;
@@ -153,6 +168,16 @@ public class SparkCollection extends SpeedControllerGroup
         }
     }
 
+    /**
+     * Get this collection's output in the {@link OutputCoalescer}, for setting
+     * its priority
+     * 
+     * @return Coalesced output
+     */
+    public OutputCoalescer.Output getCoalescedOutput() {
+        return coalescedOutput;
+    }
+
     @Override
     public void logStatus() {
         // Build info string
@@ -165,9 +190,9 @@ public class SparkCollection extends SpeedControllerGroup
 
     @Override
     public void updateTelemetry() {
-        telemetryTable.getEntry("Output").setNumber(output);
-        telemetryTable.getEntry("Is Inverted").setBoolean(inverted);
-        telemetryTable.getEntry("Ramp Rate").setNumber(getRampRate());
+        outputField.set(output);
+        invertedField.set(inverted);
+        rampRateField.set(getRampRate());
 
     }
 
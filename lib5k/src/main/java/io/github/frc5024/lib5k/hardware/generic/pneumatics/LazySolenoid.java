@@ -1,11 +1,12 @@
 package io.github.frc5024.lib5k.hardware.generic.pneumatics;
 
-import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.wpilibj.Solenoid;
 import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
 import io.github.frc5024.lib5k.logging.Loggable;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
 
 /**
  * Buffer solenoid commands to reduce CAN spam. For some reason, solenoid
@@ -20,7 +21,7 @@ public class LazySolenoid extends Solenoid implements Loggable {
 
     /* Telemetry */
     private String name;
-    private NetworkTable telemetryTable;
+    private BooleanField enabledField;
 
     /**
      * Create a LazySolenoid
@@ -34,8 +35,9 @@ public class LazySolenoid extends Solenoid implements Loggable {
         // Determine component name
         name = String.format("LazySolenoid (%d:%d)", moduleNumber, channel);
 
-        // Get telemetry table
-        telemetryTable = ComponentTelemetry.getInstance().getTableForComponent(name);
+        // Set up telemetry fields
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent(name);
+        enabledField = telemetry.booleanField("Enabled");
     }
 
     /**
@@ -89,7 +91,7 @@ public class LazySolenoid extends Solenoid implements Loggable {
 
     @Override
     public void updateTelemetry() {
-        telemetryTable.getEntry("Enabled").setBoolean(lastState);
+        enabledField.set(lastState);
 
     }
 
@@ -0,0 +1,132 @@
+package io.github.frc5024.lib5k.hardware.ni.roborio;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RR_HAL;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+
+/**
+ * The BusVoltageSampler reads the robot's battery voltage at a fixed rate on
+ * the control lane of the {@link RealTimeExecutor}, and low-pass filters it.
+ * Voltage-mode outputs use the cached value, so converting volts to percent
+ * output never costs an extra status read from a motor controller.
+ *
+ * <pre>
+ * {@code
+ * double percent = volts / BusVoltageSampler.getInstance().getVoltage();
+ * }
+ * </pre>
+ *
+ * In simulation, a battery reading of 0V is treated as 12V (see
+ * {@link RR_HAL#getSimSafeVoltage()}).
+ */
+public class BusVoltageSampler {
+    private static BusVoltageSampler instance = null;
+
+    /**
+     * Time between samples in seconds
+     */
+    public static final double SAMPLE_PERIOD = 0.01;
+
+    /**
+     * Default filter time constant in seconds
+     */
+    public static final double DEFAULT_TIME_CONSTANT = 0.04;
+
+    // Filter
+    private volatile double timeConstant = DEFAULT_TIME_CONSTANT;
+    private volatile double voltage = 0.0;
+    private volatile double rawVoltage = 0.0;
+    private volatile boolean sampled = false;
+
+    private ScheduledTask task = null;
+
+    /**
+     * Create a BusVoltageSampler
+     *
+     * @param startTask Should sampling be started? Turned off for tests, which
+     *                  feed samples by hand
+     */
+    BusVoltageSampler(boolean startTask) {
+        if (startTask) {
+            task = RealTimeExecutor.getInstance().schedule("BusVoltageSampler", Lane.kControl, SAMPLE_PERIOD,
+                    this::sample);
+        }
+    }
+
+    /**
+     * Get the BusVoltageSampler instance
+     *
+     * @return BusVoltageSampler
+     */
+    public static synchronized BusVoltageSampler getInstance() {
+        if (instance == null) {
+            instance = new BusVoltageSampler(true);
+        }
+        return instance;
+    }
+
+    /**
+     * Set the filter time constant. Longer time constants smooth out more noise,
+     * but react to voltage sag more slowly
+     *
+     * @param seconds Time constant
+     */
+    public void setTimeConstant(double seconds) {
+        this.timeConstant = seconds;
+    }
+
+    /**
+     * Get the filtered bus voltage
+     *
+     * @return Volts
+     */
+    public double getVoltage() {
+
+        // Read the battery once if the sampler hasn't run yet
+        if (!sampled) {
+            sample();
+        }
+
+        return voltage;
+    }
+
+    /**
+     * Get the most recent unfiltered bus voltage
+     *
+     * @return Volts
+     */
+    public double getRawVoltage() {
+        if (!sampled) {
+            sample();
+        }
+
+        return rawVoltage;
+    }
+
+    /**
+     * Read and filter the battery voltage
+     */
+    private void sample() {
+        update(RR_HAL.getSimSafeVoltage());
+    }
+
+    /**
+     * Feed a new sample into the filter
+     *
+     * @param volts Raw bus voltage
+     */
+    synchronized void update(double volts) {
+        rawVoltage = volts;
+
+        // Start the filter at the first reading
+        if (!sampled) {
+            voltage = volts;
+            sampled = true;
+            return;
+        }
+
+        double alpha = SAMPLE_PERIOD / (timeConstant + SAMPLE_PERIOD);
+        voltage += alpha * (volts - voltage);
+    }
+}
@@ -1,10 +1,13 @@
 package io.github.frc5024.lib5k.hardware.ni.roborio;
 
 import edu.wpi.first.hal.can.CANStatus;
-import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.RobotController;
+import io.github.frc5024.lib5k.logging.FlightRecorder;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
 
 /**
  * Utility for tracking and reporting RoboRIO FPGA faults.
@@ -16,7 +19,7 @@ public class FaultReporter {
     // locals
     RobotLogger logger = RobotLogger.getInstance();
     private static FaultReporter instance = null;
-    private Notifier thread;
+    private ScheduledTask thread;
 
     // Fault counts
     int count3v3, count5v, count6v = 0;
@@ -35,9 +38,7 @@ public class FaultReporter {
 
         // Configure and start the notifier
         logger.log("Starting reporter thread", Level.kRobot);
-        thread = new Notifier(this::update);
-        thread.setName("Lib5K FaultReporter");
-        thread.startPeriodic(0.08);
+        thread = RealTimeExecutor.getInstance().schedule("FaultReporter", Lane.kBackground, 0.08, this::update);
     }
 
     /**
@@ -63,6 +64,7 @@ public class FaultReporter {
 
         if (brownout_state != lastBrownoutState && brownout_state) {
             logger.log("Robot brownout detected!", Level.kWarning);
+            FlightRecorder.getInstance().trigger("Brownout");
         }
 
         lastBrownoutState = brownout_state;
@@ -100,6 +102,7 @@ public class FaultReporter {
         int new3v3count = RobotController.getFaultCount3V3();
         if (new3v3count != count3v3) {
             logger.log("3v3 Rail fault detected!", Level.kWarning);
+            FlightRecorder.getInstance().trigger("3v3RailFault");
 
             count3v3 = new3v3count;
         }
@@ -116,6 +119,7 @@ public class FaultReporter {
         int new5vcount = RobotController.getFaultCount5V();
         if (new5vcount != count5v) {
             logger.log("5v Rail fault detected!", Level.kWarning);
+            FlightRecorder.getInstance().trigger("5vRailFault");
 
             count5v = new5vcount;
         }
@@ -132,6 +136,7 @@ public class FaultReporter {
         int new6vcount = RobotController.getFaultCount6V();
         if (new6vcount != count6v) {
             logger.log("6v Rail fault detected!", Level.kWarning);
+            FlightRecorder.getInstance().trigger("6vRailFault");
 
             count6v = new6vcount;
         }
@@ -0,0 +1,261 @@
+package io.github.frc5024.lib5k.hardware.ni.roborio.fpga;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.frc5024.lib5k.logging.Loggable;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+/**
+ * Timing statistics for a periodic loop. This tracks how well the loop keeps
+ * its period: the time between starts, the time each run takes, runs that took
+ * longer than the period (overruns), and periods where the loop didn't run at
+ * all (skipped cycles).
+ *
+ * Intervals and run times are kept for the last {@link #WINDOW_SIZE} runs in
+ * preallocated arrays, so recording never allocates. Recording must be done
+ * from a single thread, but the stats may be read from anywhere.
+ */
+public class NotifierStats implements Loggable {
+
+    /**
+     * Number of runs the rolling stats are calculated over
+     */
+    public static final int WINDOW_SIZE = 128;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+    private final String name;
+    private volatile long periodNanos;
+
+    // Rolling windows
+    private final AtomicLongArray intervals = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLongArray executions = new AtomicLongArray(WINDOW_SIZE);
+
+    // Totals
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    // Recording state. Only written by the recording thread (except by
+    // resetInterval())
+    private volatile long lastStart = 0;
+    private long currentStart = 0;
+
+    // Telemetry. Only touched by updateTelemetry(), on the main robot thread
+    private DoubleField[] fields = null;
+
+    /**
+     * Create NotifierStats
+     *
+     * @param name          Loop name
+     * @param periodSeconds Expected period in seconds
+     */
+    public NotifierStats(String name, double periodSeconds) {
+        this.name = name;
+        setPeriod(periodSeconds);
+    }
+
+    /**
+     * Set the expected period
+     *
+     * @param periodSeconds Expected period in seconds
+     */
+    public void setPeriod(double periodSeconds) {
+        this.periodNanos = (long) (periodSeconds * 1e9);
+    }
+
+    /**
+     * Forget when the last run started, so a pause (like the loop being stopped)
+     * isn't counted as skipped cycles. Only call this while the loop isn't running
+     */
+    void resetInterval() {
+        lastStart = 0;
+    }
+
+    /**
+     * Mark the start of a run
+     */
+    public void start() {
+        currentStart = System.nanoTime();
+        long period = periodNanos;
+
+        // The first run has no interval
+        if (lastStart != 0) {
+            long interval = currentStart - lastStart;
+            intervals.lazySet((int) ((runs.get() - 1) % WINDOW_SIZE), interval);
+
+            // Count any whole periods that were missed
+            if (period > 0 && interval >= period + period / 2) {
+                skipped.addAndGet(Math.round((double) interval / period) - 1);
+            }
+        }
+        lastStart = currentStart;
+    }
+
+    /**
+     * Mark the end of a run
+     */
+    public void stop() {
+        long execution = System.nanoTime() - currentStart;
+        executions.lazySet((int) (runs.get() % WINDOW_SIZE), execution);
+
+        if (periodNanos > 0 && execution > periodNanos) {
+            overruns.incrementAndGet();
+        }
+        runs.incrementAndGet();
+    }
+
+    /**
+     * Get the loop name
+     *
+     * @return Name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of completed runs
+     *
+     * @return Run count
+     */
+    public long getRunCount() {
+        return runs.get();
+    }
+
+    /**
+     * Get the number of runs that took longer than the period
+     *
+     * @return Overrun count
+     */
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+
+    /**
+     * Get the number of periods where the loop didn't run at all
+     *
+     * @return Skipped cycle count
+     */
+    public long getSkippedCycles() {
+        return skipped.get();
+    }
+
+    /**
+     * Get the average time between run starts, over the window
+     *
+     * @return Mean interval in seconds
+     */
+    public double getMeanInterval() {
+        return mean(intervals, intervalCount()) / 1e9;
+    }
+
+    /**
+     * Get the longest time between run starts, over the window
+     *
+     * @return Max interval in seconds
+     */
+    public double getMaxInterval() {
+        return max(intervals, intervalCount()) / 1e9;
+    }
+
+    /**
+     * Get the standard deviation of the time between run starts, over the window
+     *
+     * @return Jitter in seconds
+     */
+    public double getJitter() {
+        int count = intervalCount();
+        if (count < 2) {
+            return 0.0;
+        }
+
+        double mean = mean(intervals, count);
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            double error = intervals.get(i) - mean;
+            sum += error * error;
+        }
+        return Math.sqrt(sum / count) / 1e9;
+    }
+
+    /**
+     * Get the average run time, over the window
+     *
+     * @return Mean execution time in seconds
+     */
+    public double getMeanExecution() {
+        return mean(executions, executionCount()) / 1e9;
+    }
+
+    /**
+     * Get the longest run time, over the window
+     *
+     * @return Max execution time in seconds
+     */
+    public double getMaxExecution() {
+        return max(executions, executionCount()) / 1e9;
+    }
+
+    private int executionCount() {
+        return (int) Math.min(runs.get(), WINDOW_SIZE);
+    }
+
+    private int intervalCount() {
+        return (int) Math.min(Math.max(0, runs.get() - 1), WINDOW_SIZE);
+    }
+
+    private static double mean(AtomicLongArray values, int count) {
+        if (count == 0) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += values.get(i);
+        }
+        return sum / count;
+    }
+
+    private static long max(AtomicLongArray values, int count) {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values.get(i));
+        }
+        return max;
+    }
+
+    @Override
+    public void logStatus() {
+        logger.log("%s: interval %.2fms (jitter %.2fms), execution %.2fms (max %.2fms), %d overruns, %d skipped",
+                Level.kInfo, name, getMeanInterval() * 1000, getJitter() * 1000, getMeanExecution() * 1000,
+                getMaxExecution() * 1000, getOverrunCount(), getSkippedCycles());
+    }
+
+    @Override
+    public void updateTelemetry() {
+
+        // Set up all fields once
+        if (fields == null) {
+            TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent("Notifier-" + name);
+            String[] names = { "Mean interval (ms)", "Max interval (ms)", "Jitter (ms)", "Mean execution (ms)",
+                    "Max execution (ms)", "Overruns", "Skipped cycles" };
+            fields = new DoubleField[names.length];
+            for (int i = 0; i < names.length; i++) {
+                fields[i] = telemetry.doubleField(names[i]);
+            }
+        }
+
+        fields[0].set(getMeanInterval() * 1000);
+        fields[1].set(getMaxInterval() * 1000);
+        fields[2].set(getJitter() * 1000);
+        fields[3].set(getMeanExecution() * 1000);
+        fields[4].set(getMaxExecution() * 1000);
+        fields[5].set(getOverrunCount());
+        fields[6].set(getSkippedCycles());
+    }
+}
@@ -0,0 +1,448 @@
+package io.github.frc5024.lib5k.hardware.ni.roborio.fpga;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Threads;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.TelemetryScheduler;
+
+/**
+ * The RealTimeExecutor runs every periodic Lib5K task on just three HAL notifier
+ * threads, instead of giving each task its own. The RoboRIO only has two cores,
+ * so fewer threads means less time lost to context switches, and more
+ * predictable timing for the main loop.
+ *
+ * Tasks are split into three lanes:
+ * <ul>
+ * <li>{@link Lane#kControl} for short, timing-critical work (sensor polling,
+ * simulation updates). This lane can be given real-time priority</li>
+ * <li>{@link Lane#kBackground} for work that should never block (draining the
+ * log buffer, fault reporting)</li>
+ * <li>{@link Lane#kFileIO} for writes to the USB stick, which can stall for a
+ * long time</li>
+ * </ul>
+ *
+ * Within a lane, each task has its own period, phase offset and deadline. Tasks
+ * that are due at the same time run highest priority first. Like a
+ * {@link SafeNotifier}, an error thrown by a task is logged and saved to the
+ * session folder, but only that task is stopped. The rest of the lane keeps
+ * running. Each task's timing stats are published with the
+ * {@link TelemetryScheduler}.
+ *
+ * <pre>
+ * {@code
+ * ScheduledTask task = RealTimeExecutor.getInstance().schedule("Shooter", Lane.kControl, 0.01, this::update);
+ * }
+ * </pre>
+ */
+public class RealTimeExecutor {
+    private static RealTimeExecutor instance = null;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    /**
+     * Thread that a task runs on
+     */
+    public enum Lane {
+        /**
+         * Short, timing-critical tasks
+         */
+        kControl,
+
+        /**
+         * Work that doesn't have tight timing, but must not block
+         */
+        kBackground,
+
+        /**
+         * Blocking file writes. These get their own thread, so a slow USB stick
+         * can't hold up logging or telemetry
+         */
+        kFileIO;
+    }
+
+    /**
+     * A periodic task running on the executor
+     */
+    public static final class ScheduledTask {
+        private final String name;
+        private final Runnable action;
+        private final Lane lane;
+        private final int priority;
+        private final NotifierStats stats;
+        private final AtomicLong deadlineMisses = new AtomicLong();
+        private volatile long periodNanos;
+        private volatile long deadlineNanos;
+        private volatile boolean cancelled = false;
+        private boolean oneShot = false;
+        private RealTimeExecutor executor;
+
+        // Next time this task is due. Only touched by the lane thread once scheduled
+        long nextRun;
+
+        private ScheduledTask(String name, Lane lane, double periodSeconds, int priority, Runnable action) {
+            this.name = name;
+            this.lane = lane;
+            this.priority = priority;
+            this.action = action;
+            this.stats = new NotifierStats(name, periodSeconds);
+            setPeriod(periodSeconds);
+        }
+
+        /**
+         * Get the task name
+         *
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the lane the task runs on
+         *
+         * @return Lane
+         */
+        public Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * Change the task period. This also resets the deadline to the new period
+         *
+         * @param periodSeconds Period in seconds
+         */
+        public void setPeriod(double periodSeconds) {
+            this.periodNanos = Math.max(1, (long) (periodSeconds * 1e9));
+            this.deadlineNanos = periodNanos;
+            stats.setPeriod(periodSeconds);
+        }
+
+        /**
+         * Set how long after its scheduled time the task must be finished by.
+         * Defaults to the task period
+         *
+         * @param seconds Deadline in seconds
+         */
+        public void setDeadline(double seconds) {
+            this.deadlineNanos = (long) (seconds * 1e9);
+        }
+
+        /**
+         * Get the number of runs that finished after their deadline
+         *
+         * @return Deadline miss count
+         */
+        public long getDeadlineMisses() {
+            return deadlineMisses.get();
+        }
+
+        /**
+         * Get the task's timing stats
+         *
+         * @return Timing stats
+         */
+        public NotifierStats getStats() {
+            return stats;
+        }
+
+        /**
+         * Stop running the task
+         */
+        public void cancel() {
+            cancelled = true;
+            if (executor != null) {
+                executor.lanes[lane.ordinal()].remove(this);
+                if (executor.publishStats && !oneShot) {
+                    TelemetryScheduler.getInstance().unregister(stats);
+                }
+            }
+        }
+
+        /**
+         * Check if the task has been cancelled (or stopped by an error)
+         *
+         * @return Is cancelled?
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * A single notifier thread and its tasks
+     */
+    private final class LaneRunner {
+        private final Lane lane;
+        private final Notifier notifier;
+
+        // Set when a task is added while the lane is running, so the new task isn't
+        // missed when the lane goes back to sleep
+        private boolean tasksChanged = false;
+
+        // Every task, highest priority first. Replaced (never modified) while holding
+        // this
+        private volatile ScheduledTask[] tasks = new ScheduledTask[0];
+
+        // Requested real-time priority, or -1 to leave the thread alone
+        private volatile int realTimePriority = -1;
+        private int appliedPriority = -1;
+
+        LaneRunner(Lane lane, boolean startThread) {
+            this.lane = lane;
+            this.notifier = startThread ? new Notifier(this::run) : null;
+            if (notifier != null) {
+                notifier.setName("Lib5K RealTimeExecutor " + lane.name());
+            }
+        }
+
+        synchronized void add(ScheduledTask task) {
+            ScheduledTask[] next = Arrays.copyOf(tasks, tasks.length + 1);
+
+            // Keep the list sorted by priority
+            int i = next.length - 1;
+            while (i > 0 && next[i - 1].priority < task.priority) {
+                next[i] = next[i - 1];
+                i--;
+            }
+            next[i] = task;
+            tasks = next;
+
+            // Wake up the thread so the new task gets scheduled
+            tasksChanged = true;
+            if (notifier != null) {
+                notifier.startSingle(0);
+            }
+        }
+
+        synchronized void remove(ScheduledTask task) {
+            ScheduledTask[] current = tasks;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == task) {
+                    ScheduledTask[] next = new ScheduledTask[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    tasks = next;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Notifier callback
+         */
+        private void run() {
+
+            // Apply any requested thread priority from the lane thread itself
+            int requested = realTimePriority;
+            if (requested != appliedPriority) {
+                Threads.setCurrentThreadPriority(requested >= 0, Math.max(0, requested));
+                appliedPriority = requested;
+            }
+
+            synchronized (this) {
+                tasksChanged = false;
+            }
+            long next = runDue(System.nanoTime());
+
+            // Sleep until the next task is due. If tasks were added in the meantime, run
+            // again right away to pick them up
+            synchronized (this) {
+                if (tasksChanged) {
+                    notifier.startSingle(0);
+                } else if (next != Long.MAX_VALUE) {
+                    notifier.startSingle(Math.max(0, next - System.nanoTime()) / 1e9);
+                }
+            }
+        }
+
+        /**
+         * Run every task that is due
+         *
+         * @param now Current System.nanoTime()
+         * @return Time the next task is due, or Long.MAX_VALUE if there are no
+         *         tasks
+         */
+        long runDue(long now) {
+            long earliest = Long.MAX_VALUE;
+
+            for (ScheduledTask task : tasks) {
+                if (task.cancelled) {
+                    continue;
+                }
+
+                long scheduled = task.nextRun;
+                if (scheduled <= now) {
+                    runTask(task);
+
+                    // One-shot tasks are done after a single run
+                    if (task.oneShot) {
+                        task.cancel();
+                        continue;
+                    }
+
+                    // Work out the next run, skipping any periods that have already passed
+                    long period = task.periodNanos;
+                    long finished = System.nanoTime();
+                    if (finished - scheduled > task.deadlineNanos) {
+                        task.deadlineMisses.incrementAndGet();
+                    }
+                    long next = scheduled + period;
+                    if (next <= finished) {
+                        next += ((finished - next) / period + 1) * period;
+                    }
+                    task.nextRun = next;
+                }
+
+                if (!task.cancelled) {
+                    earliest = Math.min(earliest, task.nextRun);
+                }
+            }
+
+            return earliest;
+        }
+
+        /**
+         * Run a single task, stopping it if it throws
+         *
+         * @param task Task to run
+         */
+        private void runTask(ScheduledTask task) {
+            task.stats.start();
+            try {
+                SafeNotifier.safetyWrapper(task.name, task.action);
+            } catch (Throwable t) {
+                logger.log("Task %s was stopped after an error", Level.kWarning, task.name);
+                task.cancel();
+            } finally {
+                task.stats.stop();
+            }
+        }
+    }
+
+    // One runner per lane
+    private final LaneRunner[] lanes = new LaneRunner[Lane.values().length];
+
+    // Should task stats be published? Only for the real executor
+    private final boolean publishStats;
+
+    /**
+     * Create a RealTimeExecutor
+     *
+     * @param startThreads Should notifier threads be created? Turned off for
+     *                     tests, which run lanes by hand
+     */
+    RealTimeExecutor(boolean startThreads) {
+        this.publishStats = startThreads;
+        for (Lane lane : Lane.values()) {
+            lanes[lane.ordinal()] = new LaneRunner(lane, startThreads);
+        }
+    }
+
+    /**
+     * Get the RealTimeExecutor instance
+     *
+     * @return RealTimeExecutor
+     */
+    public static synchronized RealTimeExecutor getInstance() {
+        if (instance == null) {
+            instance = new RealTimeExecutor(true);
+        }
+        return instance;
+    }
+
+    /**
+     * Run a task periodically
+     *
+     * @param name          Task name (used in logs and stats)
+     * @param lane          Lane to run the task on
+     * @param periodSeconds Period in seconds
+     * @param action        Task
+     * @return Scheduled task
+     */
+    public ScheduledTask schedule(String name, Lane lane, double periodSeconds, Runnable action) {
+        return schedule(name, lane, periodSeconds, 0.0, 0, action);
+    }
+
+    /**
+     * Run a task periodically
+     *
+     * @param name          Task name (used in logs and stats)
+     * @param lane          Lane to run the task on
+     * @param periodSeconds Period in seconds
+     * @param phaseSeconds  Delay before the first run. This can be used to keep
+     *                      tasks with the same period from all running at once
+     * @param priority      Task priority. When multiple tasks are due, higher
+     *                      priorities run first
+     * @param action        Task
+     * @return Scheduled task
+     */
+    public ScheduledTask schedule(String name, Lane lane, double periodSeconds, double phaseSeconds, int priority,
+            Runnable action) {
+        ScheduledTask task = new ScheduledTask(name, lane, periodSeconds, priority, action);
+        task.executor = this;
+        task.nextRun = System.nanoTime() + (long) (phaseSeconds * 1e9);
+        lanes[lane.ordinal()].add(task);
+
+        // Publish timing stats
+        if (publishStats) {
+            TelemetryScheduler.getInstance().register(task.stats, 1.0);
+        }
+        return task;
+    }
+
+    /**
+     * Run a task once, as soon as its lane is free. This is useful for handing off
+     * one-time work (like saving a file) without starting a new thread. One-shot
+     * tasks don't publish timing stats
+     *
+     * @param name   Task name (used in logs)
+     * @param lane   Lane to run the task on
+     * @param action Task
+     * @return Scheduled task. Cancelling it before it runs will skip it
+     */
+    public ScheduledTask runOnce(String name, Lane lane, Runnable action) {
+        ScheduledTask task = new ScheduledTask(name, lane, 1.0, 0, action);
+        task.executor = this;
+        task.oneShot = true;
+        task.nextRun = System.nanoTime();
+        lanes[lane.ordinal()].add(task);
+        return task;
+    }
+
+    /**
+     * Give a lane's thread real-time priority. This is meant for
+     * {@link Lane#kControl}. Be careful, since a real-time thread that never
+     * sleeps will lock up the RoboRIO
+     *
+     * @param lane     Lane
+     * @param priority Real-time priority (1-99), or -1 for normal priority
+     */
+    public void setRealTimePriority(Lane lane, int priority) {
+        lanes[lane.ordinal()].realTimePriority = priority;
+    }
+
+    /**
+     * Get the number of tasks running on a lane
+     *
+     * @param lane Lane
+     * @return Task count
+     */
+    public int getTaskCount(Lane lane) {
+        return lanes[lane.ordinal()].tasks.length;
+    }
+
+    /**
+     * Run every task on a lane that is due. Only used by tests
+     *
+     * @param lane Lane
+     * @param now  Current System.nanoTime()
+     * @return Time the next task is due
+     */
+    long runDue(Lane lane, long now) {
+        return lanes[lane.ordinal()].runDue(now);
+    }
+}
@@ -6,8 +6,10 @@ import java.io.IOException;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Notifier;
 
+import io.github.frc5024.lib5k.logging.FlightRecorder;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.TelemetryScheduler;
 import io.github.frc5024.lib5k.utils.FileManagement;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -15,6 +17,10 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 /**
  * SafeNotifier is a wrapper around the system Notifier with some extra error
  * handling built in.
+ * 
+ * Every SafeNotifier also tracks how well it keeps its period (see
+ * {@link #getStats()}). While running, these stats are published to the
+ * "Notifier-[name]" telemetry table once per second.
  */
 public class SafeNotifier extends Notifier {
 
@@ -29,6 +35,9 @@ public class SafeNotifier extends Notifier {
     private String name;
     private Runnable underlyingRunnable;
 
+    // Timing
+    private NotifierStats stats;
+
     /**
      * Create a SafeNotifier with a period of 20ms
      * 
@@ -47,15 +56,28 @@ public class SafeNotifier extends Notifier {
      * @param action        Action to be run
      */
     public SafeNotifier(String name, double periodSeconds, Runnable action) {
+        this(name, periodSeconds, action, new NotifierStats(name, periodSeconds));
+    }
+
+    /**
+     * Create a SafeNotifier that records its timing to a stats object
+     * 
+     * @param name          Thread name
+     * @param periodSeconds Period time in seconds
+     * @param action        Action to be run
+     * @param stats         Timing stats
+     */
+    private SafeNotifier(String name, double periodSeconds, Runnable action, NotifierStats stats) {
 
         // Set up the notifier to run the action
         super(() -> {
             // Run the action with a wrapper around it
-            SafeNotifier.safetyWrapper(name, action);
+            SafeNotifier.timedWrapper(name, action, stats);
         });
         this.underlyingRunnable = () -> {
-            SafeNotifier.safetyWrapper(name, action);
+            SafeNotifier.timedWrapper(name, action, stats);
         };
+        this.stats = stats;
 
         // Name the notifier
         setName(name);
@@ -88,6 +110,15 @@ public class SafeNotifier extends Notifier {
         return underlyingRunnable;
     }
 
+    /**
+     * Get this notifier's timing stats
+     * 
+     * @return Timing stats
+     */
+    public NotifierStats getStats() {
+        return stats;
+    }
+
     /**
      * Start the notifier with a pre-configured period. This will be 20ms by
      * default, or whatever was passed into the constructor, or whatever was passed
@@ -101,7 +132,40 @@ public class SafeNotifier extends Notifier {
     public void startPeriodic(double period) {
         // Override the internal period
         this.period = period;
+        stats.setPeriod(period);
+        stats.resetInterval();
         super.startPeriodic(period);
+
+        // Publish timing stats
+        TelemetryScheduler.getInstance().register(stats, 1.0);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        TelemetryScheduler.getInstance().unregister(stats);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        TelemetryScheduler.getInstance().unregister(stats);
+    }
+
+    /**
+     * Run the action through the safety wrapper, and record its timing
+     * 
+     * @param name   Thread name
+     * @param action Action to run
+     * @param stats  Timing stats
+     */
+    private static void timedWrapper(String name, Runnable action, NotifierStats stats) {
+        stats.start();
+        try {
+            safetyWrapper(name, action);
+        } finally {
+            stats.stop();
+        }
     }
 
     /**
@@ -110,7 +174,7 @@ public class SafeNotifier extends Notifier {
      * @param name   Thread name
      * @param action Action to run
      */
-    private static void safetyWrapper(String name, Runnable action) {
+    static void safetyWrapper(String name, Runnable action) {
         // Wrap the runnable with an error handler
         try {
             action.run();
@@ -121,6 +185,9 @@ public class SafeNotifier extends Notifier {
             logger.log(errorMessage, Level.kWarning);
             DriverStation.reportError(errorMessage, t.getStackTrace());
 
+            // Save whatever led up to the error
+            FlightRecorder.getInstance().trigger("SafeNotifier_" + name);
+
             // Attempt to write the error and stack trace to the session folder
             double currentTime = FPGAClock.getFPGASeconds();
 
@@ -0,0 +1,192 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.github.frc5024.lib5k.logging.BinaryLogReader.Entry;
+
+/**
+ * A command line tool for turning binary logs written by
+ * {@link BinaryLogWriter} back into text, with the same filtering options as
+ * logreader.py.
+ * 
+ * <pre>
+ * usage: java -cp lib5k.jar io.github.frc5024.lib5k.logging.BinaryLogDecoder [options] file
+ * 
+ *   -t LEVELS   Comma-seperated list of allowed log levels (DEBUG, INFO, WARNING). Defaults to INFO,WARNING
+ *   -c CLASSES  Comma-seperated list of class names to show
+ *   -m METHODS  Comma-seperated list of method names to show
+ *   -s SECONDS  Only show logs written at or after this time
+ *   -e SECONDS  Only show logs written at or before this time
+ * </pre>
+ */
+public class BinaryLogDecoder {
+
+    // Filters
+    private Set<String> levels = new HashSet<>(Arrays.asList("INFO", "WARNING"));
+    private Set<String> classes = new HashSet<>();
+    private Set<String> methods = new HashSet<>();
+    private double startTime = Double.NEGATIVE_INFINITY;
+    private double endTime = Double.POSITIVE_INFINITY;
+
+    /**
+     * Set the allowed log levels
+     * 
+     * @param levels Level names (DEBUG, INFO, WARNING)
+     * @return This decoder
+     */
+    public BinaryLogDecoder setLevels(String... levels) {
+        this.levels = toUpperSet(levels);
+        return this;
+    }
+
+    /**
+     * Only show logs from a list of classes (empty for all)
+     * 
+     * @param classes Simple class names
+     * @return This decoder
+     */
+    public BinaryLogDecoder setClasses(String... classes) {
+        this.classes = toUpperSet(classes);
+        return this;
+    }
+
+    /**
+     * Only show logs from a list of methods (empty for all)
+     * 
+     * @param methods Method names
+     * @return This decoder
+     */
+    public BinaryLogDecoder setMethods(String... methods) {
+        this.methods = toUpperSet(methods);
+        return this;
+    }
+
+    /**
+     * Only show logs from a time range
+     * 
+     * @param startSeconds Earliest time to show
+     * @param endSeconds   Latest time to show
+     * @return This decoder
+     */
+    public BinaryLogDecoder setTimeRange(double startSeconds, double endSeconds) {
+        this.startTime = startSeconds;
+        this.endTime = endSeconds;
+        return this;
+    }
+
+    /**
+     * Check if an entry passes all filters
+     * 
+     * @param entry Log entry
+     * @return Should the entry be shown?
+     */
+    public boolean accepts(Entry entry) {
+
+        // Check log level
+        if (!levels.contains(entry.getLevel().name)) {
+            return false;
+        }
+
+        // Check time range
+        if (entry.getTimestamp() < startTime || entry.getTimestamp() > endTime) {
+            return false;
+        }
+
+        // Check class
+        String className = entry.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        if (!classes.isEmpty() && !classes.contains(simpleName.toUpperCase())) {
+            return false;
+        }
+
+        // Check method
+        return methods.isEmpty() || methods.contains(entry.getMethodName().toUpperCase());
+    }
+
+    /**
+     * Print every accepted entry in a log to stdout
+     * 
+     * @param reader Log to print
+     * @throws IOException Thrown if the log is corrupt
+     */
+    public void print(BinaryLogReader reader) throws IOException {
+        Entry entry;
+        while ((entry = reader.next()) != null) {
+            if (accepts(entry)) {
+                System.out.println(entry);
+            }
+        }
+    }
+
+    /**
+     * Convert a list of comma seperated values into an upper case set
+     * 
+     * @param values Values
+     * @return Set of values
+     */
+    private static Set<String> toUpperSet(String... values) {
+        Set<String> output = new HashSet<>();
+        for (String value : values) {
+            if (!value.isBlank()) {
+                output.add(value.trim().toUpperCase());
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Command line entrypoint
+     * 
+     * @param args Arguments
+     */
+    public static void main(String[] args) {
+        BinaryLogDecoder decoder = new BinaryLogDecoder();
+        String file = null;
+        double start = Double.NEGATIVE_INFINITY;
+        double end = Double.POSITIVE_INFINITY;
+
+        // Parse arguments
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-t":
+                        decoder.setLevels(args[++i].split(","));
+                        break;
+                    case "-c":
+                        decoder.setClasses(args[++i].split(","));
+                        break;
+                    case "-m":
+                        decoder.setMethods(args[++i].split(","));
+                        break;
+                    case "-s":
+                        start = Double.parseDouble(args[++i]);
+                        break;
+                    case "-e":
+                        end = Double.parseDouble(args[++i]);
+                        break;
+                    default:
+                        file = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            file = null;
+        }
+
+        if (file == null) {
+            System.err.println("usage: BinaryLogDecoder [-t LEVELS] [-c CLASSES] [-m METHODS] [-s SECONDS] [-e SECONDS] file");
+            System.exit(1);
+        }
+        decoder.setTimeRange(start, end);
+
+        // Decode the file
+        try (BinaryLogReader reader = new BinaryLogReader(file)) {
+            decoder.print(reader);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
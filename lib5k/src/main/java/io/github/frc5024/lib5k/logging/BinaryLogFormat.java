@@ -0,0 +1,67 @@
+package io.github.frc5024.lib5k.logging;
+
+/**
+ * Constants describing the binary session log layout shared by
+ * {@link BinaryLogWriter} and {@link BinaryLogReader}.
+ *
+ * A file starts with a header of {@link #MAGIC}, a version byte, then the wall
+ * clock time the file was opened (varint milliseconds since the epoch). The
+ * rest of the file is a stream of entries, each starting with a tag byte:
+ *
+ * <ul>
+ * <li>{@link #TAG_CALL_SITE}: varint id, class name, method name</li>
+ * <li>{@link #TAG_FORMAT}: varint id, format string</li>
+ * <li>{@link #TAG_RECORD}: level ordinal, zigzag varint timestamp delta
+ * (microseconds since the previous record), varint call site id, varint format
+ * id (0 means the format string follows inline), varint argument count, then
+ * every argument as a type byte followed by its raw value</li>
+ * </ul>
+ *
+ * Strings are written as a varint byte length followed by UTF-8 bytes.
+ */
+final class BinaryLogFormat {
+
+    // File header
+    static final byte[] MAGIC = { 'L', '5', 'K', 'B' };
+    static final int VERSION = 1;
+
+    // Entry tags
+    static final int TAG_CALL_SITE = 1;
+    static final int TAG_FORMAT = 2;
+    static final int TAG_RECORD = 3;
+
+    // Format id used when a format string is written inline
+    static final int INLINE_FORMAT = 0;
+
+    // Argument types
+    static final int ARG_NULL = 0;
+    static final int ARG_INT = 1;
+    static final int ARG_LONG = 2;
+    static final int ARG_DOUBLE = 3;
+    static final int ARG_BOOLEAN = 4;
+    static final int ARG_CHAR = 5;
+    static final int ARG_STRING = 6;
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * Zigzag-encode a signed value so small negative numbers stay small
+     *
+     * @param value Signed value
+     * @return Encoded value
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverse {@link #zigzag(long)}
+     *
+     * @param value Encoded value
+     * @return Signed value
+     */
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,335 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * Reads log records back out of a file written by {@link BinaryLogWriter}.
+ */
+public class BinaryLogReader implements AutoCloseable {
+
+    /**
+     * A single decoded log record
+     */
+    public static class Entry {
+        private final Level level;
+        private final double timestamp;
+        private final String className;
+        private final String methodName;
+        private final String format;
+        private final Object[] args;
+
+        /**
+         * Create an Entry
+         * 
+         * @param level      Log level
+         * @param timestamp  Seconds since the logger started
+         * @param className  Fully qualified class name of the caller
+         * @param methodName Method name of the caller
+         * @param format     Format string
+         * @param args       Format arguments
+         */
+        Entry(Level level, double timestamp, String className, String methodName, String format, Object[] args) {
+            this.level = level;
+            this.timestamp = timestamp;
+            this.className = className;
+            this.methodName = methodName;
+            this.format = format;
+            this.args = args;
+        }
+
+        /**
+         * Get the log level
+         * 
+         * @return Log level
+         */
+        public Level getLevel() {
+            return level;
+        }
+
+        /**
+         * Get the number of seconds since the logger started
+         * 
+         * @return Timestamp in seconds
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get the fully qualified class name of the caller
+         * 
+         * @return Class name
+         */
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Get the method name of the caller
+         * 
+         * @return Method name
+         */
+        public String getMethodName() {
+            return methodName;
+        }
+
+        /**
+         * Get the raw format string
+         * 
+         * @return Format string
+         */
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * Get the raw format arguments
+         * 
+         * @return Format arguments
+         */
+        public Object[] getArgs() {
+            return args;
+        }
+
+        /**
+         * Get the formatted log message
+         * 
+         * @return Message
+         */
+        public String getMessage() {
+            try {
+                return String.format(format, args);
+            } catch (IllegalFormatException e) {
+                // Fall back to showing the raw data
+                return format + " " + Arrays.toString(args);
+            }
+        }
+
+        /**
+         * Render this entry the same way it would appear in the text log
+         * 
+         * @return Log line
+         */
+        @Override
+        public String toString() {
+            return String.format("%s at %.2fs: %s -> %s", level.name, timestamp,
+                    CallSite.format(className, methodName), getMessage());
+        }
+    }
+
+    // Input
+    private final InputStream m_stream;
+    private final long m_startTimeMillis;
+
+    // Intern tables (index 0 is unused, ids start at 1)
+    private final ArrayList<String[]> m_sites = new ArrayList<>();
+    private final ArrayList<String> m_formats = new ArrayList<>();
+
+    // Timestamp tracking
+    private long m_timestampMicros = 0;
+
+    /**
+     * Open a binary log file
+     * 
+     * @param path Path to the file
+     * @throws IOException Thrown if the file cannot be read, or is not a binary log
+     */
+    public BinaryLogReader(String path) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(path)));
+    }
+
+    /**
+     * Read a binary log from a stream
+     * 
+     * @param stream Input stream
+     * @throws IOException Thrown if the stream cannot be read, or is not a binary
+     *                     log
+     */
+    public BinaryLogReader(InputStream stream) throws IOException {
+        m_stream = stream;
+        m_sites.add(null);
+        m_formats.add(null);
+
+        // Check the header
+        byte[] magic = readBytes(BinaryLogFormat.MAGIC.length);
+        if (!Arrays.equals(magic, BinaryLogFormat.MAGIC)) {
+            throw new IOException("Not a Lib5K binary log");
+        }
+        int version = readByte();
+        if (version != BinaryLogFormat.VERSION) {
+            throw new IOException("Unsupported binary log version: " + version);
+        }
+        m_startTimeMillis = readVarLong();
+    }
+
+    /**
+     * Get the wall clock time the log was started at
+     * 
+     * @return Milliseconds since the epoch
+     */
+    public long getStartTimeMillis() {
+        return m_startTimeMillis;
+    }
+
+    /**
+     * Read the next record
+     * 
+     * @return Next record, or null at the end of the log
+     * @throws IOException Thrown if the log is corrupt
+     */
+    public Entry next() throws IOException {
+        while (true) {
+
+            // Read the next tag. A clean end of file is fine here
+            int tag = m_stream.read();
+            if (tag < 0) {
+                return null;
+            }
+
+            try {
+                switch (tag) {
+                    case BinaryLogFormat.TAG_CALL_SITE:
+                        int siteId = (int) readVarLong();
+                        setAt(m_sites, siteId, new String[] { readString(), readString() });
+                        break;
+
+                    case BinaryLogFormat.TAG_FORMAT:
+                        int formatId = (int) readVarLong();
+                        setAt(m_formats, formatId, readString());
+                        break;
+
+                    case BinaryLogFormat.TAG_RECORD:
+                        return readRecord();
+
+                    default:
+                        throw new IOException("Unknown binary log tag: " + tag);
+                }
+            } catch (EOFException e) {
+                // The robot was most likely turned off mid-write
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_stream.close();
+    }
+
+    /**
+     * Read the body of a record
+     * 
+     * @return Record
+     * @throws IOException Thrown if the log is corrupt
+     */
+    private Entry readRecord() throws IOException {
+        Level level = Level.values()[readByte()];
+        m_timestampMicros += BinaryLogFormat.unzigzag(readVarLong());
+        String[] site = m_sites.get((int) readVarLong());
+
+        // Find the format string
+        int formatId = (int) readVarLong();
+        String format = (formatId == BinaryLogFormat.INLINE_FORMAT) ? readString() : m_formats.get(formatId);
+
+        // Read the arguments
+        Object[] args = new Object[(int) readVarLong()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readArg();
+        }
+
+        return new Entry(level, m_timestampMicros / 1e6, site[0], site[1], format, args);
+    }
+
+    /**
+     * Read a single format argument
+     * 
+     * @return Argument
+     * @throws IOException Thrown if the log is corrupt
+     */
+    private Object readArg() throws IOException {
+        int type = readByte();
+        switch (type) {
+            case BinaryLogFormat.ARG_NULL:
+                return null;
+            case BinaryLogFormat.ARG_INT:
+                return (int) BinaryLogFormat.unzigzag(readVarLong());
+            case BinaryLogFormat.ARG_LONG:
+                return BinaryLogFormat.unzigzag(readVarLong());
+            case BinaryLogFormat.ARG_DOUBLE:
+                return Double.longBitsToDouble(readLong());
+            case BinaryLogFormat.ARG_BOOLEAN:
+                return readByte() != 0;
+            case BinaryLogFormat.ARG_CHAR:
+                return (char) readVarLong();
+            case BinaryLogFormat.ARG_STRING:
+                return readString();
+            default:
+                throw new IOException("Unknown binary log argument type: " + type);
+        }
+    }
+
+    /**
+     * Set a list element, growing the list if needed
+     * 
+     * @param <T>   Element type
+     * @param list  List
+     * @param index Index
+     * @param value Value
+     */
+    private static <T> void setAt(ArrayList<T> list, int index, T value) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        list.set(index, value);
+    }
+
+    private int readByte() throws IOException {
+        int value = m_stream.read();
+        if (value < 0) {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+    private byte[] readBytes(int count) throws IOException {
+        byte[] bytes = m_stream.readNBytes(count);
+        if (bytes.length != count) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    private long readLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value |= ((long) readByte()) << (8 * i);
+        }
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= ((long) (b & 0x7F)) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        return new String(readBytes((int) readVarLong()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,371 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.utils.FileManagement;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+
+/**
+ * The BinaryLogWriter saves every log written to {@link RobotLogger} in a
+ * compact binary form. Instead of formatted text, each record stores small
+ * integer ids for its call site and format string, a varint timestamp delta,
+ * and the raw argument values. This is much cheaper to produce, and much
+ * smaller on the USB stick, than the text log.
+ *
+ * The file is saved as "robot.binlog" in the current session directory (see
+ * {@link FileManagement}). Use {@link BinaryLogDecoder} to turn it back into
+ * text. Records are encoded on the logger thread, but written to the file from
+ * the file IO lane of the {@link RealTimeExecutor}, so a slow USB stick never
+ * holds up the logger.
+ *
+ * To link a BinaryLogWriter to RobotLogger, use
+ * RobotLogger.getInstance().enableBinaryLogging()
+ */
+public class BinaryLogWriter implements AutoCloseable {
+
+    // Default output file
+    public static final String DEFAULT_FILENAME = "robot.binlog";
+
+    // Limit on the number of interned format strings. Messages that are built
+    // with String.format() before being logged are unique every time, so they
+    // are written inline once the table is full
+    private static final int MAX_INTERNED_FORMATS = 4096;
+
+    // Time between file writes in seconds
+    private static final double WRITE_PERIOD = 0.25;
+
+    // Output
+    private OutputStream m_file;
+    private byte[] m_buffer = new byte[64 * 1024];
+    private int m_length = 0;
+
+    // Encoded bytes waiting to be written, and the bytes currently being written
+    private byte[] m_pending = new byte[64 * 1024];
+    private int m_pendingLength = 0;
+    private byte[] m_writing = new byte[64 * 1024];
+    private final Object m_pendingLock = new Object();
+    private ScheduledTask m_writeTask = null;
+
+    // Intern tables
+    private final IdentityHashMap<CallSite, Integer> m_sites = new IdentityHashMap<>();
+    private final HashMap<String, Integer> m_formats = new HashMap<>();
+
+    // Timestamp tracking
+    private long m_lastTimestampMicros = 0;
+
+    /**
+     * Create a BinaryLogWriter that writes to "robot.binlog" in the session
+     * directory
+     */
+    public BinaryLogWriter() {
+        this(DEFAULT_FILENAME);
+    }
+
+    /**
+     * Create a BinaryLogWriter that writes to a file in the session directory
+     * 
+     * @param filename File name
+     */
+    public BinaryLogWriter(String filename) {
+        this(openSessionFile(filename));
+    }
+
+    /**
+     * Create a BinaryLogWriter that writes to any stream. This is mostly useful
+     * for unit tests
+     * 
+     * @param stream Output stream
+     */
+    BinaryLogWriter(OutputStream stream) {
+        m_file = stream;
+
+        // Write the file header
+        writeBytes(BinaryLogFormat.MAGIC, 0, BinaryLogFormat.MAGIC.length);
+        writeByte(BinaryLogFormat.VERSION);
+        writeVarLong(System.currentTimeMillis());
+
+        // Write the file from the file IO lane
+        if (m_file != null) {
+            m_writeTask = RealTimeExecutor.getInstance().schedule("BinaryLogWriter", Lane.kFileIO, WRITE_PERIOD,
+                    this::writePending);
+        }
+    }
+
+    /**
+     * Open a file in the session directory
+     * 
+     * @param filename File name
+     * @return File stream, or null if it could not be opened
+     */
+    private static OutputStream openSessionFile(String filename) {
+        try {
+            return FileManagement.createFileOutputStream(filename);
+        } catch (IOException e) {
+            RobotLogger.getInstance().log("Failed to create %s file!!", Level.kWarning, filename);
+            return null;
+        }
+    }
+
+    /**
+     * Encode a log record. This is only called from the logger thread
+     * 
+     * @param level     Log level
+     * @param timestamp Seconds since the logger started
+     * @param site      Call site
+     * @param format    Format string
+     * @param args      Raw format arguments
+     */
+    void write(Level level, double timestamp, CallSite site, String format, Object[] args) {
+        writeHeader(level, timestamp, site, format);
+
+        // Write the raw arguments
+        int count = (args == null) ? 0 : args.length;
+        writeVarLong(count);
+        for (int i = 0; i < count; i++) {
+            writeArg(args[i]);
+        }
+    }
+
+    /**
+     * Encode a log record. Primitive arguments are written without boxing. This is
+     * only called from the logger thread
+     * 
+     * @param record Log record
+     */
+    void write(LogRecord record) {
+
+        // Records from the varargs methods carry an object array
+        if (record.args != null) {
+            write(record.level, record.timestamp, record.site, record.format, record.args);
+            return;
+        }
+
+        writeHeader(record.level, record.timestamp, record.site, record.format);
+
+        // Write the unboxed arguments
+        writeVarLong(record.primitiveCount);
+        for (int i = 0; i < record.primitiveCount; i++) {
+            switch (record.primitiveKinds[i]) {
+                case LogRecord.KIND_DOUBLE:
+                    writeByte(BinaryLogFormat.ARG_DOUBLE);
+                    writeLong(Double.doubleToRawLongBits(record.doubles[i]));
+                    break;
+                case LogRecord.KIND_BOOLEAN:
+                    writeByte(BinaryLogFormat.ARG_BOOLEAN);
+                    writeByte((int) record.longs[i]);
+                    break;
+                default:
+                    long value = record.longs[i];
+                    boolean fitsInt = value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                    writeByte(fitsInt ? BinaryLogFormat.ARG_INT : BinaryLogFormat.ARG_LONG);
+                    writeVarLong(BinaryLogFormat.zigzag(value));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Encode a record header, interning the call site and format string if needed
+     * 
+     * @param level     Log level
+     * @param timestamp Seconds since the logger started
+     * @param site      Call site
+     * @param format    Format string
+     */
+    private void writeHeader(Level level, double timestamp, CallSite site, String format) {
+
+        // Intern the call site
+        Integer siteId = m_sites.get(site);
+        if (siteId == null) {
+            siteId = m_sites.size() + 1;
+            m_sites.put(site, siteId);
+
+            writeByte(BinaryLogFormat.TAG_CALL_SITE);
+            writeVarLong(siteId);
+            writeString(site.className);
+            writeString(site.methodName);
+        }
+
+        // Intern the format string if there is room
+        Integer formatId = m_formats.get(format);
+        if (formatId == null && m_formats.size() < MAX_INTERNED_FORMATS) {
+            formatId = m_formats.size() + 1;
+            m_formats.put(format, formatId);
+
+            writeByte(BinaryLogFormat.TAG_FORMAT);
+            writeVarLong(formatId);
+            writeString(format);
+        }
+
+        // Write the record header
+        long timestampMicros = Math.round(timestamp * 1e6);
+        writeByte(BinaryLogFormat.TAG_RECORD);
+        writeByte(level.ordinal());
+        writeVarLong(BinaryLogFormat.zigzag(timestampMicros - m_lastTimestampMicros));
+        writeVarLong(siteId);
+        if (formatId != null) {
+            writeVarLong(formatId);
+        } else {
+            writeVarLong(BinaryLogFormat.INLINE_FORMAT);
+            writeString(format);
+        }
+        m_lastTimestampMicros = timestampMicros;
+    }
+
+    /**
+     * Hand everything encoded since the last submit to the file writer. This is
+     * only called from the logger thread, and never touches the file
+     * 
+     * @return Number of bytes handed off
+     */
+    int submit() {
+        int length = m_length;
+        m_length = 0;
+        if (length == 0 || m_file == null) {
+            return 0;
+        }
+
+        synchronized (m_pendingLock) {
+            if (m_pendingLength + length > m_pending.length) {
+                m_pending = Arrays.copyOf(m_pending, Math.max(m_pending.length * 2, m_pendingLength + length));
+            }
+            System.arraycopy(m_buffer, 0, m_pending, m_pendingLength, length);
+            m_pendingLength += length;
+        }
+        return length;
+    }
+
+    /**
+     * Write everything that has been handed off to the file in a single write
+     */
+    private synchronized void writePending() {
+
+        // Swap buffers so the logger is never blocked by file IO
+        int length;
+        synchronized (m_pendingLock) {
+            byte[] filled = m_pending;
+            length = m_pendingLength;
+            m_pending = m_writing;
+            m_pendingLength = 0;
+            m_writing = filled;
+        }
+
+        if (length == 0) {
+            return;
+        }
+
+        try {
+            m_file.write(m_writing, 0, length);
+            m_file.flush();
+        } catch (IOException e) {
+            DriverStation.reportError("Failed to write binary log buffer to USB", true);
+        }
+    }
+
+    /**
+     * Push everything encoded so far to the file now, on the calling thread
+     * 
+     * @return Number of bytes written
+     */
+    int flush() {
+        int length = submit();
+        if (m_file != null) {
+            writePending();
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (m_writeTask != null) {
+            m_writeTask.cancel();
+        }
+        flush();
+        if (m_file != null) {
+            m_file.close();
+        }
+    }
+
+    /**
+     * Encode a single argument
+     * 
+     * @param arg Argument
+     */
+    private void writeArg(Object arg) {
+        if (arg == null) {
+            writeByte(BinaryLogFormat.ARG_NULL);
+        } else if (arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+            writeByte(BinaryLogFormat.ARG_INT);
+            writeVarLong(BinaryLogFormat.zigzag(((Number) arg).intValue()));
+        } else if (arg instanceof Long) {
+            writeByte(BinaryLogFormat.ARG_LONG);
+            writeVarLong(BinaryLogFormat.zigzag((Long) arg));
+        } else if (arg instanceof Double || arg instanceof Float) {
+            writeByte(BinaryLogFormat.ARG_DOUBLE);
+            writeLong(Double.doubleToRawLongBits(((Number) arg).doubleValue()));
+        } else if (arg instanceof Boolean) {
+            writeByte(BinaryLogFormat.ARG_BOOLEAN);
+            writeByte(((Boolean) arg) ? 1 : 0);
+        } else if (arg instanceof Character) {
+            writeByte(BinaryLogFormat.ARG_CHAR);
+            writeVarLong((Character) arg);
+        } else {
+            // Everything else is stored as its string form
+            writeByte(BinaryLogFormat.ARG_STRING);
+            writeString(arg.toString());
+        }
+    }
+
+    /**
+     * Make sure there is room for more bytes in the buffer
+     * 
+     * @param count Number of bytes about to be written
+     */
+    private void ensureCapacity(int count) {
+        if (m_length + count > m_buffer.length) {
+            m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_length + count));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        m_buffer[m_length++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, m_buffer, m_length, length);
+        m_length += length;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            m_buffer[m_length++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            m_buffer[m_length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        m_buffer[m_length++] = (byte) value;
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+}
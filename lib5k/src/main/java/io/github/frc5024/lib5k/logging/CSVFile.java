@@ -1,26 +1,196 @@
 package io.github.frc5024.lib5k.logging;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import io.github.frc5024.lib5k.utils.FileManagement;
+import io.github.frc5024.lib5k.utils.SessionStore;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
 
 /**
  * CSVFile is a class designed for one-time use. Creating an object will open a
  * new session file, and write the CSV headers. You can then push rows to the
  * file, and finally close it.
+ *
+ * Files with a typed schema can be written to every loop without allocating.
+ * Values are staged with the per-column setters, then written with
+ * {@link #endRow()}:
+ *
+ * <pre>
+ * {@code
+ * CSVFile file = CSVFile.builder("DriveLog").doubleCol("Time").doubleCol("X", 3).longCol("Ticks").build();
+ *
+ * file.set(0, time);
+ * file.set(1, x);
+ * file.set(2, ticks);
+ * file.endRow();
+ * }
+ * </pre>
+ *
+ * Rows are collected in memory, and written to disk by a shared background
+ * thread.
  */
 public class CSVFile implements AutoCloseable {
 
-    // The underlying file
-    private FileWriter writer;
+    // Time between background writes in seconds
+    private static final double WRITE_PERIOD = 0.25;
+
+    // Decimal places used when a double column does not specify any
+    private static final int DEFAULT_DECIMALS = 6;
+
+    // Decimal places marker for untyped columns. Doubles in these are written with
+    // Double.toString() precision, like they were before files had a schema
+    private static final int FULL_PRECISION = -1;
+
+    // Every open file, and the thread that writes them
+    private static final CopyOnWriteArrayList<CSVFile> openFiles = new CopyOnWriteArrayList<>();
+    private static ScheduledTask writerThread = null;
+
+    /**
+     * Column value types
+     */
+    public enum ColumnType {
+        // Accepts any value. Used by files created without a schema
+        kAny,
+
+        kDouble, kLong, kBoolean, kString;
+    }
+
+    /**
+     * Builder for typed CSV files
+     */
+    public static class Builder {
+        private final String filename;
+        private boolean appendTimestamp = true;
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<ColumnType> types = new ArrayList<>();
+        private final ArrayList<Integer> decimals = new ArrayList<>();
+
+        private Builder(String filename) {
+            this.filename = filename;
+        }
+
+        /**
+         * Set if the current timestamp should be appended to the file name. This
+         * defaults to true
+         *
+         * @param appendTimestamp Should the timestamp be appended?
+         * @return This Builder
+         */
+        public Builder withTimestampedName(boolean appendTimestamp) {
+            this.appendTimestamp = appendTimestamp;
+            return this;
+        }
+
+        /**
+         * Add a column of doubles, written with 6 decimal places
+         *
+         * @param name Column name
+         * @return This Builder
+         */
+        public Builder doubleCol(String name) {
+            return doubleCol(name, DEFAULT_DECIMALS);
+        }
+
+        /**
+         * Add a column of doubles
+         *
+         * @param name     Column name
+         * @param decimals Number of decimal places to write (0-9)
+         * @return This Builder
+         */
+        public Builder doubleCol(String name, int decimals) {
+            if (decimals < 0 || decimals > FastFormat.getMaxDecimals()) {
+                throw new IllegalArgumentException("Decimal places must be between 0 and " + FastFormat.getMaxDecimals());
+            }
+            return addColumn(name, ColumnType.kDouble, decimals);
+        }
+
+        /**
+         * Add a column of integers
+         *
+         * @param name Column name
+         * @return This Builder
+         */
+        public Builder longCol(String name) {
+            return addColumn(name, ColumnType.kLong, 0);
+        }
+
+        /**
+         * Add a column of booleans
+         *
+         * @param name Column name
+         * @return This Builder
+         */
+        public Builder booleanCol(String name) {
+            return addColumn(name, ColumnType.kBoolean, 0);
+        }
+
+        /**
+         * Add a column of strings. Unlike the other column types, writing a string
+         * may allocate.
+         *
+         * @param name Column name
+         * @return This Builder
+         */
+        public Builder stringCol(String name) {
+            return addColumn(name, ColumnType.kString, 0);
+        }
+
+        private Builder addColumn(String name, ColumnType type, int decimalPlaces) {
+            names.add(name);
+            types.add(type);
+            decimals.add(decimalPlaces);
+            return this;
+        }
+
+        /**
+         * Open the file and write the CSV headers
+         *
+         * @return CSVFile
+         * @throws IOException Thrown if there is an issue opening the file
+         */
+        public CSVFile build() throws IOException {
+            int[] decimalPlaces = new int[decimals.size()];
+            for (int i = 0; i < decimalPlaces.length; i++) {
+                decimalPlaces[i] = decimals.get(i);
+            }
+            return new CSVFile(filename, appendTimestamp, names.toArray(new String[0]),
+                    types.toArray(new ColumnType[0]), decimalPlaces);
+        }
+    }
+
+    // The underlying file. Only touched by the writer
+    private TextFileChannel writer;
+
+    // Schema
+    private final ColumnType[] types;
+    private final int[] decimals;
+
+    // Staged row values
+    private final ColumnType[] stagedTypes;
+    private final double[] stagedDoubles;
+    private final long[] stagedLongs;
+    private final String[] stagedStrings;
+
+    // Rows waiting to be written, and the rows currently being written
+    private StringBuilder pendingRows = new StringBuilder();
+    private StringBuilder writingRows = new StringBuilder();
+    private final Object rowLock = new Object();
 
     // When this is true, this object can no longer be used
-    private boolean isClosed = false;
+    private volatile boolean isClosed = false;
+
+    // Error from the last background write, reported on the next write call
+    private volatile IOException writeError = null;
 
     /***
      * Create a new CSVFile
-     * 
+     *
      * @param filename      File name
      * @param columnHeaders The names of all the columns
      * @throws IOException Thrown if there is an issue opening the file
@@ -31,7 +201,7 @@ public class CSVFile implements AutoCloseable {
 
     /***
      * Create a new CSVFile
-     * 
+     *
      * @param filename                  File name
      * @param appendTimestampToFileName Should the current timestamp be appended to
      *                                  the end of this file?
@@ -39,6 +209,31 @@ public class CSVFile implements AutoCloseable {
      * @throws IOException Thrown if there is an issue opening the file
      */
     public CSVFile(String filename, boolean appendTimestampToFileName, String... columnHeaders) throws IOException {
+        this(filename, appendTimestampToFileName, columnHeaders, untyped(columnHeaders.length),
+                fullPrecision(columnHeaders.length));
+    }
+
+    /**
+     * Create a new CSVFile with a schema
+     *
+     * @param filename                  File name
+     * @param appendTimestampToFileName Should the current timestamp be appended to
+     *                                  the end of this file?
+     * @param columnHeaders             The names of all the columns
+     * @param types                     The type of each column
+     * @param decimals                  Decimal places for each double column
+     * @throws IOException Thrown if there is an issue opening the file
+     */
+    private CSVFile(String filename, boolean appendTimestampToFileName, String[] columnHeaders, ColumnType[] types,
+            int[] decimals) throws IOException {
+        this.types = types;
+        this.decimals = decimals;
+
+        // Set up row staging
+        this.stagedTypes = new ColumnType[types.length];
+        this.stagedDoubles = new double[types.length];
+        this.stagedLongs = new long[types.length];
+        this.stagedStrings = new String[types.length];
 
         // Build a filename
         String generatedFileName;
@@ -48,58 +243,362 @@ public class CSVFile implements AutoCloseable {
             generatedFileName = String.format("%s.csv", filename);
         }
 
-        // Open a new file
-        this.writer = FileManagement.createFileWriter(generatedFileName);
+        // Open a new file, compressing it if the session store wants
+        boolean compress = SessionStore.getInstance().isCompressingNewFiles();
+        if (compress) {
+            generatedFileName += ".gz";
+        }
+        this.writer = new TextFileChannel(FileManagement.createFileChannel(generatedFileName), compress);
 
         // Write the header
         writeRow(columnHeaders);
+
+        // Hand the file to the background writer
+        openFiles.add(this);
+        startWriterThread();
+    }
+
+    /**
+     * Start a new typed CSV file
+     *
+     * @param filename File name
+     * @return CSVFile Builder
+     */
+    public static Builder builder(String filename) {
+        return new Builder(filename);
+    }
+
+    /**
+     * Get the number of columns in this file
+     *
+     * @return Number of columns
+     */
+    public int getColumnCount() {
+        return types.length;
+    }
+
+    /**
+     * Stage a value for the current row
+     *
+     * @param column Column index
+     * @param value  Value
+     */
+    public void set(int column, double value) {
+        checkType(column, ColumnType.kDouble);
+        stagedTypes[column] = ColumnType.kDouble;
+        stagedDoubles[column] = value;
+    }
+
+    /**
+     * Stage a value for the current row
+     *
+     * @param column Column index
+     * @param value  Value
+     */
+    public void set(int column, long value) {
+        checkType(column, ColumnType.kLong);
+        stagedTypes[column] = ColumnType.kLong;
+        stagedLongs[column] = value;
+    }
+
+    /**
+     * Stage a value for the current row
+     *
+     * @param column Column index
+     * @param value  Value
+     */
+    public void set(int column, boolean value) {
+        checkType(column, ColumnType.kBoolean);
+        stagedTypes[column] = ColumnType.kBoolean;
+        stagedLongs[column] = value ? 1 : 0;
+    }
+
+    /**
+     * Stage a value for the current row
+     *
+     * @param column Column index
+     * @param value  Value
+     */
+    public void set(int column, String value) {
+        checkType(column, ColumnType.kString);
+        stagedTypes[column] = ColumnType.kString;
+        stagedStrings[column] = value;
+    }
+
+    /**
+     * Write the staged values as a row, then clear them. Columns that were not
+     * set are left empty.
+     */
+    public void endRow() {
+
+        // Ensure writing is possible
+        if (isClosed) {
+            throw new IllegalStateException("Cannot write to a closed file");
+        }
+
+        synchronized (rowLock) {
+            for (int i = 0; i < types.length; i++) {
+                if (i > 0) {
+                    pendingRows.append(',');
+                }
+                appendStaged(i);
+                stagedTypes[i] = null;
+                stagedStrings[i] = null;
+            }
+            pendingRows.append('\n');
+        }
+    }
+
+    /**
+     * Write a row of numbers to the file
+     *
+     * @param values Row of values
+     * @throws IOException Thrown if an earlier background write to the file failed
+     */
+    public void writeDoubleRow(double... values) throws IOException {
+        checkWriteError();
+        checkRowLength(values.length);
+        for (int i = 0; i < values.length; i++) {
+            set(i, values[i]);
+        }
+        endRow();
     }
 
     /**
      * Write a row to the file
-     * 
+     *
      * @param values Row of values
-     * @throws IOException Thrown if there is an issue writing to the file
+     * @throws IOException Thrown if an earlier background write to the file failed
      */
     public void writeRow(String... values) throws IOException {
-        writeRow((Object[]) values);
+        checkWriteError();
+        if (isClosed) {
+            throw new IllegalStateException("Cannot write to a closed file");
+        }
+
+        synchronized (rowLock) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    pendingRows.append(',');
+                }
+                appendString(values[i]);
+            }
+            pendingRows.append('\n');
+        }
+    }
+
+    /**
+     * Write a row of any values to the file. Each value is converted with
+     * toString(), so this allocates, and should not be used from periodic code.
+     *
+     * @param values Row of values
+     * @throws IOException Thrown if an earlier background write to the file failed
+     */
+    public void writeObjectRow(Object... values) throws IOException {
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            row[i] = String.valueOf(values[i]);
+        }
+        writeRow(row);
     }
 
     /**
      * Write a row to the file
-     * 
+     *
      * @param values Row of values
-     * @throws IOException Thrown if there is an issue writing to the file
+     * @throws IOException Thrown if an earlier background write to the file failed
+     * @deprecated Use {@link #writeObjectRow(Object...)}, or a typed schema
      */
+    @Deprecated(since = "January 2021", forRemoval = false)
     public void writeRow(Object... values) throws IOException {
+        writeObjectRow(values);
+    }
 
-        // Ensure writing is possible
-        if (isClosed) {
-            throw new IllegalStateException("Cannot write to a closed file");
+    /**
+     * Write all finished rows to disk now, instead of waiting for the background
+     * writer
+     *
+     * @throws IOException Thrown if there is an issue writing to the file
+     */
+    public synchronized void flush() throws IOException {
+        if (writer == null) {
+            return;
         }
 
-        // Build the values into a row
-        StringBuilder rowBuilder = new StringBuilder();
-        for (Object value : values) {
-            rowBuilder.append(value.toString());
-            rowBuilder.append(",");
+        // Swap buffers so callers are never blocked by file IO
+        synchronized (rowLock) {
+            StringBuilder filled = pendingRows;
+            pendingRows = writingRows;
+            writingRows = filled;
         }
 
-        // Write the row
-        rowBuilder.append("\n");
-        writer.append(rowBuilder.toString());
-
+        try {
+            writer.write(writingRows);
+        } finally {
+            writingRows.setLength(0);
+        }
     }
 
     /**
      * Close the file
+     *
      * @throws IOException Thrown if there is an issue closing the file
      */
     @Override
-    public void close() throws IOException {
-        writer.flush();
-        writer.close();
+    public synchronized void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
         isClosed = true;
+        openFiles.remove(this);
+
+        // Write anything remaining
+        try {
+            flush();
+        } finally {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Append a staged value to the pending rows. Must be called while holding
+     * rowLock.
+     *
+     * @param column Column index
+     */
+    private void appendStaged(int column) {
+        ColumnType staged = stagedTypes[column];
+        if (staged == null) {
+            return;
+        }
+
+        switch (staged) {
+            case kDouble:
+                if (decimals[column] == FULL_PRECISION) {
+                    pendingRows.append(stagedDoubles[column]);
+                } else {
+                    FastFormat.appendFixed(pendingRows, stagedDoubles[column], decimals[column]);
+                }
+                break;
+            case kLong:
+                pendingRows.append(stagedLongs[column]);
+                break;
+            case kBoolean:
+                pendingRows.append(stagedLongs[column] != 0);
+                break;
+            default:
+                appendString(stagedStrings[column]);
+                break;
+        }
+    }
+
+    /**
+     * Append a string cell to the pending rows, quoting it if needed. Must be
+     * called while holding rowLock.
+     *
+     * @param value Cell value
+     */
+    private void appendString(String value) {
+        if (value == null) {
+            return;
+        }
+
+        // Only quote values that would otherwise break the row
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!needsQuotes) {
+            pendingRows.append(value);
+            return;
+        }
+
+        pendingRows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                pendingRows.append('"');
+            }
+            pendingRows.append(c);
+        }
+        pendingRows.append('"');
+    }
+
+    /**
+     * Throw any error hit by the background writer since the last check
+     *
+     * @throws IOException The background write error
+     */
+    private void checkWriteError() throws IOException {
+        IOException error = writeError;
+        if (error != null) {
+            writeError = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Ensure a column exists, and accepts a type of value
+     *
+     * @param column Column index
+     * @param type   Value type
+     */
+    private void checkType(int column, ColumnType type) {
+        if (column < 0 || column >= types.length) {
+            throw new IndexOutOfBoundsException("Column " + column + " does not exist");
+        }
+        if (types[column] != ColumnType.kAny && types[column] != type) {
+            throw new IllegalArgumentException("Column " + column + " holds " + types[column] + ", not " + type);
+        }
+    }
+
+    /**
+     * Ensure a full row has the right number of values
+     *
+     * @param length Number of values
+     */
+    private void checkRowLength(int length) {
+        if (length != types.length) {
+            throw new IllegalArgumentException("Expected " + types.length + " values, got " + length);
+        }
+    }
+
+    /**
+     * Start the shared background writer if it is not already running
+     */
+    private static synchronized void startWriterThread() {
+        if (writerThread == null) {
+            writerThread = RealTimeExecutor.getInstance().schedule("CSVFile", Lane.kFileIO, WRITE_PERIOD,
+                    CSVFile::writeOpenFiles);
+        }
+    }
+
+    /**
+     * Write finished rows for every open file
+     */
+    private static void writeOpenFiles() {
+        for (CSVFile file : openFiles) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                file.writeError = e;
+            }
+        }
+    }
+
+    private static ColumnType[] untyped(int count) {
+        ColumnType[] types = new ColumnType[count];
+        Arrays.fill(types, ColumnType.kAny);
+        return types;
+    }
+
+    private static int[] fullPrecision(int count) {
+        int[] decimals = new int[count];
+        Arrays.fill(decimals, FULL_PRECISION);
+        return decimals;
     }
 
-}
\ No newline at end of file
+}
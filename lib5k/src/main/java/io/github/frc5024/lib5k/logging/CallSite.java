@@ -0,0 +1,140 @@
+package io.github.frc5024.lib5k.logging;
+
+/**
+ * A resolved location in robot code that produces logs. Call sites are created
+ * once by the {@link CallSiteCache} and shared by every log written from the
+ * same class and method.
+ */
+final class CallSite {
+
+    // Where the logs come from
+    final String className;
+    final String methodName;
+
+    // Friendly name printed with every log
+    final String name;
+
+    // Filter settings, resolved by the LogFilter
+    volatile int filterGeneration = -1;
+    int minimumSeverity;
+    private double tokensPerNano;
+    private double burst;
+
+    // Rate limit state
+    private double tokens;
+    private long lastRefill;
+    private volatile long suppressed;
+
+    /**
+     * Create a CallSite
+     *
+     * @param className  Fully qualified class name
+     * @param methodName Method name
+     */
+    CallSite(String className, String methodName) {
+        this.className = className;
+        this.methodName = methodName;
+        this.name = format(className, methodName);
+    }
+
+    /**
+     * Apply filter settings to this call site
+     *
+     * @param minimumSeverity   Least severe level that will be logged
+     * @param messagesPerSecond Sustained log rate, or 0 for no limit
+     * @param burst             Number of logs allowed at once
+     * @param generation        Filter generation these settings came from
+     */
+    synchronized void configure(int minimumSeverity, double messagesPerSecond, int burst, int generation) {
+        this.minimumSeverity = minimumSeverity;
+        this.tokensPerNano = messagesPerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        this.filterGeneration = generation;
+    }
+
+    /**
+     * Take a token from this site's rate limit. Rejected logs are counted.
+     *
+     * @param now Current time in nanoseconds
+     * @return Can a log be written?
+     */
+    boolean tryAcquire(long now) {
+
+        // Unlimited sites skip the lock entirely
+        if (tokensPerNano <= 0) {
+            return true;
+        }
+
+        synchronized (this) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+    }
+
+    /**
+     * Get and reset the number of logs rejected by the rate limit
+     *
+     * @return Number of suppressed logs
+     */
+    long takeSuppressed() {
+
+        // Most sites never suppress anything, so avoid the lock
+        if (suppressed == 0) {
+            return 0;
+        }
+
+        synchronized (this) {
+            long count = suppressed;
+            suppressed = 0;
+            return count;
+        }
+    }
+
+    /**
+     * Build the friendly name for a class and method. This turns a name like:
+     * io.github.frc5024.y2020.darthraider.commands.autonomous.actions.cells.SetShooterOutput
+     * into one that looks like: io...cells.SetShooterOutput::method()
+     *
+     * @param className  Fully qualified class name
+     * @param methodName Method name
+     * @return Friendly name
+     */
+    static String format(String className, String methodName) {
+        StringBuilder builder = new StringBuilder(className.length() + methodName.length() + 8);
+
+        // Find the boundaries of the first segment and the last two segments
+        int firstDot = className.indexOf('.');
+        int lastDot = className.lastIndexOf('.');
+        int parentDot = (lastDot > 0) ? className.lastIndexOf('.', lastDot - 1) : -1;
+
+        // Count the segments. Anything with 3 or less is printed in full
+        int segments = 1;
+        for (int i = 0; i < className.length(); i++) {
+            if (className.charAt(i) == '.') {
+                segments++;
+            }
+        }
+
+        if (segments <= 3) {
+            builder.append(className);
+        } else {
+            // Root package, a separator, then the parent package and class
+            builder.append(className, 0, firstDot);
+            builder.append("...");
+            builder.append(className, parentDot + 1, className.length());
+        }
+
+        // Append the method name
+        builder.append("::").append(methodName).append("()");
+
+        return builder.toString();
+    }
+}
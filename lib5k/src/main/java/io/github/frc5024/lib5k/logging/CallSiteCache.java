@@ -0,0 +1,83 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A concurrent cache of {@link CallSite}s keyed by class and method name.
+ *
+ * Callers are found with a {@link StackWalker} that only ever materializes a
+ * single frame, which is far cheaper than building a full stack trace.
+ */
+final class CallSiteCache {
+
+    // Number of frames between the walk and the code that called the logger:
+    // resolveCaller() -> RobotLogger.log() -> caller
+    private static final int CALLER_DEPTH = 2;
+
+    // Stack walking
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final Function<Stream<StackFrame>, Optional<StackFrame>> FIND_CALLER = (frames) -> frames
+            .skip(CALLER_DEPTH).findFirst();
+
+    // Class name -> method name -> call site
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CallSite>> sites = new ConcurrentHashMap<>();
+
+    // Fallback for when no caller can be found
+    private final CallSite unknown = new CallSite("unknown", "unknown");
+
+    /**
+     * Find the call site of the method that called into the logger. This must be
+     * called directly from the public RobotLogger method that user code calls.
+     *
+     * @return Caller's call site
+     */
+    CallSite resolveCaller() {
+        Optional<StackFrame> frame = WALKER.walk(FIND_CALLER);
+
+        if (frame.isEmpty()) {
+            return unknown;
+        }
+
+        return get(frame.get().getClassName(), frame.get().getMethodName());
+    }
+
+    /**
+     * Get (or create) the call site for a class and method
+     *
+     * @param className  Fully qualified class name
+     * @param methodName Method name
+     * @return Call site
+     */
+    CallSite get(String className, String methodName) {
+
+        // Fast path. Everything has been seen before
+        ConcurrentHashMap<String, CallSite> methods = sites.get(className);
+        if (methods != null) {
+            CallSite site = methods.get(methodName);
+            if (site != null) {
+                return site;
+            }
+        }
+
+        // Slow path. Create whatever is missing
+        methods = sites.computeIfAbsent(className, (name) -> new ConcurrentHashMap<>());
+        return methods.computeIfAbsent(methodName, (name) -> new CallSite(className, name));
+    }
+
+    /**
+     * Get the number of unique call sites seen so far
+     *
+     * @return Number of call sites
+     */
+    int size() {
+        int count = 0;
+        for (ConcurrentHashMap<String, CallSite> methods : sites.values()) {
+            count += methods.size();
+        }
+        return count;
+    }
+}
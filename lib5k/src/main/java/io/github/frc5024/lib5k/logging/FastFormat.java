@@ -0,0 +1,73 @@
+package io.github.frc5024.lib5k.logging;
+
+/**
+ * Allocation-free number-to-text helpers for the logging hot paths. These are
+ * used in place of String.format where the output shape is fixed.
+ */
+final class FastFormat {
+
+    // Powers of ten for supported decimal counts
+    private static final long[] POW10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+            1000000000L };
+
+    // Largest magnitude that can be scaled without overflowing a long
+    private static final double MAX_SCALED = 9.0e17;
+
+    private FastFormat() {
+    }
+
+    /**
+     * Get the largest number of decimal places supported by
+     * {@link #appendFixed(StringBuilder, double, int)}
+     *
+     * @return Maximum decimal places
+     */
+    static int getMaxDecimals() {
+        return POW10.length - 1;
+    }
+
+    /**
+     * Append a double with a fixed number of decimal places (equivalent to
+     * "%.Nf", rounding half up)
+     *
+     * @param builder  Output
+     * @param value    Value to append
+     * @param decimals Number of decimal places (0-9)
+     * @return The builder
+     */
+    static StringBuilder appendFixed(StringBuilder builder, double value, int decimals) {
+
+        // Handle special values the same way the JDK does
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return builder.append(value);
+        }
+
+        long scale = POW10[decimals];
+        double magnitude = Math.abs(value);
+
+        // Fall back to the JDK for values too large to scale
+        if (magnitude * scale >= MAX_SCALED) {
+            return builder.append(value);
+        }
+
+        // Scale and round the value
+        long scaled = Math.round(magnitude * scale);
+        if (value < 0 && scaled != 0) {
+            builder.append('-');
+        }
+
+        // Integer part
+        builder.append(scaled / scale);
+
+        // Fractional part, padded with leading zeros
+        if (decimals > 0) {
+            builder.append('.');
+            long fraction = scaled % scale;
+            for (long divisor = scale / 10; divisor > 0; divisor /= 10) {
+                builder.append((char) ('0' + (fraction / divisor) % 10));
+            }
+        }
+
+        return builder;
+    }
+}
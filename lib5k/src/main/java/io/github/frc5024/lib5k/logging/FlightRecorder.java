@@ -0,0 +1,330 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * The FlightRecorder keeps the last few seconds of high-rate data from every
+ * subsystem in memory, and only saves it when something goes wrong. This gives
+ * full-detail data around a fault, without the cost of logging everything all
+ * the time.
+ *
+ * Each subsystem records into its own {@link FlightRecorderBuffer}:
+ *
+ * <pre>
+ * {@code
+ * private FlightRecorderBuffer recorder = FlightRecorder.getInstance().getBuffer("Shooter");
+ *
+ * public void periodic() {
+ *     recorder.signal("Velocity", velocity);
+ * }
+ * }
+ * </pre>
+ *
+ * Lib5K triggers a dump when a SafeNotifier catches an error, or when a
+ * brownout or rail fault is detected. Robot code can also call
+ * {@link #trigger(String)}. Dumps are saved as a CSV file in the session
+ * directory.
+ *
+ * The recorder can also keep kDebug logs with
+ * {@link #setRecordingDebugLogs(boolean)}. Each log is copied into the buffer
+ * named after the class that wrote it, so debug logs from a {@code Shooter}
+ * class end up next to the "Shooter" signals.
+ */
+public class FlightRecorder {
+    private static FlightRecorder instance = null;
+
+    // Default number of entries per buffer
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    // Minimum time between dumps, so a repeating fault can't flood the USB stick
+    private static final long DUMP_COOLDOWN_NANOS = 1_000_000_000L;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // Every subsystem buffer
+    private final CopyOnWriteArrayList<FlightRecorderBuffer> buffers = new CopyOnWriteArrayList<>();
+
+    // Buffer each logging call site records its debug logs into
+    private final ConcurrentHashMap<CallSite, FlightRecorderBuffer> logBuffers = new ConcurrentHashMap<>();
+
+    // Settings
+    private volatile double windowSeconds = 10.0;
+
+    // Dump tracking
+    private long lastDump = System.nanoTime() - DUMP_COOLDOWN_NANOS;
+    private int dumpCount = 0;
+
+    /**
+     * A single recorded entry, copied out of a buffer for dumping
+     */
+    static final class Entry {
+        final long time;
+        final String buffer;
+        final byte kind;
+        final String label;
+        final String source;
+        final double value;
+        final Object[] args;
+
+        Entry(long time, String buffer, byte kind, String label, String source, double value, Object[] args) {
+            this.time = time;
+            this.buffer = buffer;
+            this.kind = kind;
+            this.label = label;
+            this.source = source;
+            this.value = value;
+            this.args = args;
+        }
+    }
+
+    FlightRecorder() {
+    }
+
+    /**
+     * Get the FlightRecorder instance
+     *
+     * @return FlightRecorder
+     */
+    public static synchronized FlightRecorder getInstance() {
+        if (instance == null) {
+            instance = new FlightRecorder();
+        }
+        return instance;
+    }
+
+    /**
+     * Get the buffer for a subsystem, creating it if needed
+     *
+     * @param subsystem Subsystem name
+     * @return Subsystem buffer
+     */
+    public FlightRecorderBuffer getBuffer(String subsystem) {
+        return getBuffer(subsystem, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Get the buffer for a subsystem, creating it if needed
+     *
+     * @param subsystem Subsystem name
+     * @param capacity  Number of entries to keep if the buffer has to be created.
+     *                  Size this to hold at least the recording window of data
+     * @return Subsystem buffer
+     */
+    public synchronized FlightRecorderBuffer getBuffer(String subsystem, int capacity) {
+        for (FlightRecorderBuffer buffer : buffers) {
+            if (buffer.getName().equals(subsystem)) {
+                return buffer;
+            }
+        }
+
+        FlightRecorderBuffer buffer = new FlightRecorderBuffer(subsystem, capacity);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Set how many seconds of data before a trigger should be saved. Defaults to
+     * 10 seconds
+     *
+     * @param seconds Recording window in seconds
+     */
+    public void setWindow(double seconds) {
+        this.windowSeconds = seconds;
+    }
+
+    /**
+     * Set if kDebug logs should be copied into the flight recorder. While this is
+     * on, debug logs are recorded even if no log output wants them. Logs hidden
+     * by {@link RobotLogger#setMinimumLevel(String, Level)} or a rate limit are
+     * not recorded. Logs are copied when the logger drains its buffer, so a dump
+     * may be missing debug logs from the last logger cycle before its trigger.
+     *
+     * @param enabled Should debug logs be recorded?
+     */
+    public void setRecordingDebugLogs(boolean enabled) {
+        RobotLogger.getInstance().setDebugRecorder(enabled ? this : null);
+    }
+
+    /**
+     * Copy a debug log into the buffer for the class that wrote it. Called by the
+     * {@link RobotLogger} while it drains its buffer, so logging threads never
+     * wait on the flight recorder
+     *
+     * @param record Log record
+     */
+    void recordLog(LogRecord record) {
+        CallSite site = record.site;
+
+        // Each call site only has to look up its buffer once
+        FlightRecorderBuffer buffer = logBuffers.get(site);
+        if (buffer == null) {
+            buffer = getBuffer(getSubsystemName(site.className));
+            logBuffers.put(site, buffer);
+        }
+
+        buffer.log(record);
+    }
+
+    /**
+     * Get the subsystem name for a class. This is the simple name of the
+     * outermost class
+     *
+     * @param className Fully qualified class name
+     * @return Subsystem name
+     */
+    static String getSubsystemName(String className) {
+        int start = className.lastIndexOf('.') + 1;
+        int end = className.indexOf('$', start);
+        return className.substring(start, (end < 0) ? className.length() : end);
+    }
+
+    /**
+     * Get the number of dumps that have been saved (or started) so far
+     *
+     * @return Number of dumps
+     */
+    public synchronized int getDumpCount() {
+        return dumpCount;
+    }
+
+    /**
+     * Save the recording window to the session directory. The data is copied
+     * right away, and written to disk from the file IO lane of the
+     * {@link RealTimeExecutor}, so this is safe to call from a fault handler.
+     * Triggers that come in less than a second after the last dump are ignored,
+     * and nothing is saved if nothing was recorded.
+     *
+     * @param reason Short reason for the dump. This is included in the file name
+     * @return Was a dump started?
+     */
+    public boolean trigger(String reason) {
+        List<Entry> entries = snapshot(reason);
+        if (entries == null || entries.isEmpty()) {
+            return false;
+        }
+
+        // Write the dump from the file IO lane, without blocking the caller
+        double now = FPGAClock.getFPGASeconds();
+        long nowNanos = System.nanoTime();
+        RealTimeExecutor.getInstance().runOnce("FlightRecorder dump", Lane.kFileIO,
+                () -> write(reason, entries, now, nowNanos));
+        return true;
+    }
+
+    /**
+     * Save the recording window to the session directory on the calling thread.
+     *
+     * @param reason Short reason for the dump
+     * @return Was a dump saved?
+     */
+    boolean dump(String reason) {
+        List<Entry> entries = snapshot(reason);
+        if (entries == null || entries.isEmpty()) {
+            return false;
+        }
+        return write(reason, entries, FPGAClock.getFPGASeconds(), System.nanoTime());
+    }
+
+    /**
+     * Copy the recording window out of every buffer
+     *
+     * @param reason Dump reason
+     * @return Entries sorted by time, or null if the recorder is cooling down
+     */
+    private List<Entry> snapshot(String reason) {
+        long now = System.nanoTime();
+
+        // Ignore triggers that come in too fast
+        synchronized (this) {
+            if (now - lastDump < DUMP_COOLDOWN_NANOS) {
+                return null;
+            }
+            lastDump = now;
+            dumpCount++;
+        }
+
+        // Copy out everything in the window
+        long oldest = now - (long) (windowSeconds * 1e9);
+        ArrayList<Entry> entries = new ArrayList<>();
+        for (FlightRecorderBuffer buffer : buffers) {
+            buffer.snapshot(oldest, entries);
+        }
+        entries.sort((a, b) -> Long.compare(a.time, b.time));
+
+        logger.log("Flight recorder triggered (%s). Saving %d entries", Level.kWarning, reason, entries.size());
+        return entries;
+    }
+
+    /**
+     * Write a dump to a CSV file
+     *
+     * @param reason   Dump reason
+     * @param entries  Entries to write
+     * @param now      FPGA time of the trigger
+     * @param nowNanos System.nanoTime() of the trigger
+     * @return Was the dump written?
+     */
+    private boolean write(String reason, List<Entry> entries, double now, long nowNanos) {
+        String fileName = "FlightRecorder_" + reason.replaceAll("[^A-Za-z0-9_-]", "_");
+
+        try (CSVFile file = CSVFile.builder(fileName).doubleCol("Timestamp (seconds)", 4).stringCol("Subsystem")
+                .stringCol("Type").stringCol("Name").doubleCol("Value").stringCol("Message").build()) {
+
+            for (Entry entry : entries) {
+
+                // Convert the entry time to FPGA time
+                file.set(0, now - (nowNanos - entry.time) / 1e9);
+                file.set(1, entry.buffer);
+
+                if (entry.kind == FlightRecorderBuffer.KIND_SIGNAL) {
+                    file.set(2, "signal");
+                    file.set(3, entry.label);
+                    file.set(4, entry.value);
+                } else if (entry.kind == FlightRecorderBuffer.KIND_LOG) {
+                    file.set(2, "log");
+                    file.set(3, entry.source);
+                    file.set(5, formatEvent(entry));
+                } else {
+                    file.set(2, "event");
+                    file.set(5, formatEvent(entry));
+                }
+                file.endRow();
+            }
+
+        } catch (IOException e) {
+            logger.log("Failed to save flight recorder dump", Level.kWarning);
+            return false;
+        }
+
+        logger.log("Saved flight recorder dump in the current session folder as: %s_*.csv", Level.kInfo, fileName);
+        return true;
+    }
+
+    /**
+     * Format an event or log message with its values
+     *
+     * @param entry Event or log entry
+     * @return Message
+     */
+    private static String formatEvent(Entry entry) {
+        if (entry.args == null || entry.args.length == 0) {
+            return entry.label;
+        }
+
+        try {
+            return String.format(entry.label, entry.args);
+        } catch (IllegalFormatException e) {
+            return entry.label;
+        }
+    }
+}
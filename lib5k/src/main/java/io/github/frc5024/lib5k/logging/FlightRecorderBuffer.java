@@ -0,0 +1,258 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.util.List;
+
+/**
+ * A fixed-size ring of recent events and signal samples for a single subsystem.
+ * All storage is allocated up front, so recording never allocates, and old
+ * entries are silently overwritten. Nothing is written anywhere until the
+ * {@link FlightRecorder} is triggered.
+ *
+ * Messages and signal names are stored by reference, so they should be
+ * constants. Event messages may contain up to two String.format style floating
+ * point arguments (like %.2f), which are only formatted if the buffer is
+ * dumped.
+ *
+ * When {@link FlightRecorder#setRecordingDebugLogs(boolean)} is on, kDebug logs
+ * are copied in here too. Their arguments are also only formatted on a dump, so
+ * any objects logged are kept by reference until they are overwritten.
+ */
+public final class FlightRecorderBuffer {
+
+    // Entry types
+    static final byte KIND_EVENT = 1;
+    static final byte KIND_SIGNAL = 2;
+    static final byte KIND_LOG = 3;
+
+    private final String name;
+
+    // Ring storage
+    private final int mask;
+    private final long[] times;
+    private final byte[] kinds;
+    private final String[] labels;
+    private final String[] sources;
+    private final Object[][] objectArgs;
+
+    // Up to two primitive values per entry. Values are stored as raw bits, and
+    // tagged with their LogRecord kind so they can be formatted correctly
+    private final byte[] argCounts;
+    private final byte[] valueKinds;
+    private final long[] values;
+    private long written = 0;
+
+    /**
+     * Create a FlightRecorderBuffer. Use
+     * {@link FlightRecorder#getBuffer(String, int)} instead of calling this
+     * directly
+     *
+     * @param name     Subsystem name
+     * @param capacity Number of entries to keep. This will be rounded up to the
+     *                 next power of two
+     */
+    FlightRecorderBuffer(String name, int capacity) {
+        this.name = name;
+
+        // Round up to a power of two so indexing is a mask
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+
+        this.times = new long[size];
+        this.kinds = new byte[size];
+        this.labels = new String[size];
+        this.sources = new String[size];
+        this.objectArgs = new Object[size][];
+        this.argCounts = new byte[size];
+        this.valueKinds = new byte[size * LogRecord.MAX_PRIMITIVES];
+        this.values = new long[size * LogRecord.MAX_PRIMITIVES];
+    }
+
+    /**
+     * Get the name of the subsystem this buffer belongs to
+     *
+     * @return Subsystem name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of entries this buffer can hold
+     *
+     * @return Capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Record an event
+     *
+     * @param message Event message
+     */
+    public void event(String message) {
+        write(KIND_EVENT, message, 0, 0.0, 0.0);
+    }
+
+    /**
+     * Record an event with a single value
+     *
+     * @param format Event message (String.format style)
+     * @param value  Format argument
+     */
+    public void event(String format, double value) {
+        write(KIND_EVENT, format, 1, value, 0.0);
+    }
+
+    /**
+     * Record an event with two values
+     *
+     * @param format Event message (String.format style)
+     * @param a      First format argument
+     * @param b      Second format argument
+     */
+    public void event(String format, double a, double b) {
+        write(KIND_EVENT, format, 2, a, b);
+    }
+
+    /**
+     * Record a sample of a numeric signal
+     *
+     * @param signal Signal name
+     * @param value  Sample
+     */
+    public void signal(String signal, double value) {
+        write(KIND_SIGNAL, signal, 1, value, 0.0);
+    }
+
+    /**
+     * Write an entry into the ring
+     *
+     * @param kind     Entry type
+     * @param label    Message or signal name
+     * @param argCount Number of values used
+     * @param a        First value
+     * @param b        Second value
+     */
+    private synchronized void write(byte kind, String label, int argCount, double a, double b) {
+        int index = claim(kind, label, System.nanoTime());
+        argCounts[index] = (byte) argCount;
+        setValue(index, 0, LogRecord.KIND_DOUBLE, Double.doubleToRawLongBits(a));
+        setValue(index, 1, LogRecord.KIND_DOUBLE, Double.doubleToRawLongBits(b));
+    }
+
+    /**
+     * Copy a debug log into the ring. The entry is timestamped with the time the
+     * log was written, not the time it was copied
+     *
+     * @param record Log record. Only its contents are kept, never the record
+     */
+    synchronized void log(LogRecord record) {
+        int index = claim(KIND_LOG, record.format, record.createdNanos);
+        sources[index] = record.site.name;
+
+        // Object arguments are kept as-is
+        if (record.args != null) {
+            objectArgs[index] = record.args;
+            return;
+        }
+
+        // Copy primitives out of the record, since it will be reused
+        argCounts[index] = (byte) record.primitiveCount;
+        for (int i = 0; i < record.primitiveCount; i++) {
+            byte valueKind = record.primitiveKinds[i];
+            long bits = (valueKind == LogRecord.KIND_DOUBLE) ? Double.doubleToRawLongBits(record.doubles[i])
+                    : record.longs[i];
+            setValue(index, i, valueKind, bits);
+        }
+    }
+
+    /**
+     * Take the next slot in the ring, and clear it. Must be called while holding
+     * this buffer's lock
+     *
+     * @param kind  Entry type
+     * @param label Message or signal name
+     * @param time  System.nanoTime() of the entry
+     * @return Slot index
+     */
+    private int claim(byte kind, String label, long time) {
+        int index = (int) (written & mask);
+        times[index] = time;
+        kinds[index] = kind;
+        labels[index] = label;
+        sources[index] = null;
+        objectArgs[index] = null;
+        argCounts[index] = 0;
+        written++;
+        return index;
+    }
+
+    /**
+     * Store a primitive value in a slot
+     *
+     * @param index     Slot index
+     * @param arg       Argument number
+     * @param valueKind LogRecord value kind
+     * @param bits      Raw value bits
+     */
+    private void setValue(int index, int arg, byte valueKind, long bits) {
+        int offset = index * LogRecord.MAX_PRIMITIVES + arg;
+        valueKinds[offset] = valueKind;
+        values[offset] = bits;
+    }
+
+    /**
+     * Box a stored primitive value
+     *
+     * @param index Slot index
+     * @param arg   Argument number
+     * @return Boxed value
+     */
+    private Object getValue(int index, int arg) {
+        int offset = index * LogRecord.MAX_PRIMITIVES + arg;
+        switch (valueKinds[offset]) {
+            case LogRecord.KIND_DOUBLE:
+                return Double.longBitsToDouble(values[offset]);
+            case LogRecord.KIND_BOOLEAN:
+                return values[offset] != 0;
+            default:
+                long value = values[offset];
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+        }
+    }
+
+    /**
+     * Copy every entry newer than a cutoff
+     *
+     * @param oldest Oldest entry time to include, in System.nanoTime() time
+     * @param output List to add entries to
+     */
+    synchronized void snapshot(long oldest, List<FlightRecorder.Entry> output) {
+        long start = Math.max(0, written - times.length);
+        for (long i = start; i < written; i++) {
+            int index = (int) (i & mask);
+            if (times[index] - oldest < 0) {
+                continue;
+            }
+
+            // Box any values, so they can be formatted later
+            Object[] args = objectArgs[index];
+            if (args == null && kinds[index] != KIND_SIGNAL) {
+                args = new Object[argCounts[index]];
+                for (int arg = 0; arg < args.length; arg++) {
+                    args[arg] = getValue(index, arg);
+                }
+            }
+
+            output.add(new FlightRecorder.Entry(times[index], name, kinds[index], labels[index], sources[index],
+                    Double.longBitsToDouble(values[index * LogRecord.MAX_PRIMITIVES]), args));
+        }
+    }
+}
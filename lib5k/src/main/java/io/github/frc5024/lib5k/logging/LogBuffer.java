@@ -0,0 +1,251 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.logging.RobotLogger.OverflowPolicy;
+
+/**
+ * A bounded, multi-producer, single-consumer ring buffer of preallocated
+ * {@link LogRecord}s.
+ *
+ * Any number of threads may claim and publish records at the same time without
+ * locking or allocating. Only one thread may drain the buffer at a time.
+ */
+final class LogBuffer {
+
+    // Time to park a blocked producer for between retries
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    // Record storage
+    private final LogRecord[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // Producer claim position
+    private final AtomicLong tail = new AtomicLong();
+
+    // Consumer position (only touched by the draining thread)
+    private long head = 0;
+
+    // Per-level bookkeeping
+    private final AtomicIntegerArray pending;
+    private final int[] levelCapacity;
+
+    // Overflow handling
+    private final LongAdder dropped = new LongAdder();
+    private volatile OverflowPolicy policy = OverflowPolicy.kDrop;
+    private volatile boolean consumerRunning = false;
+
+    /**
+     * Create a LogBuffer
+     *
+     * @param capacity Total number of records. This will be rounded up to the
+     *                 next power of two
+     */
+    LogBuffer(int capacity) {
+
+        // Round up to a power of two so indexing is a mask
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+
+        // Preallocate every record
+        this.slots = new LogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new LogRecord();
+            sequences.set(i, i);
+        }
+
+        // By default, every level may use the whole buffer
+        Level[] levels = Level.values();
+        this.pending = new AtomicIntegerArray(levels.length);
+        this.levelCapacity = new int[levels.length];
+        for (Level level : levels) {
+            levelCapacity[level.ordinal()] = size;
+        }
+    }
+
+    /**
+     * Get the total number of record slots
+     *
+     * @return Capacity
+     */
+    int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Set the maximum number of un-drained records a level may hold
+     *
+     * @param level    Log level
+     * @param capacity Maximum number of queued records
+     */
+    void setLevelCapacity(Level level, int capacity) {
+        levelCapacity[level.ordinal()] = Math.max(0, Math.min(capacity, slots.length));
+    }
+
+    /**
+     * Get the maximum number of un-drained records a level may hold
+     *
+     * @param level Log level
+     * @return Maximum number of queued records
+     */
+    int getLevelCapacity(Level level) {
+        return levelCapacity[level.ordinal()];
+    }
+
+    /**
+     * Set what producers should do when the buffer is full
+     *
+     * @param policy Overflow policy
+     */
+    void setOverflowPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Set if a consumer is actively draining this buffer. Producers will never
+     * block while there is nobody to make room for them.
+     *
+     * @param running Is a consumer running?
+     */
+    void setConsumerRunning(boolean running) {
+        this.consumerRunning = running;
+    }
+
+    /**
+     * Get the number of records waiting to be drained
+     *
+     * @return Number of queued records
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Get and reset the number of records dropped since the last call
+     *
+     * @return Number of dropped records
+     */
+    long takeDroppedCount() {
+        return dropped.sumThenReset();
+    }
+
+    /**
+     * Claim a record for writing. The returned record must be filled, then handed
+     * to {@link #publish(LogRecord)}.
+     *
+     * @param level Level of the record to be written
+     * @return Claimed record, or null if the record was dropped
+     */
+    LogRecord claim(Level level) {
+        int lvl = level.ordinal();
+
+        // Reserve space for this level
+        while (pending.incrementAndGet(lvl) > levelCapacity[lvl]) {
+            pending.decrementAndGet(lvl);
+            if (!shouldBlock()) {
+                dropped.increment();
+                return null;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+
+        // Claim a slot in the ring
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long difference = sequences.get(index) - pos;
+
+            if (difference == 0) {
+                // This slot is free. Try to take it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    LogRecord record = slots[index];
+                    record.sequence = pos;
+                    record.level = level;
+                    return record;
+                }
+                pos = tail.get();
+
+            } else if (difference < 0) {
+                // The ring is full
+                if (!shouldBlock()) {
+                    pending.decrementAndGet(lvl);
+                    dropped.increment();
+                    return null;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                pos = tail.get();
+
+            } else {
+                // Another producer got here first
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Make a claimed record visible to the consumer
+     *
+     * @param record Record returned by {@link #claim(Level)}
+     */
+    void publish(LogRecord record) {
+        sequences.lazySet((int) (record.sequence & mask), record.sequence + 1);
+    }
+
+    /**
+     * Hand every published record to a consumer, then release its slot. Only one
+     * thread may call this at a time.
+     *
+     * @param consumer Record consumer
+     * @return Number of records drained
+     */
+    int drain(Consumer<LogRecord> consumer) {
+        int count = 0;
+
+        while (true) {
+            int index = (int) (head & mask);
+
+            // Stop at the first record that has not been published yet
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+
+            // Consume the record
+            LogRecord record = slots[index];
+            Level level = record.level;
+            try {
+                consumer.accept(record);
+            } finally {
+                record.clear();
+                pending.decrementAndGet(level.ordinal());
+
+                // Release the slot for the next lap around the ring
+                sequences.lazySet(index, head + slots.length);
+                head++;
+            }
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Check if a producer should wait for room instead of dropping its record
+     *
+     * @return Should block?
+     */
+    private boolean shouldBlock() {
+        return policy == OverflowPolicy.kBlock && consumerRunning;
+    }
+
+}
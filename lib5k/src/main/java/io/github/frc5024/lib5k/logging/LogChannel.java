@@ -0,0 +1,245 @@
+package io.github.frc5024.lib5k.logging;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * A LogChannel is a handle to the {@link RobotLogger} that has already been
+ * bound to a call site. Logs written through a channel skip the stack
+ * inspection that {@link RobotLogger#log(String, Object...)} has to do to
+ * figure out who called it, which makes channels the cheapest way to log from
+ * code that runs every loop.
+ *
+ * Channels should be created once (usually in a constructor), then kept:
+ * 
+ * <pre>
+ * {@code
+ * private final LogChannel stateLog = RobotLogger.getInstance().getChannel(MyStateMachine.class, "setState");
+ * 
+ * public void setState(State state) {
+ *     stateLog.log("Switching to state: %s", Level.kDebug, state);
+ * }
+ * }
+ * </pre>
+ *
+ * The {@code logPrimitive()} methods take one or two numbers or booleans
+ * without boxing them, so logging through a channel with them does not
+ * allocate. A {@code char} passed to them is logged as its number.
+ */
+public final class LogChannel {
+
+    private final RobotLogger logger;
+    private final CallSite site;
+
+    /**
+     * Create a LogChannel. Use {@link RobotLogger#getChannel(Class, String)}
+     * instead of calling this directly
+     *
+     * @param logger Logger to write to
+     * @param site   Call site logs are attributed to
+     */
+    LogChannel(RobotLogger logger, CallSite site) {
+        this.logger = logger;
+        this.site = site;
+    }
+
+    /**
+     * Get the name this channel's logs are attributed to
+     *
+     * @return Channel name
+     */
+    public String getName() {
+        return site.name;
+    }
+
+    /**
+     * Write a log message to the logfile and message buffer.
+     * 
+     * @param msg  Log message (String.format style)
+     * @param args Format arguments
+     */
+    public void log(String msg, Object... args) {
+        log(msg, Level.kInfo, args);
+    }
+
+    /**
+     * Write a log message to the logfile and message buffer.
+     * 
+     * @param msg  Log message (String.format style)
+     * @param lvl  Log level
+     * @param args Format arguments
+     */
+    public void log(String msg, Level lvl, Object... args) {
+        if (logger.isWanted(lvl)) {
+            logger.log(site, lvl, msg, args);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, long value) {
+        logPrimitive(msg, Level.kInfo, value);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long value) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, double value) {
+        logPrimitive(msg, Level.kInfo, value);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double value) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, boolean value) {
+        logPrimitive(msg, Level.kInfo, value);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, boolean value) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, long a, long b) {
+        logPrimitive(msg, Level.kInfo, a, b);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long a, long b) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, long a, double b) {
+        logPrimitive(msg, Level.kInfo, a, b);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long a, double b) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, double a, long b) {
+        logPrimitive(msg, Level.kInfo, a, b);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double a, long b) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, double a, double b) {
+        logPrimitive(msg, Level.kInfo, a, b);
+    }
+
+    /**
+     * Write a log message without boxing its arguments.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double a, double b) {
+        if (logger.isWanted(lvl)) {
+            logger.logPrimitive(site, lvl, msg, a, b);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.util.Arrays;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * Per-package and per-class log filtering. Each rule applies to every class
+ * whose name starts with the rule's prefix, and the longest matching prefix
+ * wins. A rule can set a minimum log level, a token bucket rate limit for each
+ * call site, or both.
+ *
+ * Rules are resolved once per {@link CallSite}, and only looked up again when
+ * the rules change, so checking a log against the filter does not walk the
+ * rule list.
+ */
+final class LogFilter {
+
+    /**
+     * A single filter rule
+     */
+    private static final class Rule {
+        final String prefix;
+
+        // Minimum severity, or -1 to inherit
+        int minimumSeverity = -1;
+
+        // Rate limit, or a negative rate to inherit
+        double messagesPerSecond = -1;
+        int burst;
+
+        Rule(String prefix) {
+            this.prefix = prefix;
+        }
+
+        Rule copy() {
+            Rule rule = new Rule(prefix);
+            rule.minimumSeverity = minimumSeverity;
+            rule.messagesPerSecond = messagesPerSecond;
+            rule.burst = burst;
+            return rule;
+        }
+    }
+
+    // Rules, sorted longest prefix first. Replaced (never modified) on change
+    private volatile Rule[] rules = new Rule[0];
+
+    // Bumped every time the rules change, so call sites know to re-resolve
+    private volatile int generation = 0;
+
+    /**
+     * Set the least important level that will be logged by classes under a prefix
+     *
+     * @param prefix Package or class name prefix ("" for everything)
+     * @param level  Minimum log level, or null to inherit from a shorter prefix
+     */
+    synchronized void setMinimumLevel(String prefix, Level level) {
+        Rule rule = edit(prefix);
+        rule.minimumSeverity = (level != null) ? level.severity : -1;
+        publish(rule);
+    }
+
+    /**
+     * Limit how often each call site under a prefix may log
+     *
+     * @param prefix            Package or class name prefix ("" for everything)
+     * @param messagesPerSecond Sustained rate per call site. 0 disables limiting,
+     *                          and a negative rate inherits from a shorter prefix
+     * @param burst             Number of messages that can be logged at once
+     *                          before the rate applies
+     */
+    synchronized void setRateLimit(String prefix, double messagesPerSecond, int burst) {
+        Rule rule = edit(prefix);
+        rule.messagesPerSecond = messagesPerSecond;
+        rule.burst = Math.max(1, burst);
+        publish(rule);
+    }
+
+    /**
+     * Remove every rule
+     */
+    synchronized void clear() {
+        rules = new Rule[0];
+        generation++;
+    }
+
+    /**
+     * Check if a log should be written. This updates the call site's rate limit,
+     * and counts anything it rejects for rate.
+     *
+     * @param site Call site
+     * @param lvl  Log level
+     * @return Should the log be written?
+     */
+    boolean accepts(CallSite site, Level lvl) {
+
+        // Pick up any rule changes
+        int gen = generation;
+        if (site.filterGeneration != gen) {
+            resolve(site, gen);
+        }
+
+        // Level filtering is always applied
+        if (lvl.severity < site.minimumSeverity) {
+            return false;
+        }
+
+        // Robot level logs are never rate limited
+        if (lvl == Level.kRobot) {
+            return true;
+        }
+        return site.tryAcquire(System.nanoTime());
+    }
+
+    /**
+     * Find the settings that apply to a call site
+     *
+     * @param site Call site
+     * @param gen  Rule generation being resolved
+     */
+    private void resolve(CallSite site, int gen) {
+        int minimumSeverity = -1;
+        double messagesPerSecond = -1;
+        int burst = 1;
+
+        // Rules are sorted longest first, so the first match for each setting wins
+        for (Rule rule : rules) {
+            if (!matches(site.className, rule.prefix)) {
+                continue;
+            }
+            if (minimumSeverity < 0 && rule.minimumSeverity >= 0) {
+                minimumSeverity = rule.minimumSeverity;
+            }
+            if (messagesPerSecond < 0 && rule.messagesPerSecond >= 0) {
+                messagesPerSecond = rule.messagesPerSecond;
+                burst = rule.burst;
+            }
+        }
+
+        site.configure(Math.max(0, minimumSeverity), Math.max(0, messagesPerSecond), burst, gen);
+    }
+
+    /**
+     * Check if a class name falls under a prefix. Prefixes only match whole
+     * package or class names, so "frc.Drive" does not match "frc.DriveTrain"
+     *
+     * @param className Fully qualified class name
+     * @param prefix    Rule prefix
+     * @return Does the prefix match?
+     */
+    static boolean matches(String className, String prefix) {
+        if (!className.startsWith(prefix)) {
+            return false;
+        }
+        if (prefix.isEmpty() || className.length() == prefix.length()) {
+            return true;
+        }
+        char next = className.charAt(prefix.length());
+        return next == '.' || next == '$';
+    }
+
+    /**
+     * Get a copy of the rule for a prefix, or a new rule if there is none
+     *
+     * @param prefix Rule prefix
+     * @return Editable rule
+     */
+    private Rule edit(String prefix) {
+        for (Rule rule : rules) {
+            if (rule.prefix.equals(prefix)) {
+                return rule.copy();
+            }
+        }
+        return new Rule(prefix);
+    }
+
+    /**
+     * Replace a rule and re-sort the rule list
+     *
+     * @param updated Updated rule
+     */
+    private void publish(Rule updated) {
+        Rule[] current = rules;
+        Rule[] next = new Rule[current.length + 1];
+        int count = 0;
+        for (Rule rule : current) {
+            if (!rule.prefix.equals(updated.prefix)) {
+                next[count++] = rule;
+            }
+        }
+        next[count++] = updated;
+
+        // Longest prefix first
+        next = Arrays.copyOf(next, count);
+        Arrays.sort(next, (a, b) -> b.prefix.length() - a.prefix.length());
+
+        rules = next;
+        generation++;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.frc5024.lib5k.logging;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * A single, reusable log record. Records are allocated once by the
+ * {@link LogBuffer} and overwritten in place every time their slot is reused,
+ * so they must never be held on to after being handed back to the buffer.
+ *
+ * A record holds the raw format string and its arguments. Formatting only
+ * happens once the record reaches an output that needs text. Arguments are
+ * either an Object array (from the varargs methods), or up to
+ * {@link #MAX_PRIMITIVES} unboxed primitives (from the primitive overloads).
+ */
+final class LogRecord {
+
+    // Primitive argument storage
+    static final int MAX_PRIMITIVES = 2;
+    static final byte KIND_LONG = 1;
+    static final byte KIND_DOUBLE = 2;
+    static final byte KIND_BOOLEAN = 3;
+
+    // Slot bookkeeping (owned by LogBuffer)
+    long sequence;
+
+    // Record contents
+    Level level;
+    double timestamp;
+    long createdNanos;
+    CallSite site;
+    String format;
+    Object[] args;
+
+    // Unboxed arguments
+    int primitiveCount;
+    final byte[] primitiveKinds = new byte[MAX_PRIMITIVES];
+    final long[] longs = new long[MAX_PRIMITIVES];
+    final double[] doubles = new double[MAX_PRIMITIVES];
+
+    /**
+     * Append an integral argument
+     *
+     * @param value Value
+     */
+    void addLong(long value) {
+        primitiveKinds[primitiveCount] = KIND_LONG;
+        longs[primitiveCount++] = value;
+    }
+
+    /**
+     * Append a floating point argument
+     *
+     * @param value Value
+     */
+    void addDouble(double value) {
+        primitiveKinds[primitiveCount] = KIND_DOUBLE;
+        doubles[primitiveCount++] = value;
+    }
+
+    /**
+     * Append a boolean argument
+     *
+     * @param value Value
+     */
+    void addBoolean(boolean value) {
+        primitiveKinds[primitiveCount] = KIND_BOOLEAN;
+        longs[primitiveCount++] = value ? 1 : 0;
+    }
+
+    /**
+     * Get the format arguments as objects, boxing any primitives. This allocates,
+     * so it should only be called from the logger thread.
+     *
+     * @return Format arguments
+     */
+    Object[] getArgs() {
+        if (args != null) {
+            return args;
+        }
+
+        Object[] boxed = new Object[primitiveCount];
+        for (int i = 0; i < primitiveCount; i++) {
+            boxed[i] = getPrimitive(i);
+        }
+        return boxed;
+    }
+
+    /**
+     * Box a single primitive argument. Integral values that fit in an int are
+     * boxed as Integers, so they work with every conversion an int would
+     *
+     * @param index Argument index
+     * @return Boxed argument
+     */
+    Object getPrimitive(int index) {
+        switch (primitiveKinds[index]) {
+            case KIND_DOUBLE:
+                return doubles[index];
+            case KIND_BOOLEAN:
+                return longs[index] != 0;
+            default:
+                long value = longs[index];
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+        }
+    }
+
+    /**
+     * Reset all record contents so stale references can be garbage collected
+     */
+    void clear() {
+        level = null;
+        site = null;
+        format = null;
+        args = null;
+        primitiveCount = 0;
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Output;
+import io.github.frc5024.lib5k.telemetry.ComponentTelemetry;
+import io.github.frc5024.lib5k.telemetry.LatencyHistogram;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+/**
+ * Health counters for the {@link RobotLogger}. These show if logging is keeping
+ * up, and how much it costs, so buffer sizes and rate limits can be tuned from
+ * real data.
+ *
+ * Metrics are published to the "RobotLogger" component table under
+ * "Lib5K-Telemetry" about once per second, and can also be read directly.
+ */
+public final class LoggerMetrics {
+
+    // Counters
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicLongArray bytesWritten = new AtomicLongArray(Output.values().length);
+
+    // Timing
+    private final LatencyHistogram drainLatency = new LatencyHistogram();
+    private final LatencyHistogram formatTime = new LatencyHistogram();
+
+    // Telemetry. Only touched by the logger thread
+    private DoubleField[] fields = null;
+
+    /**
+     * Get the number of logs that have been accepted into the buffer
+     *
+     * @return Enqueued log count
+     */
+    public long getRecordsEnqueued() {
+        return enqueued.sum();
+    }
+
+    /**
+     * Get the number of logs that were lost because the buffer was full
+     *
+     * @return Dropped log count
+     */
+    public long getRecordsDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Get the number of logs that were rejected by a level or rate filter
+     *
+     * @return Filtered log count
+     */
+    public long getRecordsFiltered() {
+        return filtered.sum();
+    }
+
+    /**
+     * Get the most logs that have ever been waiting in the buffer at once
+     *
+     * @return Queue high-water mark
+     */
+    public int getQueueHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Get the number of bytes (or characters, for text outputs) that have been
+     * handed to an output
+     *
+     * @param output Log output
+     * @return Bytes written
+     */
+    public long getBytesWritten(Output output) {
+        return bytesWritten.get(output.ordinal());
+    }
+
+    /**
+     * Get the time between a log being written by robot code, and it being
+     * pushed to the outputs
+     *
+     * @return Drain latency histogram (nanoseconds)
+     */
+    public LatencyHistogram getDrainLatency() {
+        return drainLatency;
+    }
+
+    /**
+     * Get the time spent turning each log into text
+     *
+     * @return Formatting time histogram (nanoseconds)
+     */
+    public LatencyHistogram getFormatTime() {
+        return formatTime;
+    }
+
+    void countEnqueued() {
+        enqueued.increment();
+    }
+
+    void countDropped(long count) {
+        dropped.add(count);
+    }
+
+    void countFiltered() {
+        filtered.increment();
+    }
+
+    void updateQueueDepth(int depth) {
+        highWaterMark.accumulateAndGet(depth, Math::max);
+    }
+
+    void countBytes(Output output, long count) {
+        bytesWritten.addAndGet(output.ordinal(), count);
+    }
+
+    /**
+     * Publish every metric to NetworkTables. Only called from the logger thread
+     *
+     * @param usbLogger USB logger, if one is enabled
+     */
+    void publish(USBLogger usbLogger) {
+
+        // Set up all fields once
+        if (fields == null) {
+            TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent("RobotLogger");
+            String[] names = { "Enqueued", "Dropped", "Filtered", "Queue high-water mark", "Drain latency p50 (ms)",
+                    "Drain latency p99 (ms)", "Drain latency max (ms)", "Format time mean (us)", "Format time p99 (us)",
+                    "Console bytes", "USB bytes", "Binary bytes", "USB write time p99 (ms)" };
+            fields = new DoubleField[names.length];
+            for (int i = 0; i < names.length; i++) {
+                fields[i] = telemetry.doubleField(names[i]);
+            }
+        }
+
+        fields[0].set(getRecordsEnqueued());
+        fields[1].set(getRecordsDropped());
+        fields[2].set(getRecordsFiltered());
+        fields[3].set(getQueueHighWaterMark());
+        fields[4].set(drainLatency.getPercentile(50) / 1e6);
+        fields[5].set(drainLatency.getPercentile(99) / 1e6);
+        fields[6].set(drainLatency.getMax() / 1e6);
+        fields[7].set(formatTime.getMean() / 1e3);
+        fields[8].set(formatTime.getPercentile(99) / 1e3);
+        fields[9].set(getBytesWritten(Output.kConsole));
+        fields[10].set((usbLogger != null) ? usbLogger.getBytesWritten() : 0);
+        fields[11].set(getBytesWritten(Output.kBinary));
+        fields[12].set((usbLogger != null) ? usbLogger.getWriteTime().getPercentile(99) / 1e6 : 0);
+    }
+}
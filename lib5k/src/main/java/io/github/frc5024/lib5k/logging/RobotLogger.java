@@ -2,31 +2,80 @@ package io.github.frc5024.lib5k.logging;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.function.Consumer;
 
-import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.RobotBase;
 import io.github.frc5024.lib5k.utils.annotations.FieldTested;
 import io.github.frc5024.lib5k.utils.annotations.Tested;
 import io.github.frc5024.lib5k.utils.annotations.TestedInSimulation;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
 
 /**
- * A threaded logger for use by all robot functions
+ * A threaded logger for use by all robot functions.
+ *
+ * Log calls from any thread are written into a preallocated, lock-free ring
+ * buffer. A notifier thread periodically drains that buffer and pushes
+ * everything it collected to each output in a single batched write.
+ *
+ * Messages are not formatted by the caller. The format string and arguments
+ * are stored as-is, and are only turned into text on the logger thread if an
+ * output actually wants that log's level.
+ *
+ * The {@code logPrimitive()} methods take one or two numbers or booleans
+ * without boxing them. The caller is still found by walking the stack, so use
+ * a {@link LogChannel} to log from loops without allocating.
  */
 @FieldTested(year = 2019)
 @Tested
 @TestedInSimulation
 public class RobotLogger {
     private static RobotLogger instance = null;
-    private Notifier notifier;
-    ArrayList<String> periodic_buffer = new ArrayList<String>();
+    private ScheduledTask task;
     private USBLogger m_usbLogger;
+    private BinaryLogWriter m_binaryLogger;
     private double bootTime;
 
+    // Buffer sizing
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final int DEBUG_CAPACITY = BUFFER_CAPACITY / 2;
+
+    // Record buffer shared by all producers
+    private final LogBuffer buffer = new LogBuffer(BUFFER_CAPACITY);
+
+    // Resolved call sites
+    private final CallSiteCache callSites = new CallSiteCache();
+
+    // Per-package and per-class filtering
+    private final LogFilter filter = new LogFilter();
+
+    // Minimum severity accepted by each output
+    private final int[] minimumSeverity = new int[Output.values().length];
+
+    // Health metrics
+    private static final long METRICS_PERIOD_NANOS = 1_000_000_000L;
+    private final LoggerMetrics metrics = new LoggerMetrics();
+    private long lastMetricsPublish = System.nanoTime();
+
+    // Drain state. Only touched while holding drainLock
+    private final Object drainLock = new Object();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Formatter formatter = new Formatter(line);
+    private final StringBuilder consoleBatch = new StringBuilder(BUFFER_CAPACITY * 64);
+    private final StringBuilder usbBatch = new StringBuilder(BUFFER_CAPACITY * 64);
+    private final StringBuilder simBatch = new StringBuilder(BUFFER_CAPACITY * 64);
+    private final Consumer<LogRecord> recordWriter = this::writeRecord;
+
     // Simulation logfile
     private FileWriter simWriter;
 
+    // Flight recorder that gets a copy of every debug log, if any
+    private volatile FlightRecorder debugRecorder = null;
+
     /**
      * Log level
      * 
@@ -34,29 +83,75 @@ public class RobotLogger {
      * queued until the next notifier cycle
      */
     public enum Level {
-        kRobot("INFO"), kInfo("INFO"), kWarning("WARNING"), kDebug("DEBUG"), kLibrary("INFO");
+        kRobot("INFO", 1), kInfo("INFO", 1), kWarning("WARNING", 2), kDebug("DEBUG", 0), kLibrary("INFO", 1);
 
         public String name;
+        public int severity;
 
         /**
          * Create a log level
          * 
-         * @param name String name
+         * @param name     String name
+         * @param severity How important the level is. Higher is more important
          */
-        private Level(String name) {
+        private Level(String name, int severity) {
             this.name = name;
+            this.severity = severity;
         }
     }
 
+    /**
+     * Places logs can be written to
+     */
+    public enum Output {
+        /**
+         * NetConsole / stdout
+         */
+        kConsole,
+
+        /**
+         * robot.log in the session directory (see {@link USBLogger})
+         */
+        kUSB,
+
+        /**
+         * FRC_UserProgram.log when running in simulation
+         */
+        kSimulation,
+
+        /**
+         * robot.binlog in the session directory (see {@link BinaryLogWriter})
+         */
+        kBinary;
+    }
+
+    /**
+     * What to do with a new log record when its level's share of the buffer is
+     * full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Throw away the new record. This never stalls the calling thread
+         */
+        kDrop,
+
+        /**
+         * Wait for the logger thread to make room. Records are never lost, but the
+         * calling thread may stall for up to one logger period
+         */
+        kBlock;
+    }
+
     /**
      * Create the RobotLogger instance
      */
     private RobotLogger() {
-        this.notifier = new Notifier(this::pushLogs);
-
         // set boot time
         this.bootTime = (double) System.currentTimeMillis() / 1000.0;
 
+        // Keep chatty debug logs from starving everything else
+        buffer.setLevelCapacity(Level.kDebug, DEBUG_CAPACITY);
+
         // Try to load sim logger
         if (RobotBase.isSimulation()) {
             try {
@@ -79,13 +174,133 @@ public class RobotLogger {
         m_usbLogger = logger;
     }
 
+    /**
+     * Enable logging to a compact binary file in the session directory. Binary
+     * logs can be turned back into text with {@link BinaryLogDecoder}
+     * 
+     * @param writer Binary log writer
+     */
+    public void enableBinaryLogging(BinaryLogWriter writer) {
+        synchronized (drainLock) {
+            m_binaryLogger = writer;
+        }
+    }
+
+    /**
+     * Send a copy of every kDebug log to a flight recorder. Use
+     * {@link FlightRecorder#setRecordingDebugLogs(boolean)} instead of calling
+     * this directly
+     * 
+     * @param recorder Flight recorder, or null to stop
+     */
+    void setDebugRecorder(FlightRecorder recorder) {
+        debugRecorder = recorder;
+    }
+
     /**
      * Start the periodic logger
      * 
      * @param period The logging notifier period time in seconds
      */
     public void start(double period) {
-        this.notifier.startPeriodic(period);
+        buffer.setConsumerRunning(true);
+
+        // Push logs on the background lane
+        if (task == null) {
+            task = RealTimeExecutor.getInstance().schedule("RobotLogger", Lane.kBackground, period, this::pushLogs);
+        } else {
+            task.setPeriod(period);
+        }
+    }
+
+    /**
+     * Set what happens to new logs when the buffer is full. By default, they are
+     * dropped.
+     * 
+     * @param policy Overflow policy
+     */
+    public void setOverflowPolicy(OverflowPolicy policy) {
+        buffer.setOverflowPolicy(policy);
+    }
+
+    /**
+     * Set the maximum number of logs of a single level that can be waiting to be
+     * pushed at once. This keeps a flood of one level (usually kDebug) from
+     * pushing out everything else.
+     * 
+     * @param level    Log level
+     * @param capacity Maximum number of queued logs (capped at the buffer size)
+     */
+    public void setLevelCapacity(Level level, int capacity) {
+        buffer.setLevelCapacity(level, capacity);
+    }
+
+    /**
+     * Set the least important log level an output will accept. By default, every
+     * output accepts every level. Logs that no output accepts are skipped before
+     * they are ever formatted.
+     * 
+     * @param output Log output
+     * @param level  Minimum log level
+     */
+    public void setMinimumLevel(Output output, Level level) {
+        minimumSeverity[output.ordinal()] = level.severity;
+    }
+
+    /**
+     * Set the least important log level that will be logged by every class in a
+     * package, or by a single class. When prefixes overlap, the longest one wins.
+     * This can only hide logs that the outputs would otherwise accept.
+     * 
+     * @param prefix Package or fully qualified class name ("" for everything)
+     * @param level  Minimum log level, or null to remove the setting
+     */
+    public void setMinimumLevel(String prefix, Level level) {
+        filter.setMinimumLevel(prefix, level);
+    }
+
+    /**
+     * Limit how often each method in a package or class may log. Each call site
+     * gets its own budget, which refills at a fixed rate. When a site goes over,
+     * its logs are dropped, and a "Suppressed N messages" log is written the next
+     * time it is allowed through. kRobot logs are never limited.
+     * 
+     * @param prefix            Package or fully qualified class name ("" for
+     *                          everything)
+     * @param messagesPerSecond Sustained logs per second per call site (0 for no
+     *                          limit)
+     * @param burst             Number of logs a call site can write at once before
+     *                          being limited
+     */
+    public void setRateLimit(String prefix, double messagesPerSecond, int burst) {
+        filter.setRateLimit(prefix, messagesPerSecond, burst);
+    }
+
+    /**
+     * Remove every level and rate limit set with {@link #setMinimumLevel(String, Level)}
+     * and {@link #setRateLimit(String, double, int)}
+     */
+    public void clearFilters() {
+        filter.clear();
+    }
+
+    /**
+     * Get the total number of logs that can be waiting to be pushed at once
+     * 
+     * @return Buffer capacity
+     */
+    public int getBufferCapacity() {
+        return buffer.getCapacity();
+    }
+
+    /**
+     * Get the logger's health metrics. These are also published to the
+     * "RobotLogger" telemetry table about once per second
+     * 
+     * @return Logger metrics
+     */
+    public LoggerMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -107,11 +322,15 @@ public class RobotLogger {
      * @param args Format arguments
      */
     public void log(String msg, Object... args) {
-        // Get stack trace
-        StackTraceElement lastMethod = Thread.currentThread().getStackTrace()[2];
+        if (!isWanted(Level.kInfo)) {
+            return;
+        }
+
+        // Find the caller
+        CallSite site = callSites.resolveCaller();
 
         // Log
-        log(lastMethod, Level.kInfo, msg, args);
+        log(site, Level.kInfo, msg, args);
     }
 
     /**
@@ -122,11 +341,325 @@ public class RobotLogger {
      * @param args Format arguments
      */
     public void log(String msg, Level lvl, Object... args) {
-        // Get stack trace
-        StackTraceElement lastMethod = Thread.currentThread().getStackTrace()[2];
+        if (!isWanted(lvl)) {
+            return;
+        }
+
+        // Find the caller
+        CallSite site = callSites.resolveCaller();
 
         // Log
-        log(lastMethod, lvl, msg, args);
+        log(site, lvl, msg, args);
+    }
+
+    /**
+     * Write a log message with a single integral argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, long value) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with a single floating point argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, double value) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with a single boolean argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, boolean value) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with an integral and an integral argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, long a, long b) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with an integral and a floating point argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, long a, double b) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with a floating point and an integral argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, double a, long b) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with a floating point and a floating point argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, double a, double b) {
+        if (isWanted(Level.kInfo)) {
+            logPrimitive(callSites.resolveCaller(), Level.kInfo, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with a single integral argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long value) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with a single floating point argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double value) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with a single boolean argument.
+     * 
+     * @param msg   Log message (String.format style)
+     * @param lvl   Log level
+     * @param value Format argument
+     */
+    public void logPrimitive(String msg, Level lvl, boolean value) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, value);
+        }
+    }
+
+    /**
+     * Write a log message with an integral and an integral argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long a, long b) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with an integral and a floating point argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, long a, double b) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with a floating point and an integral argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double a, long b) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log message with a floating point and a floating point argument.
+     * 
+     * @param msg Log message (String.format style)
+     * @param lvl Log level
+     * @param a   First format argument
+     * @param b   Second format argument
+     */
+    public void logPrimitive(String msg, Level lvl, double a, double b) {
+        if (isWanted(lvl)) {
+            logPrimitive(callSites.resolveCaller(), lvl, msg, a, b);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site  Calling method
+     * @param lvl   Log level
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, long value) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addLong(value);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site  Calling method
+     * @param lvl   Log level
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, double value) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addDouble(value);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site  Calling method
+     * @param lvl   Log level
+     * @param msg   Log message (String.format style)
+     * @param value Format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, boolean value) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addBoolean(value);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site Calling method
+     * @param lvl  Log level
+     * @param msg  Log message (String.format style)
+     * @param a    First format argument
+     * @param b    Second format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, long a, long b) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addLong(a);
+            record.addLong(b);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site Calling method
+     * @param lvl  Log level
+     * @param msg  Log message (String.format style)
+     * @param a    First format argument
+     * @param b    Second format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, long a, double b) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addLong(a);
+            record.addDouble(b);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site Calling method
+     * @param lvl  Log level
+     * @param msg  Log message (String.format style)
+     * @param a    First format argument
+     * @param b    Second format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, double a, long b) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addDouble(a);
+            record.addLong(b);
+            commit(record);
+        }
+    }
+
+    /**
+     * Write a log with unboxed arguments from a known call site. The caller must
+     * check {@link #isWanted(Level)} first
+     * 
+     * @param site Calling method
+     * @param lvl  Log level
+     * @param msg  Log message (String.format style)
+     * @param a    First format argument
+     * @param b    Second format argument
+     */
+    void logPrimitive(CallSite site, Level lvl, String msg, double a, double b) {
+        LogRecord record = begin(site, lvl, msg);
+        if (record != null) {
+            record.addDouble(a);
+            record.addDouble(b);
+            commit(record);
+        }
     }
 
     /**
@@ -139,11 +672,11 @@ public class RobotLogger {
     @Deprecated(since = "July 2020", forRemoval = false)
     public void log(String component, String msg) {
 
-        // Get stack trace
-        StackTraceElement lastMethod = Thread.currentThread().getStackTrace()[2];
+        // Find the caller
+        CallSite site = callSites.resolveCaller();
 
         // Log
-        log(lastMethod, Level.kInfo, msg);
+        log(site, Level.kInfo, msg);
     }
 
     /**
@@ -157,110 +690,266 @@ public class RobotLogger {
     @Deprecated(since = "July 2020", forRemoval = false)
     public void log(String component, String msg, Level log_level) {
 
-        // Get stack trace
-        StackTraceElement lastMethod = Thread.currentThread().getStackTrace()[2];
+        // Find the caller
+        CallSite site = callSites.resolveCaller();
 
         // Log
-        log(lastMethod, log_level, msg);
+        log(site, log_level, msg);
     }
 
     /**
-     * Write a log message to the logfile and message buffer
+     * Get a {@link LogChannel} that is pre-bound to a class and method. Logging
+     * through a channel skips all stack inspection, so this should be preferred
+     * for anything that logs from a periodic loop.
      * 
-     * @param lastMethod Stack trace to calling method
-     * @param lvl        Log level
-     * @param messageF   String.format style string / message
-     * @param args       Any format arguments
+     * @param owner      Class the logs should be attributed to
+     * @param methodName Method (or any other label) the logs should be attributed
+     *                   to
+     * @return LogChannel
      */
-    private void log(StackTraceElement lastMethod, Level lvl, String messageF, Object... args) {
+    public LogChannel getChannel(Class<?> owner, String methodName) {
+        return new LogChannel(this, callSites.get(owner.getName(), methodName));
+    }
 
-        // Build message
-        String message = String.format(messageF, args);
+    /**
+     * Write a log message to the logfile and message buffer
+     * 
+     * @param site     Calling method
+     * @param lvl      Log level
+     * @param messageF String.format style string / message
+     * @param args     Any format arguments
+     */
+    void log(CallSite site, Level lvl, String messageF, Object... args) {
+        LogRecord record = begin(site, lvl, messageF);
+        if (record != null) {
+            record.args = args;
+            commit(record);
+        }
+    }
 
-        // Get the caller's package name
-        String packageName = getPackageName(lastMethod);
+    /**
+     * Check if any active output will accept a log level. This is checked before
+     * any work is done on a new log.
+     * 
+     * @param lvl Log level
+     * @return Is the level wanted?
+     */
+    boolean isWanted(Level lvl) {
+        int severity = lvl.severity;
+        return (lvl == Level.kDebug && debugRecorder != null)
+                || severity >= minimumSeverity[Output.kConsole.ordinal()]
+                || (m_usbLogger != null && severity >= minimumSeverity[Output.kUSB.ordinal()])
+                || (simWriter != null && severity >= minimumSeverity[Output.kSimulation.ordinal()])
+                || (m_binaryLogger != null && severity >= minimumSeverity[Output.kBinary.ordinal()]);
+    }
 
-        // Get the current system time
-        double time = (double) System.currentTimeMillis() / 1000.0;
+    /**
+     * Start a new log record. The caller must add any arguments, then pass the
+     * record to {@link #commit(LogRecord)}.
+     * 
+     * @param site   Calling method
+     * @param lvl    Log level
+     * @param format String.format style string / message
+     * @return Record to fill, or null if the log was filtered or dropped
+     */
+    LogRecord begin(CallSite site, Level lvl, String format) {
 
-        // Determine time-since-boot
-        double tsb = time - this.bootTime;
+        // Apply level and rate filters for this call site
+        if (!filter.accepts(site, lvl)) {
+            metrics.countFiltered();
+            return null;
+        }
 
-        // Build log string
-        String log = String.format("%s at %.2fs: %s -> %s", lvl.name, tsb, packageName, message);
+        // Let the user know about anything the rate limit hid
+        long suppressed = site.takeSuppressed();
+        if (suppressed > 0) {
+            LogRecord summary = createRecord(site, lvl, "Suppressed %d messages");
+            if (summary != null) {
+                summary.addLong(suppressed);
+                commit(summary);
+            }
+        }
 
-        // If the log is robot level, push to console
-        if (lvl.equals(Level.kRobot)) {
+        return createRecord(site, lvl, format);
+    }
 
-            // Write log NOW
-            System.out.println(log);
+    /**
+     * Get an empty record to write a log into, skipping any filters
+     * 
+     * @param site   Calling method
+     * @param lvl    Log level
+     * @param format String.format style string / message
+     * @return Record to fill, or null if the buffer dropped the log
+     */
+    private LogRecord createRecord(CallSite site, Level lvl, String format) {
 
-            // Try to reflect to USB
-            if (m_usbLogger != null) {
-                m_usbLogger.writeln(log);
-            }
+        // Robot level logs skip the buffer, so they get their own record
+        if (lvl == Level.kRobot) {
+            return createUnbufferedRecord(site, lvl, format);
+        }
 
-        } else {
-            // Add log to buffer
-            this.periodic_buffer.add(log);
+        LogRecord record = buffer.claim(lvl);
+        if (record == null) {
+            return null;
         }
+        return fillRecord(record, site, format);
+    }
 
-        // If simulation, write to sim file
-        if (RobotBase.isSimulation() && simWriter != null) {
-            try {
-                simWriter.append(log + "\n");
-                simWriter.flush();
-            } catch (IOException e) {
-                System.out.println("Failed to reflect sim log");
+    /**
+     * Allocate a record that is written directly, instead of going through the
+     * buffer
+     * 
+     * @param site   Calling method
+     * @param lvl    Log level
+     * @param format String.format style string / message
+     * @return Record to fill
+     */
+    private LogRecord createUnbufferedRecord(CallSite site, Level lvl, String format) {
+        LogRecord record = new LogRecord();
+        record.level = lvl;
+        return fillRecord(record, site, format);
+    }
+
+    /**
+     * Fill in the time, call site and format of a record
+     * 
+     * @param record Record
+     * @param site   Calling method
+     * @param format String.format style string / message
+     * @return The same record
+     */
+    private LogRecord fillRecord(LogRecord record, CallSite site, String format) {
+
+        // Determine time-since-boot
+        record.timestamp = ((double) System.currentTimeMillis() / 1000.0) - this.bootTime;
+        record.createdNanos = System.nanoTime();
+        record.site = site;
+        record.format = format;
+        return record;
+    }
+
+    /**
+     * Hand a filled record to the logger
+     * 
+     * @param record Record returned by {@link #begin(CallSite, Level, String)}
+     */
+    void commit(LogRecord record) {
+        metrics.countEnqueued();
+
+        // If the log is robot level, push to outputs NOW
+        if (record.level == Level.kRobot) {
+            synchronized (drainLock) {
+                writeRecord(record);
+                flushOutputs();
             }
+        } else {
+            buffer.publish(record);
         }
+    }
 
+    /**
+     * Check if an output wants a log level
+     * 
+     * @param output Log output
+     * @param lvl    Log level
+     * @return Does the output accept the level?
+     */
+    private boolean accepts(Output output, Level lvl) {
+        return lvl.severity >= minimumSeverity[output.ordinal()];
     }
 
     /**
-     * Gets a friendly package name for a StackTraceElement
+     * Send a record to every output that wants it. Must be called while holding
+     * drainLock.
      * 
-     * @param element Element to get name for
-     * @return Friendly Name
+     * @param record Record
      */
-    protected static String getPackageName(StackTraceElement element) {
+    private void writeRecord(LogRecord record) {
+        Level lvl = record.level;
+        metrics.getDrainLatency().record(System.nanoTime() - record.createdNanos);
 
-        // Build the package and method string
-        String fullPackageName = element.getClassName();
-        String[] packageSegments = fullPackageName.split("[.]");
-        StringBuilder packageNameBuilder = new StringBuilder();
+        // Copy debug logs to the flight recorder here, so callers don't pay for it
+        FlightRecorder recorder = debugRecorder;
+        if (recorder != null && lvl == Level.kDebug) {
+            recorder.recordLog(record);
+        }
 
-        // Handle the package name being too short
-        if (packageSegments.length <= 3) {
+        // Figure out who needs text
+        boolean toConsole = accepts(Output.kConsole, lvl);
+        boolean toUSB = m_usbLogger != null && accepts(Output.kUSB, lvl);
+        boolean toSim = simWriter != null && accepts(Output.kSimulation, lvl);
 
-            // Just build the full package name
-            packageNameBuilder.append(fullPackageName);
+        // Only format the record if someone will read it
+        if (toConsole || toUSB || toSim) {
+            long start = System.nanoTime();
+            line.setLength(0);
+            appendLine(record);
+            metrics.getFormatTime().record(System.nanoTime() - start);
 
-        } else {
-            // The idea here is to turn a package name that might look like:
-            // io.github.frc5024.y2020.darthraider.commands.autonomous.actions.cells.SetShooterOutput
-            // Into one that looks like:
-            // io...cells.SetShooterOutput
+            if (toConsole) {
+                consoleBatch.append(line);
+            }
+            if (toUSB) {
+                usbBatch.append(line);
+            }
+            if (toSim) {
+                simBatch.append(line);
+            }
+        }
 
-            // Append the root package
-            packageNameBuilder.append(packageSegments[0]);
+        // The binary log takes raw records
+        if (m_binaryLogger != null && accepts(Output.kBinary, lvl)) {
+            m_binaryLogger.write(record);
+        }
+    }
 
-            // Append the seperator
-            packageNameBuilder.append("...");
+    /**
+     * Append a single formatted log line to the line buffer
+     * 
+     * @param record Record to format
+     */
+    private void appendLine(LogRecord record) {
+        line.append(record.level.name).append(" at ");
+        FastFormat.appendFixed(line, record.timestamp, 2);
+        line.append("s: ").append(record.site.name).append(" -> ");
+        appendMessage(record);
+        line.append('\n');
+    }
 
-            // Append the class's parent package
-            packageNameBuilder.append(packageSegments[packageSegments.length - 2]);
-            packageNameBuilder.append(".");
+    /**
+     * Format a record's message into the line buffer
+     * 
+     * @param record Record to format
+     */
+    private void appendMessage(LogRecord record) {
+        String format = record.format;
+        int argCount = (record.args != null) ? record.args.length : record.primitiveCount;
 
-            // Append the class name
-            packageNameBuilder.append(packageSegments[packageSegments.length - 1]);
+        // Messages with nothing to format are copied directly
+        if (argCount == 0 && format.indexOf('%') < 0) {
+            line.append(format);
+            return;
         }
 
-        // Get the method name
-        String methodName = element.getMethodName();
-
-        return String.format("%s::%s()", packageNameBuilder.toString(), methodName.toString());
+        // Format the message. Bad format strings are shown raw instead of being lost
+        int start = line.length();
+        Object[] args = record.getArgs();
+        try {
+            formatter.format(format, args);
+        } catch (IllegalFormatException e) {
+            line.setLength(start);
+            line.append(format).append(' ').append(Arrays.toString(args));
+        }
+    }
 
+    /**
+     * Gets a friendly package name for a StackTraceElement
+     * 
+     * @param element Element to get name for
+     * @return Friendly Name
+     */
+    protected static String getPackageName(StackTraceElement element) {
+        return CallSite.format(element.getClassName(), element.getMethodName());
     }
 
     /**
@@ -274,21 +963,72 @@ public class RobotLogger {
      * Push all queued messages to netconsole, the clear the buffer
      */
     private void pushLogs() {
-        try {
-            for (String x : this.periodic_buffer) {
+        synchronized (drainLock) {
+
+            // Collect everything that has been logged since the last push
+            metrics.updateQueueDepth(buffer.size());
+            long dropped = buffer.takeDroppedCount();
+            metrics.countDropped(dropped);
+            buffer.drain(recordWriter);
+
+            // Let the user know if the buffer overflowed
+            if (dropped > 0) {
+                LogRecord warning = createUnbufferedRecord(callSites.get(RobotLogger.class.getName(), "pushLogs"),
+                        Level.kWarning, "Log buffer overflowed. Dropped %d messages");
+                warning.addLong(dropped);
+                writeRecord(warning);
+            }
 
-                System.out.println(x);
+            flushOutputs();
 
-                // Check if we should log to USB
-                if (m_usbLogger != null) {
-                    m_usbLogger.writeln(x);
-                }
+            // Publish health metrics
+            long now = System.nanoTime();
+            if (now - lastMetricsPublish >= METRICS_PERIOD_NANOS) {
+                metrics.publish(m_usbLogger);
+                lastMetricsPublish = now;
             }
-            periodic_buffer.clear();
-        } catch (Exception e) {
-            System.out.println("Tried to push concurrently");
         }
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Write each output's batch in a single write, then clear it. Must be called
+     * while holding drainLock.
+     */
+    private void flushOutputs() {
+
+        // Hand any binary records to the file writer
+        if (m_binaryLogger != null) {
+            metrics.countBytes(Output.kBinary, m_binaryLogger.submit());
+        }
+
+        // Push to netconsole
+        if (consoleBatch.length() > 0) {
+            metrics.countBytes(Output.kConsole, consoleBatch.length());
+            System.out.print(consoleBatch);
+            consoleBatch.setLength(0);
+        }
+
+        // Check if we should log to USB
+        if (usbBatch.length() > 0) {
+            if (m_usbLogger != null) {
+                metrics.countBytes(Output.kUSB, usbBatch.length());
+                m_usbLogger.write(usbBatch);
+            }
+            usbBatch.setLength(0);
+        }
+
+        // If simulation, write to sim file
+        if (simBatch.length() > 0) {
+            metrics.countBytes(Output.kSimulation, simBatch.length());
+            try {
+                simWriter.append(simBatch);
+                simWriter.flush();
+            } catch (IOException e) {
+                System.out.println("Failed to reflect sim log");
+            }
+            simBatch.setLength(0);
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+package io.github.frc5024.lib5k.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes batches of text to a {@link FileChannel}. Each batch is encoded into a
+ * set of reusable direct buffers, then handed to the OS in a single gathered
+ * write. This is not thread safe, and is meant to be owned by a single writer
+ * thread.
+ *
+ * Text can optionally be GZIP compressed as it is written. Every batch is
+ * flushed through the compressor, so a file cut off by a power loss can still be
+ * decompressed up to the last batch.
+ */
+final class TextFileChannel implements AutoCloseable {
+
+    // Size of each chunk of the encode buffer
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    // GZIP header for a deflate stream with no extra fields, from an unknown OS
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final FileChannel m_channel;
+
+    // Encoding state
+    private final CharsetEncoder m_encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private ByteBuffer[] m_chunks = { ByteBuffer.allocateDirect(CHUNK_SIZE) };
+
+    // Compression state. Only used when compressing
+    private Deflater m_deflater = null;
+    private CRC32 m_crc = null;
+    private ByteBuffer m_compressed = null;
+    private long m_uncompressedSize = 0;
+
+    // Set when data has been written since the last sync
+    private boolean m_unsynced = false;
+
+    /**
+     * Create a TextFileChannel
+     *
+     * @param channel Channel to write to
+     */
+    TextFileChannel(FileChannel channel) {
+        this.m_channel = channel;
+    }
+
+    /**
+     * Create a TextFileChannel
+     *
+     * @param channel  Channel to write to
+     * @param compress Should the text be written as a GZIP stream?
+     * @throws IOException Thrown if the GZIP header can't be written
+     */
+    TextFileChannel(FileChannel channel, boolean compress) throws IOException {
+        this(channel);
+
+        if (compress) {
+            m_deflater = new Deflater(Deflater.BEST_SPEED, true);
+            m_crc = new CRC32();
+            m_compressed = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            writeFully(ByteBuffer.wrap(GZIP_HEADER));
+        }
+    }
+
+    /**
+     * Write a batch of text in one write
+     *
+     * @param text Text to write
+     * @return Number of encoded (uncompressed) bytes written
+     * @throws IOException Thrown if the write fails
+     */
+    long write(CharSequence text) throws IOException {
+        if (text.length() == 0) {
+            return 0;
+        }
+
+        // Encode, then write everything out
+        int used = encode(text);
+        long encoded = 0;
+        for (int i = 0; i < used; i++) {
+            encoded += m_chunks[i].remaining();
+        }
+        if (m_deflater != null) {
+            writeCompressed(used);
+        } else {
+            long remaining = encoded;
+            while (remaining > 0) {
+                remaining -= m_channel.write(m_chunks, 0, used);
+            }
+        }
+        m_unsynced = true;
+        return encoded;
+    }
+
+    /**
+     * Compress and write encoded chunks
+     *
+     * @param used Number of chunks to write
+     * @throws IOException Thrown if the write fails
+     */
+    private void writeCompressed(int used) throws IOException {
+        for (int i = 0; i < used; i++) {
+            ByteBuffer chunk = m_chunks[i];
+            m_uncompressedSize += chunk.remaining();
+            m_crc.update(chunk.duplicate());
+
+            // Feed the whole chunk through the compressor
+            m_deflater.setInput(chunk);
+            while (!m_deflater.needsInput()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+        }
+
+        // Push out everything the compressor is holding on to
+        int produced;
+        do {
+            produced = deflate(Deflater.SYNC_FLUSH);
+        } while (produced == m_compressed.capacity());
+    }
+
+    /**
+     * Run the compressor once, and write whatever it produced
+     *
+     * @param flush Deflater flush mode
+     * @return Number of compressed bytes produced
+     * @throws IOException Thrown if the write fails
+     */
+    private int deflate(int flush) throws IOException {
+        m_compressed.clear();
+        int count = m_deflater.deflate(m_compressed, flush);
+        m_compressed.flip();
+        writeFully(m_compressed);
+        return count;
+    }
+
+    /**
+     * Write an entire buffer to the channel
+     *
+     * @param buffer Buffer to write
+     * @throws IOException Thrown if the write fails
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            m_channel.write(buffer);
+        }
+    }
+
+    /**
+     * Check if anything has been written since the last {@link #sync()}
+     *
+     * @return Is there un-synced data?
+     */
+    boolean isUnsynced() {
+        return m_unsynced;
+    }
+
+    /**
+     * Force everything written so far out to the storage device
+     *
+     * @throws IOException Thrown if the sync fails
+     */
+    void sync() throws IOException {
+        m_channel.force(false);
+        m_unsynced = false;
+    }
+
+    /**
+     * Encode text into the chunk buffers, adding chunks if needed. The used chunks
+     * are left ready to be written.
+     *
+     * @param text Text to encode
+     * @return Number of chunks used
+     */
+    private int encode(CharSequence text) {
+        CharBuffer input = CharBuffer.wrap(text);
+        m_encoder.reset();
+
+        int chunk = 0;
+        m_chunks[0].clear();
+        boolean flushing = false;
+        while (true) {
+            CoderResult result = flushing ? m_encoder.flush(m_chunks[chunk])
+                    : m_encoder.encode(input, m_chunks[chunk], true);
+
+            // Once all input is encoded, flush anything the encoder is holding on to
+            if (result.isUnderflow()) {
+                if (flushing) {
+                    break;
+                }
+                flushing = true;
+                continue;
+            }
+
+            // Move on to the next chunk, making a new one if this is the biggest batch
+            // so far
+            chunk++;
+            if (chunk == m_chunks.length) {
+                m_chunks = Arrays.copyOf(m_chunks, chunk + 1);
+                m_chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            }
+            m_chunks[chunk].clear();
+        }
+
+        // Get every used chunk ready to be read from
+        for (int i = 0; i <= chunk; i++) {
+            m_chunks[i].flip();
+        }
+        return chunk + 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        // Finish the GZIP stream
+        if (m_deflater != null) {
+            m_deflater.finish();
+            while (!m_deflater.finished()) {
+                deflate(Deflater.NO_FLUSH);
+            }
+            m_deflater.end();
+
+            // The trailer holds the checksum and size of the original data
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) m_crc.getValue());
+            trailer.putInt((int) m_uncompressedSize);
+            trailer.flip();
+            writeFully(trailer);
+            m_unsynced = true;
+        }
+
+        if (m_unsynced) {
+            sync();
+        }
+        m_channel.close();
+    }
+}
@@ -1,32 +1,50 @@
 package io.github.frc5024.lib5k.logging;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.Notifier;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.LatencyHistogram;
 import io.github.frc5024.lib5k.utils.FileManagement;
+import io.github.frc5024.lib5k.utils.SessionStore;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
 
 /**
  * The USBLogger is a class that is used to save a copy of all logs written to
  * {@link RobotLogger} to their own file. This saved file is located in
- * "robot.log" in the current session directory (see {@link FileManagement}).
- * 
+ * "robot.log" in the current session directory (see {@link FileManagement}),
+ * or "robot.log.gz" if {@link SessionStore} is compressing new files.
+ *
+ * Logs are collected in memory, and written to the USB stick in a single write
+ * every update. Data is forced out to the stick itself less often (see
+ * {@link #setSyncPeriod(double)}), since that is the slowest part of writing to
+ * a USB stick.
+ *
  * To link a USBLogger object to RobotLogger, use
  * RobotLogger.getInstance().enableUSBLogging()
  */
 public class USBLogger implements AutoCloseable {
 
-    private Notifier m_thread;
-    private ArrayList<String> m_messageBuffer = new ArrayList<>();
-    private FileWriter m_file;
+    private ScheduledTask m_thread;
+    private StringBuilder m_messageBuffer = new StringBuilder();
+    private StringBuilder m_writeBuffer = new StringBuilder();
+    private final Object m_bufferLock = new Object();
+    private TextFileChannel m_file;
+
+    // Sync state
+    private volatile long m_syncPeriodNanos = 5_000_000_000L;
+    private long m_lastSync = System.nanoTime();
+
+    // Metrics
+    private final AtomicLong m_bytesWritten = new AtomicLong();
+    private final LatencyHistogram m_writeTime = new LatencyHistogram();
 
     /**
      * Deprecated
-     * 
+     *
      * @param unused Unused value
      */
     @Deprecated(since = "July 2020", forRemoval = true)
@@ -39,65 +57,128 @@ public class USBLogger implements AutoCloseable {
      */
     public USBLogger() {
 
-        // Create file writer
+        // Open the logfile, compressing it if the session store wants
         try {
-            m_file = FileManagement.createFileWriter("robot.log");
+            boolean compress = SessionStore.getInstance().isCompressingNewFiles();
+            m_file = new TextFileChannel(FileManagement.createFileChannel(compress ? "robot.log.gz" : "robot.log"),
+                    compress);
         } catch (IOException e) {
             RobotLogger.getInstance().log("Failed to create robot.log file!!", Level.kWarning);
         }
 
         // Start the thread
-        m_thread = new Notifier(this::update);
-        m_thread.startPeriodic(0.5);
+        m_thread = RealTimeExecutor.getInstance().schedule("USBLogger", Lane.kFileIO, 0.5, this::update);
+
+    }
+
+    /**
+     * Set how often written logs are forced out to the USB stick. Logs are always
+     * handed to the OS every update, but are only guaranteed to survive a power
+     * loss once they have been synced. Set to 0 to sync every update.
+     *
+     * @param seconds Time between syncs in seconds
+     */
+    public void setSyncPeriod(double seconds) {
+        m_syncPeriodNanos = (long) (seconds * 1e9);
+    }
 
+    /**
+     * Get the number of bytes written to robot.log so far (before any
+     * compression)
+     *
+     * @return Bytes written
+     */
+    public long getBytesWritten() {
+        return m_bytesWritten.get();
+    }
+
+    /**
+     * Get the time spent in each update writing (and syncing) to the USB stick
+     *
+     * @return Write time histogram (nanoseconds)
+     */
+    public LatencyHistogram getWriteTime() {
+        return m_writeTime;
     }
 
     /**
      * Write a line to the USB log
-     * 
+     *
      * @param line Line to write
      */
     protected void writeln(String line) {
-        m_messageBuffer.add(line);
+        synchronized (m_bufferLock) {
+            m_messageBuffer.append(line).append('\n');
+        }
+    }
+
+    /**
+     * Write a batch of already newline-terminated lines to the USB log
+     *
+     * @param lines Lines to write
+     */
+    void write(CharSequence lines) {
+        synchronized (m_bufferLock) {
+            m_messageBuffer.append(lines);
+        }
     }
 
     /**
      * Update the USB logs
      */
-    private void update() {
+    private synchronized void update() {
 
         // Check if a USB storage device is connected to the RoboRIO
         boolean usbAttached = FileManagement.isUSBAttached();
-        if (!usbAttached) {
+        if (!usbAttached || m_file == null) {
 
             // Stop the logging by blocking the thread
             return;
 
         }
 
-        // Write data buffer to logfile
+        // Swap buffers so writers are never blocked by file IO
+        synchronized (m_bufferLock) {
+            StringBuilder filled = m_messageBuffer;
+            m_messageBuffer = m_writeBuffer;
+            m_writeBuffer = filled;
+        }
+
+        long start = System.nanoTime();
         try {
-            if (m_file != null) {
-                for (String line : m_messageBuffer) {
-                    m_file.append(String.format("%s%n", line));
-                    m_file.flush();
-                }
+
+            // Write data buffer to logfile in one go
+            m_bytesWritten.addAndGet(m_file.write(m_writeBuffer));
+
+            // Push data out to the stick itself if it is time to
+            long now = System.nanoTime();
+            if (m_file.isUnsynced() && now - m_lastSync >= m_syncPeriodNanos) {
+                m_file.sync();
+                m_lastSync = now;
             }
+
+            // Only time updates that did something
+            if (m_writeBuffer.length() > 0) {
+                m_writeTime.record(System.nanoTime() - start);
+            }
+
         } catch (IOException e) {
             DriverStation.reportError("Failed to write message buffer to USB", true);
-        } catch (ConcurrentModificationException e) {
-            RobotLogger.getInstance().log("A CMOD occured");
         }
 
-        // Clear the message buffer
-        m_messageBuffer.clear();
+        // Clear the write buffer
+        m_writeBuffer.setLength(0);
 
     }
 
     @Override
     public void close() throws IOException {
+        m_thread.cancel();
+
+        // Write anything still waiting, then make sure it is on the stick
+        update();
         if (m_file != null) {
             m_file.close();
         }
     }
-}
\ No newline at end of file
+}
@@ -39,4 +39,15 @@ public class ComponentTelemetry {
                 .getSubTable(componentName);
 
     }
+
+    /**
+     * Get a TelemetryChannel for a component. Fields should be created from it
+     * once, then reused every update
+     *
+     * @param componentName Component name
+     * @return Component channel
+     */
+    public TelemetryChannel getChannelForComponent(String componentName) {
+        return new TelemetryChannel(getTableForComponent(componentName));
+    }
 }
\ No newline at end of file
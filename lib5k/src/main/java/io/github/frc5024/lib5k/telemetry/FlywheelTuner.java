@@ -1,26 +1,72 @@
 package io.github.frc5024.lib5k.telemetry;
 
+import java.util.Arrays;
 import java.util.function.DoubleSupplier;
 
-import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
 
 /**
- * A utility class for providing data to a robot telemetry client
+ * A utility class for providing data to a robot telemetry client.
+ *
+ * With capture mode enabled, the rpm source is sampled at a high rate by the
+ * {@link SignalSampler}, and every setpoint change is analyzed as a step
+ * response (see {@link StepResponseAnalyzer}). The rise time, overshoot,
+ * settling time, steady-state error, and shot recovery time are published
+ * along with a downsampled trace of the response, so gains can be tuned
+ * without pulling logs off the robot.
  */
 public class FlywheelTuner {
 
+    // Length of the captured trace, and the number of points it is published with
+    private static final double CAPTURE_SECONDS = 4.0;
+    private static final int TRACE_POINTS = 100;
+
+    /**
+     * A setpoint change, handed from the caller's thread to the analysis thread
+     */
+    private static final class Step {
+        final double setpoint;
+        final long timeMicros;
+
+        Step(double setpoint, long timeMicros) {
+            this.setpoint = setpoint;
+            this.timeMicros = timeMicros;
+        }
+    }
+
+    private String name;
+
     // Loop trackers
     private boolean m_enabled, m_doLogs = false;
 
     // RPM supplier
     private DoubleSupplier m_rpmSource;
 
-    // Component telemetry table
-    private NetworkTable m_telemTable;
+    // Component telemetry fields
+    private BooleanField m_enabledField, m_runningField;
+    private DoubleField m_rpmField, m_setpointField;
 
     // Tracker for system setpoints
     private double setpoint = 0.0;
 
+    // Capture mode
+    private Signal m_signal = null;
+    private StepResponseAnalyzer m_analyzer;
+    private volatile Step m_pendingStep = null;
+    private double m_lastSample = Double.NaN;
+
+    // Capture telemetry. Only touched by the analysis thread
+    private DoubleField m_riseTimeField, m_overshootField, m_settlingTimeField, m_steadyStateErrorField,
+            m_recoveryTimeField, m_dipField;
+    private NetworkTableEntry m_traceTimeEntry, m_traceRpmEntry;
+    private double[] m_traceTimes = new double[TRACE_POINTS];
+    private double[] m_traceValues = new double[TRACE_POINTS];
+    private int m_publishedTraceLength = 0;
+
     /**
      * Create a FlywheelTuner server
      * 
@@ -28,11 +74,104 @@ public class FlywheelTuner {
      * @param rpmSource RPM supplier
      */
     public FlywheelTuner(String name, DoubleSupplier rpmSource) {
+        this.name = name;
         this.m_rpmSource = rpmSource;
 
         // Connect to component telemetry
-        m_telemTable = ComponentTelemetry.getInstance().getTableForComponent(String.format("FlywheelTuner-%s", name));
+        TelemetryChannel telemetry = ComponentTelemetry.getInstance()
+                .getChannelForComponent(String.format("FlywheelTuner-%s", name));
+        m_enabledField = telemetry.booleanField("enabled");
+        m_runningField = telemetry.booleanField("running");
+        m_rpmField = telemetry.doubleField("rpm");
+        m_setpointField = telemetry.doubleField("setpoint");
+        m_riseTimeField = telemetry.doubleField("rise time (s)");
+        m_overshootField = telemetry.doubleField("overshoot (%)");
+        m_settlingTimeField = telemetry.doubleField("settling time (s)");
+        m_steadyStateErrorField = telemetry.doubleField("steady-state error");
+        m_recoveryTimeField = telemetry.doubleField("recovery time (s)");
+        m_dipField = telemetry.doubleField("dip");
+        m_traceTimeEntry = telemetry.getTable().getEntry("trace time");
+        m_traceRpmEntry = telemetry.getTable().getEntry("trace rpm");
+
+    }
+
+    /**
+     * Start capture mode. The rpm source will be sampled from a background thread
+     * from now on, so it must be thread-safe
+     * 
+     * @param hz Sample rate in Hz (up to {@link SignalSampler#MAX_RATE})
+     */
+    public void enableCapture(double hz) {
+        if (m_signal != null) {
+            return;
+        }
+
+        m_analyzer = new StepResponseAnalyzer((int) Math.ceil(hz * CAPTURE_SECONDS));
+        m_signal = SignalSampler.getInstance().register(String.format("FlywheelTuner-%s", name), m_rpmSource, hz);
+        m_signal.addConsumer((signal, timestamps, values, count) -> analyze(timestamps, values, count));
+    }
+
+    /**
+     * Stop capture mode
+     */
+    public void disableCapture() {
+        if (m_signal != null) {
+            m_signal.close();
+            m_signal = null;
+        }
+    }
 
+    /**
+     * Get the step response analysis. Only valid in capture mode
+     * 
+     * @return Analyzer, or null if capture mode was never enabled
+     */
+    public StepResponseAnalyzer getAnalyzer() {
+        return m_analyzer;
+    }
+
+    /**
+     * Analyze a batch of samples. Called from the sampler's drain thread
+     * 
+     * @param timestamps Sample times in microseconds
+     * @param values     Sample rpms
+     * @param count      Number of samples
+     */
+    private void analyze(long[] timestamps, double[] values, int count) {
+        for (int i = 0; i < count; i++) {
+
+            // Start a new step once the samples reach the setpoint change
+            Step step = m_pendingStep;
+            if (step != null && timestamps[i] >= step.timeMicros) {
+                m_pendingStep = null;
+                m_analyzer.start(Double.isNaN(m_lastSample) ? values[i] : m_lastSample, step.setpoint,
+                        step.timeMicros);
+                m_publishedTraceLength = 0;
+            }
+
+            m_analyzer.add(timestamps[i], values[i]);
+            m_lastSample = values[i];
+        }
+
+        if (!m_analyzer.isRunning()) {
+            return;
+        }
+
+        // Publish the metrics
+        m_riseTimeField.set(m_analyzer.getRiseTime());
+        m_overshootField.set(m_analyzer.getOvershoot());
+        m_settlingTimeField.set(m_analyzer.getSettlingTime());
+        m_steadyStateErrorField.set(m_analyzer.getSteadyStateError());
+        m_recoveryTimeField.set(m_analyzer.getRecoveryTime());
+        m_dipField.set(m_analyzer.getDipDepth());
+
+        // Publish the trace while it is still growing
+        if (m_analyzer.getTraceLength() != m_publishedTraceLength) {
+            m_publishedTraceLength = m_analyzer.getTraceLength();
+            int points = m_analyzer.downsampleTrace(m_traceTimes, m_traceValues);
+            m_traceTimeEntry.setDoubleArray(Arrays.copyOf(m_traceTimes, points));
+            m_traceRpmEntry.setDoubleArray(Arrays.copyOf(m_traceValues, points));
+        }
     }
 
     /**
@@ -42,7 +181,7 @@ public class FlywheelTuner {
      */
     public void setEnabled(boolean enabled) {
         m_enabled = enabled;
-        m_telemTable.getEntry("enabled").setBoolean(enabled);
+        m_enabledField.set(enabled);
 
     }
 
@@ -62,6 +201,12 @@ public class FlywheelTuner {
      * @param setpoint Setpoint
      */
     public void setSetpoint(double setpoint) {
+
+        // In capture mode, every change starts a new step response
+        if (m_signal != null && setpoint != this.setpoint) {
+            m_pendingStep = new Step(setpoint, (long) (FPGAClock.getFPGASeconds() * 1e6));
+        }
+
         this.setpoint = setpoint;
     }
 
@@ -73,12 +218,12 @@ public class FlywheelTuner {
         if (m_enabled) {
 
             // Publish the logger state
-            m_telemTable.getEntry("running").setBoolean(m_doLogs);
+            m_runningField.set(m_doLogs);
 
             // If we should be logging, publish the rpm data
             if (m_doLogs) {
-                m_telemTable.getEntry("rpm").setDouble(m_rpmSource.getAsDouble());
-                m_telemTable.getEntry("setpoint").setDouble(setpoint);
+                m_rpmField.set(m_rpmSource.getAsDouble());
+                m_setpointField.set(setpoint);
             }
         }
 
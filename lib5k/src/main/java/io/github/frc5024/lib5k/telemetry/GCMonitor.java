@@ -0,0 +1,353 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import io.github.frc5024.lib5k.logging.Loggable;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+/**
+ * The GCMonitor measures how the Java garbage collector affects the main loop.
+ * It records every GC pause, the heap and young generation occupancy, and how
+ * many bytes the main thread allocates per loop. Loop iterations that overrun
+ * while a collection happened are counted separately, so it is easy to tell if
+ * GC is the cause of an overrun, and if allocation-reduction work is paying
+ * off.
+ *
+ * Reading the allocation counter allocates a little itself on some JVMs (JDK
+ * 11 does). This is measured when the monitor is created, and subtracted from
+ * every iteration.
+ *
+ * {@link io.github.frc5024.lib5k.autonomous.RobotProgram} starts the monitor
+ * and marks its loop iterations. Stats are published to the "GC" component
+ * table, and logged by {@link #logStatus()}.
+ */
+public class GCMonitor implements Loggable {
+    private static GCMonitor instance = null;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // JVM beans. Looked up once
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final GarbageCollectorMXBean[] collectors;
+    private final MemoryPoolMXBean youngGen;
+    private final com.sun.management.ThreadMXBean threads;
+
+    // Bytes allocated by reading the allocation counter twice
+    private final long measurementBias;
+
+    // Number of counter reads used to measure the bias
+    private static final int BIAS_SAMPLES = 16;
+
+    // Loop state. Only touched by the loop thread
+    private volatile long loopPeriodNanos = 0;
+    private long loopThreadId = -1;
+    private long iterationStart = 0;
+    private long iterationCollections = 0;
+    private long iterationAllocated = 0;
+
+    // Pauses
+    private final LatencyHistogram pauses = new LatencyHistogram();
+
+    // Loop stats
+    private final AtomicLong loops = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong overrunsWithGC = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong maxAllocatedBytes = new AtomicLong();
+
+    // Telemetry. Only touched by updateTelemetry(), on the main robot thread
+    private DoubleField[] fields = null;
+    private long lastLoops = 0;
+    private long lastAllocatedBytes = 0;
+
+    GCMonitor() {
+        List<GarbageCollectorMXBean> collectorList = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors = collectorList.toArray(new GarbageCollectorMXBean[0]);
+
+        // Find the young generation pool. Its name depends on the collector in use
+        MemoryPoolMXBean young = null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (pool.getType() == MemoryType.HEAP
+                    && (name.contains("Eden") || name.contains("Young") || name.contains("Nursery"))) {
+                young = pool;
+                break;
+            }
+        }
+        youngGen = young;
+
+        // Per-thread allocation counts are a HotSpot extension
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) threadBean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+            measurementBias = measureBias(threads);
+        } else {
+            threads = null;
+            measurementBias = 0;
+            logger.log("Per-thread allocation tracking is not supported by this JVM", Level.kWarning);
+        }
+
+        // Listen for every collection
+        for (GarbageCollectorMXBean collector : collectors) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                            .equals(notification.getType())) {
+                        handleCollection(GarbageCollectionNotificationInfo
+                                .from((CompositeData) notification.getUserData()));
+                    }
+                }, null, null);
+            }
+        }
+    }
+
+    /**
+     * Find how many bytes a pair of allocation counter reads allocates on their
+     * own. The smallest of several tries is used, so the counter's own warm-up
+     * doesn't count
+     *
+     * @param threads Thread bean
+     * @return Bytes
+     */
+    private static long measureBias(com.sun.management.ThreadMXBean threads) {
+        long id = Thread.currentThread().getId();
+        long bias = Long.MAX_VALUE;
+        for (int i = 0; i < BIAS_SAMPLES; i++) {
+            long start = threads.getThreadAllocatedBytes(id);
+            long end = threads.getThreadAllocatedBytes(id);
+            bias = Math.min(bias, end - start);
+        }
+        return Math.max(0, bias);
+    }
+
+    /**
+     * Get the GCMonitor instance
+     *
+     * @return GCMonitor
+     */
+    public static synchronized GCMonitor getInstance() {
+        if (instance == null) {
+            instance = new GCMonitor();
+        }
+        return instance;
+    }
+
+    /**
+     * Set the loop period. Iterations that take longer than this are counted as
+     * overruns
+     *
+     * @param periodSeconds Loop period in seconds
+     */
+    public void setLoopPeriod(double periodSeconds) {
+        this.loopPeriodNanos = (long) (periodSeconds * 1e9);
+    }
+
+    /**
+     * Mark the start of a loop iteration. This must always be called from the
+     * same thread. Calling this again before {@link #endIteration()} has no effect
+     */
+    public void startIteration() {
+        if (iterationStart != 0) {
+            return;
+        }
+
+        if (loopThreadId == -1) {
+            loopThreadId = Thread.currentThread().getId();
+        }
+
+        iterationCollections = getCollectionCount();
+        iterationAllocated = getAllocatedBytes();
+        iterationStart = System.nanoTime();
+    }
+
+    /**
+     * Mark the end of a loop iteration
+     */
+    public void endIteration() {
+        if (iterationStart == 0) {
+            return;
+        }
+
+        long duration = System.nanoTime() - iterationStart;
+        iterationStart = 0;
+        loops.incrementAndGet();
+
+        // Track allocation, minus what reading the counter cost
+        long allocated = Math.max(0, getAllocatedBytes() - iterationAllocated - measurementBias);
+        allocatedBytes.addAndGet(allocated);
+        long currentMax = maxAllocatedBytes.get();
+        while (allocated > currentMax && !maxAllocatedBytes.compareAndSet(currentMax, allocated)) {
+            currentMax = maxAllocatedBytes.get();
+        }
+
+        // Check if a collection happened during an overrun
+        long period = loopPeriodNanos;
+        if (period > 0 && duration > period) {
+            overruns.incrementAndGet();
+            if (getCollectionCount() != iterationCollections) {
+                overrunsWithGC.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Record a collection
+     *
+     * @param info Collection info
+     */
+    private void handleCollection(GarbageCollectionNotificationInfo info) {
+        long durationMillis = info.getGcInfo().getDuration();
+        pauses.record(durationMillis * 1_000_000L);
+
+        // Anything longer than a loop is worth a warning
+        long period = loopPeriodNanos;
+        if (period > 0 && durationMillis * 1_000_000L > period) {
+            logger.log("%s (%s) paused for %dms", Level.kWarning, info.getGcName(), info.getGcCause(),
+                    durationMillis);
+        }
+    }
+
+    /**
+     * Get the total number of collections done by every collector
+     *
+     * @return Collection count
+     */
+    public long getCollectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Get every recorded GC pause
+     *
+     * @return Pause histogram (nanoseconds)
+     */
+    public LatencyHistogram getPauses() {
+        return pauses;
+    }
+
+    /**
+     * Get the number of loop iterations that took longer than the loop period
+     *
+     * @return Overrun count
+     */
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+
+    /**
+     * Get the number of loop overruns where a collection happened during the
+     * iteration
+     *
+     * @return Overrun count
+     */
+    public long getOverrunsWithGC() {
+        return overrunsWithGC.get();
+    }
+
+    /**
+     * Get the average number of bytes allocated by the loop thread per iteration
+     *
+     * @return Bytes per loop
+     */
+    public double getMeanAllocationPerLoop() {
+        long count = loops.get();
+        return (count == 0) ? 0.0 : (double) allocatedBytes.get() / count;
+    }
+
+    /**
+     * Get the most bytes allocated by the loop thread in a single iteration
+     *
+     * @return Bytes
+     */
+    public long getMaxAllocationPerLoop() {
+        return maxAllocatedBytes.get();
+    }
+
+    /**
+     * Get the heap memory currently in use
+     *
+     * @return Bytes
+     */
+    public long getHeapUsed() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Get the young generation memory currently in use
+     *
+     * @return Bytes, or 0 if the young generation could not be found
+     */
+    public long getYoungGenUsed() {
+        return (youngGen == null) ? 0 : youngGen.getUsage().getUsed();
+    }
+
+    /**
+     * Get the bytes allocated so far by the loop thread
+     *
+     * @return Bytes
+     */
+    private long getAllocatedBytes() {
+        return (threads == null) ? 0 : threads.getThreadAllocatedBytes(loopThreadId);
+    }
+
+    @Override
+    public void logStatus() {
+        logger.log(
+                "%d pauses (p99 %.1fms, max %.1fms), heap %.1fMB, young gen %.1fMB, %.1fKB allocated per loop, %d of %d overruns during GC",
+                Level.kInfo, pauses.getCount(), pauses.getPercentile(99) / 1e6, pauses.getMax() / 1e6,
+                getHeapUsed() / 1e6, getYoungGenUsed() / 1e6, getMeanAllocationPerLoop() / 1e3,
+                getOverrunsWithGC(), getOverrunCount());
+    }
+
+    @Override
+    public void updateTelemetry() {
+
+        // Set up all fields once
+        if (fields == null) {
+            TelemetryChannel telemetry = ComponentTelemetry.getInstance().getChannelForComponent("GC");
+            String[] names = { "Pauses", "Pause p99 (ms)", "Max pause (ms)", "Collections", "Heap used (MB)",
+                    "Young gen used (MB)", "Allocated per loop (KB)", "Overruns", "Overruns with GC" };
+            fields = new DoubleField[names.length];
+            for (int i = 0; i < names.length; i++) {
+                fields[i] = telemetry.doubleField(names[i]);
+            }
+        }
+
+        // Allocation since the last update
+        long loopCount = loops.get();
+        long allocated = allocatedBytes.get();
+        if (loopCount != lastLoops) {
+            fields[6].set((double) (allocated - lastAllocatedBytes) / (loopCount - lastLoops) / 1e3);
+        }
+        lastLoops = loopCount;
+        lastAllocatedBytes = allocated;
+
+        fields[0].set(pauses.getCount());
+        fields[1].set(pauses.getPercentile(99) / 1e6);
+        fields[2].set(pauses.getMax() / 1e6);
+        fields[3].set(getCollectionCount());
+        fields[4].set(getHeapUsed() / 1e6);
+        fields[5].set(getYoungGenUsed() / 1e6);
+        fields[7].set(getOverrunCount());
+        fields[8].set(getOverrunsWithGC());
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, allocation-free histogram of durations in nanoseconds. Values
+ * are grouped into log-linear buckets (8 per power of two), so any percentile
+ * is accurate to within about 12%, no matter how large the values get.
+ *
+ * Recording is lock-free, and may be done from any number of threads.
+ */
+public class LatencyHistogram {
+
+    // Number of sub-buckets per power of two (as a number of bits)
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    // Enough buckets to hold any positive long
+    private static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a duration
+     *
+     * @param nanos Duration in nanoseconds. Negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+
+        // Track the max
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Get the number of recorded durations
+     *
+     * @return Count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Get the longest recorded duration
+     *
+     * @return Max in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the average recorded duration
+     *
+     * @return Mean in nanoseconds, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long n = count.get();
+        return (n == 0) ? 0.0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Get an estimate of a percentile. This is the upper edge of the bucket the
+     * percentile falls into, so it never under-reports
+     *
+     * @param percentile Percentile (0-100)
+     * @return Estimated percentile in nanoseconds, or 0 if nothing has been
+     *         recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+
+        // Find the bucket holding the requested rank
+        long rank = (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        rank = Math.max(1, rank);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clear all recorded durations
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Find the bucket for a value
+     *
+     * @param value Non-negative value
+     * @return Bucket index
+     */
+    static int bucketOf(long value) {
+
+        // Small values get their own buckets
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+
+        // Otherwise, bucket by exponent, then by the bits just below the leading one
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Get the largest value that falls into a bucket
+     *
+     * @param bucket Bucket index
+     * @return Upper bound (inclusive)
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        long lower = (SUB_COUNT + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
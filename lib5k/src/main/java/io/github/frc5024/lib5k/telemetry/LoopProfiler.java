@@ -0,0 +1,237 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.logging.CSVFile;
+import io.github.frc5024.lib5k.logging.Loggable;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+/**
+ * The LoopProfiler times each part of the main robot loop, so a loop overrun
+ * can be traced back to the subsystem or command that caused it.
+ * {@link io.github.frc5024.lib5k.autonomous.RobotProgram} times its own phases
+ * and the command scheduler, and commands can be timed by wrapping them in a
+ * {@link io.github.frc5024.lib5k.autonomous.commands.ProfiledCommand}.
+ * Subsystems can time their own periodic code:
+ *
+ * <pre>
+ * {@code
+ * private Section periodicSection = LoopProfiler.getInstance().getSection("Shooter.periodic");
+ *
+ * public void periodic() {
+ *     periodicSection.start();
+ *     ...
+ *     periodicSection.stop();
+ * }
+ * }
+ * </pre>
+ *
+ * Every section's p50, p99 and max are published to the "LoopProfiler"
+ * component table, and a full summary is saved to the session directory as a
+ * CSV file at the end of each match.
+ */
+public class LoopProfiler implements Loggable {
+    private static LoopProfiler instance = null;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // Every section, in the order they were created
+    private final CopyOnWriteArrayList<Section> sections = new CopyOnWriteArrayList<>();
+
+    // Settings
+    private volatile boolean enabled = true;
+
+    // Telemetry. Only touched by updateTelemetry(), on the main robot thread
+    private TelemetryChannel telemetry = null;
+    private final ArrayList<DoubleField[]> fields = new ArrayList<>();
+
+    /**
+     * A single timed section of the loop. Sections must only be started and
+     * stopped from one thread
+     */
+    public static final class Section {
+        private final LoopProfiler profiler;
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long startNanos = 0;
+
+        private Section(LoopProfiler profiler, String name) {
+            this.profiler = profiler;
+            this.name = name;
+        }
+
+        /**
+         * Start timing the section
+         */
+        public void start() {
+            startNanos = System.nanoTime();
+        }
+
+        /**
+         * Stop timing the section, and record the time since
+         * {@link #start()}
+         */
+        public void stop() {
+            if (profiler.enabled) {
+                histogram.record(System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Get the section name
+         *
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the recorded section times
+         *
+         * @return Time histogram (nanoseconds)
+         */
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    LoopProfiler() {
+    }
+
+    /**
+     * Get the LoopProfiler instance
+     *
+     * @return LoopProfiler
+     */
+    public static synchronized LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * Set if sections should record their times. Defaults to true
+     *
+     * @param enabled Should sections be timed?
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Get a section, creating it if needed. This should be called once, and the
+     * section reused
+     *
+     * @param name Section name
+     * @return Section
+     */
+    public synchronized Section getSection(String name) {
+        for (Section section : sections) {
+            if (section.name.equals(name)) {
+                return section;
+            }
+        }
+
+        Section section = new Section(this, name);
+        sections.add(section);
+        return section;
+    }
+
+    /**
+     * Save a summary of every section to the session directory, then clear all
+     * times. The file is written from the file IO lane of the
+     * {@link RealTimeExecutor}
+     *
+     * @param reason Short reason for the dump. This is included in the file name
+     */
+    public void dump(String reason) {
+
+        // Copy out the summary now, so clearing can't race the writer
+        ArrayList<double[]> rows = new ArrayList<>();
+        ArrayList<String> names = new ArrayList<>();
+        for (Section section : sections) {
+            LatencyHistogram histogram = section.histogram;
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+
+            names.add(section.name);
+            rows.add(new double[] { histogram.getCount(), histogram.getMean() / 1e6,
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6 });
+            histogram.reset();
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        RealTimeExecutor.getInstance().runOnce("LoopProfiler dump", Lane.kFileIO, () -> write(reason, names, rows));
+    }
+
+    /**
+     * Write a summary to a CSV file
+     *
+     * @param reason Dump reason
+     * @param names  Section names
+     * @param rows   Section stats
+     */
+    private void write(String reason, ArrayList<String> names, ArrayList<double[]> rows) {
+        String fileName = "LoopProfile_" + reason.replaceAll("[^A-Za-z0-9_-]", "_");
+
+        try (CSVFile file = CSVFile.builder(fileName).stringCol("Section").longCol("Count").doubleCol("Mean (ms)", 3)
+                .doubleCol("p50 (ms)", 3).doubleCol("p99 (ms)", 3).doubleCol("Max (ms)", 3).build()) {
+
+            for (int i = 0; i < rows.size(); i++) {
+                double[] row = rows.get(i);
+                file.set(0, names.get(i));
+                file.set(1, (long) row[0]);
+                for (int j = 1; j < row.length; j++) {
+                    file.set(j + 1, row[j]);
+                }
+                file.endRow();
+            }
+
+        } catch (IOException e) {
+            logger.log("Failed to save loop profile", Level.kWarning);
+        }
+    }
+
+    @Override
+    public void logStatus() {
+        for (Section section : sections) {
+            LatencyHistogram histogram = section.histogram;
+            logger.log("%s: p50 %.3fms, p99 %.3fms, max %.3fms", Level.kInfo, section.name,
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6);
+        }
+    }
+
+    @Override
+    public void updateTelemetry() {
+        if (telemetry == null) {
+            telemetry = ComponentTelemetry.getInstance().getChannelForComponent("LoopProfiler");
+        }
+
+        // Set up fields for any new sections
+        while (fields.size() < sections.size()) {
+            String name = sections.get(fields.size()).name;
+            fields.add(new DoubleField[] { telemetry.doubleField(name + " p50 (ms)"),
+                    telemetry.doubleField(name + " p99 (ms)"), telemetry.doubleField(name + " max (ms)") });
+        }
+
+        for (int i = 0; i < fields.size(); i++) {
+            LatencyHistogram histogram = sections.get(i).histogram;
+            DoubleField[] sectionFields = fields.get(i);
+            sectionFields[0].set(histogram.getPercentile(50) / 1e6);
+            sectionFields[1].set(histogram.getPercentile(99) / 1e6);
+            sectionFields[2].set(histogram.getMax() / 1e6);
+        }
+    }
+}
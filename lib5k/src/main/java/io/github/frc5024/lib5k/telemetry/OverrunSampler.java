@@ -0,0 +1,292 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.utils.FileManagement;
+
+/**
+ * The OverrunSampler finds out where the main loop was stuck when it overran.
+ * Once enabled, a watchdog thread checks the main robot thread every
+ * millisecond. Only while the current loop iteration is past its budget, the
+ * main thread's stack is sampled and counted. Normal iterations cost nothing
+ * more than two timestamps.
+ *
+ * Samples are saved to the session directory in the folded-stack format used
+ * by flame graph tools (one {@code frame;frame;frame count} line per unique
+ * stack), so rare spikes from things like GC, CAN timeouts or file IO can be
+ * tracked down after a match.
+ *
+ * {@link io.github.frc5024.lib5k.autonomous.RobotProgram} marks its own
+ * iterations, so robots only need to turn sampling on:
+ *
+ * <pre>
+ * {@code
+ * // In the robot constructor (on the main thread)
+ * OverrunSampler.getInstance().enable(0.02);
+ * }
+ * </pre>
+ */
+public class OverrunSampler {
+    private static OverrunSampler instance = null;
+
+    /**
+     * Time between samples in nanoseconds
+     */
+    public static final long SAMPLE_PERIOD_NANOS = 1_000_000L;
+
+    /**
+     * Most unique stacks kept before new stacks are counted as truncated
+     */
+    public static final int MAX_STACKS = 4096;
+
+    private static final String TRUNCATED_STACK = "[truncated]";
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // Thread being sampled
+    private volatile Thread target = null;
+    private volatile long budgetNanos = 0;
+
+    // Start of the current iteration, or 0 when not in an iteration
+    private volatile long iterationStart = 0;
+
+    // Set by the watchdog when the current iteration has been sampled
+    private volatile boolean iterationSampled = false;
+
+    // Folded stacks and their sample counts. Guarded by this
+    private final HashMap<String, Long> stacks = new HashMap<>();
+
+    // Stats
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+
+    private Thread watchdog = null;
+
+    OverrunSampler() {
+    }
+
+    /**
+     * Get the OverrunSampler instance
+     *
+     * @return OverrunSampler
+     */
+    public static synchronized OverrunSampler getInstance() {
+        if (instance == null) {
+            instance = new OverrunSampler();
+        }
+        return instance;
+    }
+
+    /**
+     * Start sampling the calling thread whenever an iteration runs past its
+     * budget. This must be called from the thread that runs the loop
+     *
+     * @param budgetSeconds Iteration time allowed before sampling starts
+     */
+    public void enable(double budgetSeconds) {
+        enable(Thread.currentThread(), budgetSeconds);
+    }
+
+    /**
+     * Start sampling a thread whenever an iteration runs past its budget
+     *
+     * @param thread        Thread that runs the loop
+     * @param budgetSeconds Iteration time allowed before sampling starts
+     */
+    public synchronized void enable(Thread thread, double budgetSeconds) {
+        this.budgetNanos = (long) (budgetSeconds * 1e9);
+        this.target = thread;
+
+        // Start the watchdog once
+        if (watchdog == null) {
+            watchdog = new Thread(this::watch, "Lib5K OverrunSampler");
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+
+        logger.log("Sampling %s when iterations take longer than %.1fms", Level.kInfo, thread.getName(),
+                budgetSeconds * 1000);
+    }
+
+    /**
+     * Stop sampling. Already collected samples are kept until the next
+     * {@link #dump(String)}
+     */
+    public synchronized void disable() {
+        target = null;
+    }
+
+    /**
+     * Check if sampling is enabled
+     *
+     * @return Is enabled?
+     */
+    public boolean isEnabled() {
+        return target != null;
+    }
+
+    /**
+     * Mark the start of a loop iteration. Calling this again before
+     * {@link #endIteration()} has no effect
+     */
+    public void startIteration() {
+        if (target != null && iterationStart == 0) {
+            iterationStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Mark the end of a loop iteration
+     */
+    public void endIteration() {
+        iterationStart = 0;
+        if (iterationSampled) {
+            iterationSampled = false;
+            overruns.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of stacks sampled since the last dump
+     *
+     * @return Sample count
+     */
+    public long getSampleCount() {
+        return samples.get();
+    }
+
+    /**
+     * Get the number of iterations that were sampled since the last dump
+     *
+     * @return Overrun count
+     */
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+
+    /**
+     * Watchdog thread
+     */
+    private void watch() {
+        while (true) {
+            LockSupport.parkNanos(SAMPLE_PERIOD_NANOS);
+
+            // Only sample while the iteration is over budget
+            Thread thread = target;
+            long start = iterationStart;
+            if (thread == null || start == 0 || System.nanoTime() - start < budgetNanos) {
+                continue;
+            }
+
+            StackTraceElement[] trace = thread.getStackTrace();
+
+            // The iteration may have ended while the stack was being read
+            if (iterationStart != start) {
+                continue;
+            }
+
+            record(trace);
+            iterationSampled = true;
+        }
+    }
+
+    /**
+     * Add a stack trace to the folded stacks
+     *
+     * @param trace Stack trace (innermost frame first)
+     */
+    synchronized void record(StackTraceElement[] trace) {
+        samples.incrementAndGet();
+
+        // Folded stacks list the outermost frame first
+        StringBuilder folded = new StringBuilder();
+        for (int i = trace.length - 1; i >= 0; i--) {
+            folded.append(trace[i].getClassName()).append('.').append(trace[i].getMethodName());
+            if (i > 0) {
+                folded.append(';');
+            }
+        }
+        String key = folded.toString();
+
+        // Don't let a deep, changing stack use up all the memory
+        if (!stacks.containsKey(key) && stacks.size() >= MAX_STACKS) {
+            key = TRUNCATED_STACK;
+        }
+        stacks.merge(key, 1L, Long::sum);
+    }
+
+    /**
+     * Write all folded stacks
+     *
+     * @param writer Output
+     * @throws IOException Thrown if writing fails
+     */
+    synchronized void writeTo(Writer writer) throws IOException {
+        writeStacks(stacks, writer);
+    }
+
+    /**
+     * Write folded stacks, one per line
+     *
+     * @param stacks Folded stacks and their sample counts
+     * @param writer Output
+     * @throws IOException Thrown if writing fails
+     */
+    private static void writeStacks(Map<String, Long> stacks, Writer writer) throws IOException {
+        for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(Long.toString(entry.getValue()));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Save all samples to the session directory as a folded-stack file, then
+     * clear them. Nothing is written if there are no samples. The current
+     * timestamp is appended to the file name, so earlier dumps are never
+     * overwritten. The samples are copied right away, and the file is written
+     * from the file IO lane of the {@link RealTimeExecutor}
+     *
+     * @param reason Short reason for the dump. This is included in the file name
+     */
+    public void dump(String reason) {
+        HashMap<String, Long> snapshot;
+        long sampleCount;
+        long overrunCount;
+
+        // Take the samples, so the watchdog can keep recording while the file is
+        // written
+        synchronized (this) {
+            if (stacks.isEmpty()) {
+                return;
+            }
+
+            snapshot = new HashMap<>(stacks);
+            stacks.clear();
+            sampleCount = samples.getAndSet(0);
+            overrunCount = overruns.getAndSet(0);
+        }
+
+        String fileName = String.format("OverrunStacks_%s_%d.folded", reason.replaceAll("[^A-Za-z0-9_-]", "_"),
+                System.currentTimeMillis());
+        RealTimeExecutor.getInstance().runOnce("OverrunSampler dump", Lane.kFileIO, () -> {
+            try (Writer writer = FileManagement.createFileWriter(fileName)) {
+                writeStacks(snapshot, writer);
+                logger.log("Saved %d stack samples from %d overruns to %s", Level.kInfo, sampleCount, overrunCount,
+                        fileName);
+            } catch (IOException e) {
+                logger.log("Failed to save overrun stacks", Level.kWarning);
+            }
+        });
+    }
+}
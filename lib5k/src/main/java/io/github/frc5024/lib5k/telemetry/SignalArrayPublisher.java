@@ -0,0 +1,58 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+
+/**
+ * A {@link SignalConsumer} that publishes each batch of samples to the
+ * "Signals" component table as two number arrays: "&lt;name&gt; timestamps"
+ * (FPGA seconds) and "&lt;name&gt; values". Dashboards can plot every sample,
+ * even though NetworkTables only updates a few times per second.
+ */
+public class SignalArrayPublisher implements SignalConsumer {
+
+    private final NetworkTable table;
+
+    // Entries for each signal. Only touched by the drain task
+    private final HashMap<Signal, NetworkTableEntry[]> entries = new HashMap<>();
+
+    /**
+     * Create a SignalArrayPublisher
+     */
+    public SignalArrayPublisher() {
+        this(ComponentTelemetry.getInstance().getTableForComponent("Signals"));
+    }
+
+    /**
+     * Create a SignalArrayPublisher that publishes to any table
+     *
+     * @param table Table
+     */
+    public SignalArrayPublisher(NetworkTable table) {
+        this.table = table;
+    }
+
+    @Override
+    public void accept(Signal signal, long[] timestamps, double[] values, int count) {
+
+        // Respect the recorder's bandwidth setting
+        if (!TelemetryRecorder.getInstance().isLivePublishing()) {
+            return;
+        }
+
+        NetworkTableEntry[] signalEntries = entries.computeIfAbsent(signal,
+                s -> new NetworkTableEntry[] { table.getEntry(s.getName() + " timestamps"),
+                        table.getEntry(s.getName() + " values") });
+
+        double[] seconds = new double[count];
+        for (int i = 0; i < count; i++) {
+            seconds[i] = timestamps[i] / 1e6;
+        }
+        signalEntries[0].setDoubleArray(seconds);
+        signalEntries[1].setDoubleArray(Arrays.copyOf(values, count));
+    }
+}
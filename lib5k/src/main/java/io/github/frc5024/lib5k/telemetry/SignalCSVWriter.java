@@ -0,0 +1,42 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.IOException;
+
+import io.github.frc5024.lib5k.logging.CSVFile;
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+
+/**
+ * A {@link SignalConsumer} that writes every sample to a CSV file in the
+ * session directory, with one row per sample. Any number of signals can share
+ * one writer
+ */
+public class SignalCSVWriter implements SignalConsumer, AutoCloseable {
+
+    private final CSVFile file;
+
+    /**
+     * Create a SignalCSVWriter
+     *
+     * @param filename File name (without extension)
+     * @throws IOException Thrown if the file cannot be created
+     */
+    public SignalCSVWriter(String filename) throws IOException {
+        this.file = CSVFile.builder(filename).stringCol("Signal").longCol("Timestamp (us)").doubleCol("Value")
+                .build();
+    }
+
+    @Override
+    public void accept(Signal signal, long[] timestamps, double[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            file.set(0, signal.getName());
+            file.set(1, timestamps[i]);
+            file.set(2, values[i]);
+            file.endRow();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+
+/**
+ * Receives batches of samples drained from a {@link Signal}. Consumers are
+ * called from the {@link SignalSampler}'s background drain task, never from the
+ * sampling thread, so they may do slow work like file IO.
+ */
+@FunctionalInterface
+public interface SignalConsumer {
+
+    /**
+     * Handle a batch of samples. The arrays are reused between batches, so they
+     * must not be kept after this returns
+     *
+     * @param signal     Signal the samples came from
+     * @param timestamps FPGA timestamps in microseconds
+     * @param values     Sample values (integral signals are converted to double)
+     * @param count      Number of samples in the arrays
+     */
+    public void accept(Signal signal, long[] timestamps, double[] values, int count);
+}
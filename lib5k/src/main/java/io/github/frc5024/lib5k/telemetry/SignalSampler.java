@@ -0,0 +1,399 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+
+/**
+ * The SignalSampler samples named signals at a fixed rate (up to
+ * {@link #MAX_RATE}Hz) on the control lane of the {@link RealTimeExecutor},
+ * independently of the main loop. Samples are stored with their FPGA
+ * timestamps in preallocated ring buffers, and drained in batches, so fast
+ * transients can be captured without slowing the main loop down.
+ *
+ * A signal can either be drained by its owner:
+ *
+ * <pre>
+ * {@code
+ * Signal rpm = SignalSampler.getInstance().register("Shooter RPM", this::getRPM, 500);
+ *
+ * int count = rpm.drain(timestamps, values);
+ * }
+ * </pre>
+ *
+ * Or handed to {@link SignalConsumer}s (like a {@link SignalArrayPublisher},
+ * {@link SignalCSVWriter} or the {@link TelemetryRecorder}), which are drained
+ * in the background {@link #DRAIN_PERIOD} times per second.
+ */
+public class SignalSampler {
+    private static SignalSampler instance = null;
+
+    /**
+     * Highest allowed sample rate in Hz
+     */
+    public static final double MAX_RATE = 1000.0;
+
+    /**
+     * Seconds of samples each signal can hold before old samples are dropped
+     */
+    public static final double BUFFER_SECONDS = 1.0;
+
+    /**
+     * Time between consumer drains in seconds
+     */
+    public static final double DRAIN_PERIOD = 0.1;
+
+    // Signals that have consumers
+    private final CopyOnWriteArrayList<Signal> drained = new CopyOnWriteArrayList<>();
+    private ScheduledTask drainTask = null;
+
+    /**
+     * A single sampled signal. Samples are written by one thread and drained by
+     * one other thread
+     */
+    public static final class Signal {
+        private final SignalSampler sampler;
+        private final String name;
+        private final double rate;
+        private final DoubleSupplier doubleSource;
+        private final LongSupplier longSource;
+
+        // Ring buffers. Only one of doubles / longs is used
+        private final int mask;
+        private final long[] timestamps;
+        private final double[] doubles;
+        private final long[] longs;
+
+        // Total samples written. Written only by the sampling thread
+        private volatile long written = 0;
+
+        // Total samples consumed. Only touched by the draining thread
+        private long read = 0;
+        private final AtomicLong dropped = new AtomicLong();
+
+        // Consumers, and their scratch buffers
+        private final CopyOnWriteArrayList<SignalConsumer> consumers = new CopyOnWriteArrayList<>();
+        private long[] scratchTimestamps = null;
+        private double[] scratchValues = null;
+
+        private ScheduledTask task = null;
+
+        private Signal(SignalSampler sampler, String name, double rate, DoubleSupplier doubleSource,
+                LongSupplier longSource) {
+            if (rate <= 0 || rate > MAX_RATE) {
+                throw new IllegalArgumentException(
+                        String.format("Sample rate for %s must be between 0 and %.0fHz", name, MAX_RATE));
+            }
+
+            this.sampler = sampler;
+            this.name = name;
+            this.rate = rate;
+            this.doubleSource = doubleSource;
+            this.longSource = longSource;
+
+            // Round the buffer up to a power of two, so slots can be found with a mask
+            int capacity = Integer.highestOneBit((int) Math.max(64, Math.ceil(rate * BUFFER_SECONDS)) - 1) << 1;
+            this.mask = capacity - 1;
+            this.timestamps = new long[capacity];
+            this.doubles = (doubleSource != null) ? new double[capacity] : null;
+            this.longs = (longSource != null) ? new long[capacity] : null;
+        }
+
+        /**
+         * Get the signal name
+         *
+         * @return Name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the sample rate
+         *
+         * @return Rate in Hz
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        /**
+         * Check if this signal samples a LongSupplier
+         *
+         * @return Is integral?
+         */
+        public boolean isIntegral() {
+            return longs != null;
+        }
+
+        /**
+         * Get the number of samples the ring buffer can hold
+         *
+         * @return Capacity
+         */
+        public int getCapacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Get the total number of samples taken
+         *
+         * @return Sample count
+         */
+        public long getSampleCount() {
+            return written;
+        }
+
+        /**
+         * Get the number of samples that were overwritten before they could be
+         * drained
+         *
+         * @return Dropped sample count
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        /**
+         * Take a sample. Only called from the sampling thread
+         */
+        void sample() {
+            long index = written;
+            int slot = (int) (index & mask);
+
+            timestamps[slot] = (long) (FPGAClock.getFPGASeconds() * 1e6);
+            if (doubles != null) {
+                doubles[slot] = doubleSource.getAsDouble();
+            } else {
+                longs[slot] = longSource.getAsLong();
+            }
+
+            // Publish the sample
+            written = index + 1;
+        }
+
+        /**
+         * Copy every sample taken since the last drain, oldest first. If there are
+         * more samples than fit in the arrays, the rest are left for the next
+         * drain. Integral signals are converted to double
+         *
+         * @param timestampsOut FPGA timestamps in microseconds
+         * @param valuesOut     Sample values
+         * @return Number of samples copied
+         */
+        public int drain(long[] timestampsOut, double[] valuesOut) {
+            return drain(timestampsOut, valuesOut, null);
+        }
+
+        /**
+         * Copy every sample taken since the last drain, oldest first, without
+         * converting them to double. Only allowed for integral signals
+         *
+         * @param timestampsOut FPGA timestamps in microseconds
+         * @param valuesOut     Sample values
+         * @return Number of samples copied
+         */
+        public int drain(long[] timestampsOut, long[] valuesOut) {
+            if (longs == null) {
+                throw new IllegalStateException(name + " is not an integral signal");
+            }
+            return drain(timestampsOut, null, valuesOut);
+        }
+
+        /**
+         * Copy samples out of the ring buffer
+         *
+         * @param timestampsOut Timestamp output
+         * @param doublesOut    Value output (or null)
+         * @param longsOut      Value output (or null)
+         * @return Number of samples copied
+         */
+        private int drain(long[] timestampsOut, double[] doublesOut, long[] longsOut) {
+            int capacity = mask + 1;
+            long end = written;
+
+            // Skip anything that has already been overwritten. The oldest slot is
+            // skipped too, since the sampler may be writing over it right now
+            long start = Math.max(read, end + 1 - capacity);
+            dropped.addAndGet(start - read);
+
+            int count = (int) Math.min(end - start, timestampsOut.length);
+            for (int i = 0; i < count; i++) {
+                int slot = (int) ((start + i) & mask);
+                timestampsOut[i] = timestamps[slot];
+                if (doublesOut != null) {
+                    doublesOut[i] = (doubles != null) ? doubles[slot] : longs[slot];
+                } else {
+                    longsOut[i] = longs[slot];
+                }
+            }
+
+            // Throw out any samples that were overwritten while being copied
+            long firstValid = written + 1 - capacity;
+            if (firstValid > start) {
+                int bad = (int) Math.min(count, firstValid - start);
+                System.arraycopy(timestampsOut, bad, timestampsOut, 0, count - bad);
+                if (doublesOut != null) {
+                    System.arraycopy(doublesOut, bad, doublesOut, 0, count - bad);
+                } else {
+                    System.arraycopy(longsOut, bad, longsOut, 0, count - bad);
+                }
+                dropped.addAndGet(bad);
+                start += bad;
+                count -= bad;
+            }
+
+            read = start + count;
+            return count;
+        }
+
+        /**
+         * Hand this signal's samples to a consumer. Once a signal has a consumer, it
+         * is drained by the sampler, and must not be drained by hand
+         *
+         * @param consumer Consumer
+         */
+        public void addConsumer(SignalConsumer consumer) {
+            consumers.add(consumer);
+            sampler.addDrained(this);
+        }
+
+        /**
+         * Drain this signal into its consumers
+         */
+        synchronized void drainToConsumers() {
+            if (scratchTimestamps == null) {
+                scratchTimestamps = new long[getCapacity()];
+                scratchValues = new double[getCapacity()];
+            }
+
+            int count = drain(scratchTimestamps, scratchValues);
+            if (count == 0) {
+                return;
+            }
+            for (SignalConsumer consumer : consumers) {
+                consumer.accept(this, scratchTimestamps, scratchValues, count);
+            }
+        }
+
+        /**
+         * Stop sampling this signal. Any samples left are still passed to its
+         * consumers
+         */
+        public void close() {
+            if (task != null) {
+                task.cancel();
+            }
+            if (sampler.drained.remove(this)) {
+                drainToConsumers();
+            }
+        }
+    }
+
+    SignalSampler() {
+    }
+
+    /**
+     * Get the SignalSampler instance
+     *
+     * @return SignalSampler
+     */
+    public static synchronized SignalSampler getInstance() {
+        if (instance == null) {
+            instance = new SignalSampler();
+        }
+        return instance;
+    }
+
+    /**
+     * Start sampling a signal
+     *
+     * @param name   Signal name
+     * @param source Value supplier. This is called from the sampling thread
+     * @param hz     Sample rate in Hz (up to {@link #MAX_RATE})
+     * @return Signal
+     */
+    public Signal register(String name, DoubleSupplier source, double hz) {
+        return schedule(create(name, source, hz));
+    }
+
+    /**
+     * Start sampling an integral signal (like encoder ticks), keeping its exact
+     * values
+     *
+     * @param name   Signal name
+     * @param source Value supplier. This is called from the sampling thread
+     * @param hz     Sample rate in Hz (up to {@link #MAX_RATE})
+     * @return Signal
+     */
+    public Signal register(String name, LongSupplier source, double hz) {
+        return schedule(create(name, source, hz));
+    }
+
+    /**
+     * Create a signal without scheduling it. Used by tests, which sample by hand
+     *
+     * @param name   Signal name
+     * @param source Value supplier
+     * @param hz     Sample rate in Hz
+     * @return Signal
+     */
+    Signal create(String name, DoubleSupplier source, double hz) {
+        return new Signal(this, name, hz, source, null);
+    }
+
+    /**
+     * Create an integral signal without scheduling it. Used by tests, which
+     * sample by hand
+     *
+     * @param name   Signal name
+     * @param source Value supplier
+     * @param hz     Sample rate in Hz
+     * @return Signal
+     */
+    Signal create(String name, LongSupplier source, double hz) {
+        return new Signal(this, name, hz, null, source);
+    }
+
+    /**
+     * Start sampling a signal on the control lane
+     *
+     * @param signal Signal
+     * @return Signal
+     */
+    private Signal schedule(Signal signal) {
+        signal.task = RealTimeExecutor.getInstance().schedule("Signal-" + signal.name, Lane.kControl,
+                1.0 / signal.rate, signal::sample);
+        return signal;
+    }
+
+    /**
+     * Start draining a signal into its consumers
+     *
+     * @param signal Signal
+     */
+    private synchronized void addDrained(Signal signal) {
+        drained.addIfAbsent(signal);
+
+        // Start the drain task once
+        if (drainTask == null) {
+            drainTask = RealTimeExecutor.getInstance().schedule("SignalSampler", Lane.kBackground, DRAIN_PERIOD,
+                    this::drainAll);
+        }
+    }
+
+    /**
+     * Drain every signal into its consumers
+     */
+    void drainAll() {
+        for (Signal signal : drained) {
+            signal.drainToConsumers();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package io.github.frc5024.lib5k.telemetry;
+
+/**
+ * Measures how a system responds to a setpoint step, one sample at a time. This
+ * tracks:
+ * <ul>
+ * <li>Rise time: time to go from 10% to 90% of the step</li>
+ * <li>Overshoot: how far past the setpoint the system went, as a percent of the
+ * step</li>
+ * <li>Settling time: time from the step until the system entered the settling
+ * band for good (staying in it for {@link #SETTLING_HOLD} seconds)</li>
+ * <li>Steady-state error: average error once settled</li>
+ * <li>Recovery time: after settling, how long the last dip (like a flywheel
+ * slowing down from a shot) took to get back into the settling band</li>
+ * </ul>
+ *
+ * Samples are also kept in a preallocated trace buffer, which can be
+ * downsampled for plotting. Nothing allocates after construction.
+ */
+public class StepResponseAnalyzer {
+
+    /**
+     * Settling band, as a fraction of the step size
+     */
+    public static final double SETTLING_BAND = 0.02;
+
+    /**
+     * Time the system must stay in the settling band to count as settled
+     */
+    public static final double SETTLING_HOLD = 0.25;
+
+    /**
+     * Drop below the setpoint that counts as a dip, as a fraction of the setpoint
+     */
+    public static final double DIP_THRESHOLD = 0.05;
+
+    // Trace buffer
+    private final long[] traceTimes;
+    private final double[] traceValues;
+    private int traceLength = 0;
+
+    // Step
+    private double initial = 0.0;
+    private double target = 0.0;
+    private long startMicros = 0;
+    private boolean running = false;
+
+    // Rise and overshoot
+    private long rise10Micros = -1;
+    private long rise90Micros = -1;
+    private double peakProgress = 0.0;
+
+    // Settling
+    private long lastOutsideMicros = -1;
+    private boolean settled = false;
+    private double errorSum = 0.0;
+    private long errorCount = 0;
+
+    // Dips
+    private boolean inDip = false;
+    private long dipStartMicros = 0;
+    private double dipDepth = 0.0;
+    private double lastDipDepth = Double.NaN;
+    private double lastRecoveryTime = Double.NaN;
+
+    /**
+     * Create a StepResponseAnalyzer
+     *
+     * @param traceCapacity Number of samples to keep in the trace
+     */
+    public StepResponseAnalyzer(int traceCapacity) {
+        this.traceTimes = new long[traceCapacity];
+        this.traceValues = new double[traceCapacity];
+    }
+
+    /**
+     * Start analyzing a new step. This clears all metrics
+     *
+     * @param initial     Value before the step
+     * @param target      New setpoint
+     * @param startMicros Time of the step in microseconds
+     */
+    public void start(double initial, double target, long startMicros) {
+        this.initial = initial;
+        this.target = target;
+        this.startMicros = startMicros;
+        this.running = true;
+
+        traceLength = 0;
+        rise10Micros = -1;
+        rise90Micros = -1;
+        peakProgress = 0.0;
+        lastOutsideMicros = startMicros;
+        settled = false;
+        errorSum = 0.0;
+        errorCount = 0;
+        inDip = false;
+        dipDepth = 0.0;
+        lastDipDepth = Double.NaN;
+        lastRecoveryTime = Double.NaN;
+    }
+
+    /**
+     * Add a sample. Samples from before the step are ignored
+     *
+     * @param timeMicros Sample time in microseconds
+     * @param value      Sample value
+     */
+    public void add(long timeMicros, double value) {
+        if (!running || timeMicros < startMicros) {
+            return;
+        }
+
+        // Keep the trace until the buffer is full
+        if (traceLength < traceTimes.length) {
+            traceTimes[traceLength] = timeMicros;
+            traceValues[traceLength] = value;
+            traceLength++;
+        }
+
+        double step = target - initial;
+        double error = target - value;
+        double band = Math.abs(step) * SETTLING_BAND;
+
+        // Progress through the step (0 at the start, 1 at the setpoint)
+        double progress = (step == 0.0) ? 1.0 : (value - initial) / step;
+        if (rise10Micros < 0 && progress >= 0.1) {
+            rise10Micros = timeMicros;
+        }
+        if (rise90Micros < 0 && progress >= 0.9) {
+            rise90Micros = timeMicros;
+        }
+        peakProgress = Math.max(peakProgress, progress);
+
+        // Settling
+        boolean inBand = Math.abs(error) <= band;
+        if (!settled) {
+            if (!inBand) {
+                lastOutsideMicros = timeMicros;
+            } else if (rise90Micros >= 0 && timeMicros - lastOutsideMicros >= SETTLING_HOLD * 1e6) {
+                settled = true;
+            }
+        }
+
+        if (!settled) {
+            return;
+        }
+
+        // Once settled, look for dips below the setpoint. These are drops no matter
+        // which way the step went, since a step down can still lose speed to a shot
+        double dipThreshold = Math.abs(target) * DIP_THRESHOLD;
+        if (!inDip && error > Math.max(dipThreshold, band)) {
+            inDip = true;
+            dipStartMicros = timeMicros;
+            dipDepth = 0.0;
+        }
+
+        if (inDip) {
+            dipDepth = Math.max(dipDepth, Math.abs(error));
+            if (inBand) {
+                inDip = false;
+                lastDipDepth = dipDepth;
+                lastRecoveryTime = (timeMicros - dipStartMicros) / 1e6;
+            }
+        } else {
+            errorSum += error;
+            errorCount++;
+        }
+    }
+
+    /**
+     * Check if a step is being analyzed
+     *
+     * @return Is running?
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the setpoint of the current step
+     *
+     * @return Setpoint
+     */
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * Get the 10% to 90% rise time
+     *
+     * @return Seconds, or NaN if the system hasn't reached 90% yet
+     */
+    public double getRiseTime() {
+        return (rise90Micros < 0) ? Double.NaN : (rise90Micros - rise10Micros) / 1e6;
+    }
+
+    /**
+     * Get the overshoot past the setpoint
+     *
+     * @return Percent of the step size
+     */
+    public double getOvershoot() {
+        return Math.max(0.0, peakProgress - 1.0) * 100.0;
+    }
+
+    /**
+     * Get the time from the step until the system stayed in the settling band
+     *
+     * @return Seconds, or NaN if not settled yet
+     */
+    public double getSettlingTime() {
+        return settled ? (lastOutsideMicros - startMicros) / 1e6 : Double.NaN;
+    }
+
+    /**
+     * Check if the system has settled
+     *
+     * @return Is settled?
+     */
+    public boolean isSettled() {
+        return settled;
+    }
+
+    /**
+     * Get the average error since settling, not counting dips
+     *
+     * @return Setpoint minus value, or NaN if not settled yet
+     */
+    public double getSteadyStateError() {
+        return (errorCount == 0) ? Double.NaN : errorSum / errorCount;
+    }
+
+    /**
+     * Get how long the last dip took to recover
+     *
+     * @return Seconds, or NaN if there hasn't been a dip
+     */
+    public double getRecoveryTime() {
+        return lastRecoveryTime;
+    }
+
+    /**
+     * Get how far below the setpoint the last dip went
+     *
+     * @return Dip depth, or NaN if there hasn't been a dip
+     */
+    public double getDipDepth() {
+        return lastDipDepth;
+    }
+
+    /**
+     * Get the number of samples in the trace
+     *
+     * @return Trace length
+     */
+    public int getTraceLength() {
+        return traceLength;
+    }
+
+    /**
+     * Downsample the trace into arrays by picking evenly spaced samples
+     *
+     * @param timesOut  Seconds since the step
+     * @param valuesOut Sample values
+     * @return Number of points written
+     */
+    public int downsampleTrace(double[] timesOut, double[] valuesOut) {
+        int points = Math.min(traceLength, timesOut.length);
+        for (int i = 0; i < points; i++) {
+            int index = (points == 1) ? 0 : (int) ((long) i * (traceLength - 1) / (points - 1));
+            timesOut[i] = (traceTimes[index] - startMicros) / 1e6;
+            valuesOut[i] = traceValues[index];
+        }
+        return points;
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+
+/**
+ * A component's telemetry table, with typed fields that are looked up once.
+ * Looking an entry up by name every loop costs a hash lookup and string
+ * handling per field, so components should create their fields in their
+ * constructor, and only call the setters in updateTelemetry():
+ *
+ * <pre>
+ * {@code
+ * TelemetryChannel channel = ComponentTelemetry.getInstance().getChannelForComponent("Shooter");
+ * DoubleField output = channel.doubleField("Output");
+ *
+ * public void updateTelemetry() {
+ *     output.set(speed);
+ * }
+ * }
+ * </pre>
+ *
+ * Fields only publish when their value changes, so unchanged values don't cost
+ * NetworkTables bandwidth. Numeric fields can be given an epsilon to also ignore
+ * noise. Every published value is also saved by the {@link TelemetryRecorder}
+ * while it is recording.
+ */
+public class TelemetryChannel {
+
+    private final NetworkTable table;
+    private final TelemetryRecorder recorder = TelemetryRecorder.getInstance();
+
+    /**
+     * A numeric telemetry field
+     */
+    public static class DoubleField {
+        private final NetworkTableEntry entry;
+        private final TelemetryRecorder recorder;
+        private final int id;
+        private final double epsilon;
+        private double last = Double.NaN;
+        private boolean published = false;
+
+        private DoubleField(NetworkTableEntry entry, TelemetryRecorder recorder, int id, double epsilon) {
+            this.entry = entry;
+            this.recorder = recorder;
+            this.id = id;
+            this.epsilon = epsilon;
+        }
+
+        /**
+         * Publish a new value, if it is more than epsilon away from the last
+         * published value
+         *
+         * @param value Value
+         * @return Was the value published?
+         */
+        public boolean set(double value) {
+            if (published && (Math.abs(value - last) <= epsilon || (Double.isNaN(value) && Double.isNaN(last)))) {
+                return false;
+            }
+
+            if (recorder.isLivePublishing()) {
+                entry.setDouble(value);
+            }
+            if (recorder.isRecording()) {
+                recorder.recordDouble(id, value);
+            }
+            last = value;
+            published = true;
+            return true;
+        }
+    }
+
+    /**
+     * A boolean telemetry field
+     */
+    public static class BooleanField {
+        private final NetworkTableEntry entry;
+        private final TelemetryRecorder recorder;
+        private final int id;
+        private boolean last = false;
+        private boolean published = false;
+
+        private BooleanField(NetworkTableEntry entry, TelemetryRecorder recorder, int id) {
+            this.entry = entry;
+            this.recorder = recorder;
+            this.id = id;
+        }
+
+        /**
+         * Publish a new value, if it has changed
+         *
+         * @param value Value
+         * @return Was the value published?
+         */
+        public boolean set(boolean value) {
+            if (published && value == last) {
+                return false;
+            }
+
+            if (recorder.isLivePublishing()) {
+                entry.setBoolean(value);
+            }
+            if (recorder.isRecording()) {
+                recorder.recordBoolean(id, value);
+            }
+            last = value;
+            published = true;
+            return true;
+        }
+    }
+
+    /**
+     * A string telemetry field
+     */
+    public static class StringField {
+        private final NetworkTableEntry entry;
+        private final TelemetryRecorder recorder;
+        private final int id;
+        private String last = null;
+
+        private StringField(NetworkTableEntry entry, TelemetryRecorder recorder, int id) {
+            this.entry = entry;
+            this.recorder = recorder;
+            this.id = id;
+        }
+
+        /**
+         * Publish a new value, if it has changed
+         *
+         * @param value Value
+         * @return Was the value published?
+         */
+        public boolean set(String value) {
+            if (value == null || value.equals(last)) {
+                return false;
+            }
+
+            if (recorder.isLivePublishing()) {
+                entry.setString(value);
+            }
+            if (recorder.isRecording()) {
+                recorder.recordString(id, value);
+            }
+            last = value;
+            return true;
+        }
+    }
+
+    /**
+     * Create a TelemetryChannel
+     *
+     * @param table Component table
+     */
+    TelemetryChannel(NetworkTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Get the underlying component table
+     *
+     * @return Component table
+     */
+    public NetworkTable getTable() {
+        return table;
+    }
+
+    /**
+     * Create a numeric field
+     *
+     * @param name Field name
+     * @return Field
+     */
+    public DoubleField doubleField(String name) {
+        return doubleField(name, 0.0);
+    }
+
+    /**
+     * Create a numeric field that ignores small changes
+     *
+     * @param name    Field name
+     * @param epsilon Changes this size or smaller are not published
+     * @return Field
+     */
+    public DoubleField doubleField(String name, double epsilon) {
+        return new DoubleField(table.getEntry(name), recorder,
+                recorder.register(getPath(name), TelemetryLogFormat.TYPE_DOUBLE), epsilon);
+    }
+
+    /**
+     * Create a boolean field
+     *
+     * @param name Field name
+     * @return Field
+     */
+    public BooleanField booleanField(String name) {
+        return new BooleanField(table.getEntry(name), recorder,
+                recorder.register(getPath(name), TelemetryLogFormat.TYPE_BOOLEAN));
+    }
+
+    /**
+     * Create a string field
+     *
+     * @param name Field name
+     * @return Field
+     */
+    public StringField stringField(String name) {
+        return new StringField(table.getEntry(name), recorder,
+                recorder.register(getPath(name), TelemetryLogFormat.TYPE_STRING));
+    }
+
+    /**
+     * Get the full NetworkTables path of a field
+     *
+     * @param name Field name
+     * @return Path
+     */
+    private String getPath(String name) {
+        return table.getPath() + "/" + name;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.frc5024.lib5k.telemetry;
+
+/**
+ * Constants describing the telemetry recording layout shared by
+ * {@link TelemetryRecorder} and {@link TelemetryLogReader}.
+ *
+ * A file starts with a header of {@link #MAGIC}, a version byte, then the wall
+ * clock time the recording started (varint milliseconds since the epoch). The
+ * rest of the file is a stream of entries, each starting with a tag byte:
+ *
+ * <ul>
+ * <li>{@link #TAG_FIELD}: varint id, type byte, full NetworkTables path of the
+ * field</li>
+ * <li>{@link #TAG_VALUE}: varint field id, zigzag varint timestamp delta
+ * (FPGA microseconds since the previous value), then the value. Doubles are 8
+ * raw little-endian bytes, booleans are a single byte, and strings are
+ * strings</li>
+ * </ul>
+ *
+ * Strings are written as a varint byte length followed by UTF-8 bytes. A field
+ * is always defined before its first value.
+ */
+final class TelemetryLogFormat {
+
+    // File header
+    static final byte[] MAGIC = { 'L', '5', 'K', 'T' };
+    static final int VERSION = 1;
+
+    // Default file name in the session directory
+    static final String DEFAULT_FILENAME = "telemetry.l5kt";
+
+    // Entry tags
+    static final int TAG_FIELD = 1;
+    static final int TAG_VALUE = 2;
+
+    // Field types
+    static final int TYPE_DOUBLE = 0;
+    static final int TYPE_BOOLEAN = 1;
+    static final int TYPE_STRING = 2;
+
+    private TelemetryLogFormat() {
+    }
+
+    /**
+     * Zigzag-encode a signed value so small negative numbers stay small
+     *
+     * @param value Signed value
+     * @return Encoded value
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverse {@link #zigzag(long)}
+     *
+     * @param value Encoded value
+     * @return Signed value
+     */
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
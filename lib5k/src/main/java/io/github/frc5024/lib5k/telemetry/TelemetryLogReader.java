@@ -0,0 +1,253 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reads values back out of a file written by {@link TelemetryRecorder}.
+ */
+public class TelemetryLogReader implements AutoCloseable {
+
+    /**
+     * A single recorded value
+     */
+    public static class Entry {
+        private final double timestamp;
+        private final String path;
+        private final Object value;
+
+        /**
+         * Create an Entry
+         *
+         * @param timestamp FPGA time in seconds
+         * @param path      Full NetworkTables path of the field
+         * @param value     Value (a Double, Boolean or String)
+         */
+        Entry(double timestamp, String path, Object value) {
+            this.timestamp = timestamp;
+            this.path = path;
+            this.value = value;
+        }
+
+        /**
+         * Get the FPGA time the value was published at
+         *
+         * @return Seconds
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Get the full NetworkTables path of the field
+         *
+         * @return Path
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Get the value
+         *
+         * @return A Double, Boolean or String
+         */
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3fs: %s = %s", timestamp, path, value);
+        }
+    }
+
+    // Input
+    private final InputStream m_stream;
+    private final long m_startTimeMillis;
+
+    // Field tables (index 0 is unused, ids start at 1)
+    private final ArrayList<String> m_paths = new ArrayList<>();
+    private final ArrayList<Integer> m_types = new ArrayList<>();
+
+    // Timestamp tracking
+    private long m_timestampMicros = 0;
+
+    /**
+     * Open a telemetry recording
+     *
+     * @param path Path to the file
+     * @throws IOException Thrown if the file cannot be read, or is not a telemetry
+     *                     recording
+     */
+    public TelemetryLogReader(String path) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(path)));
+    }
+
+    /**
+     * Read a telemetry recording from a stream
+     *
+     * @param stream Input stream
+     * @throws IOException Thrown if the stream cannot be read, or is not a
+     *                     telemetry recording
+     */
+    public TelemetryLogReader(InputStream stream) throws IOException {
+        m_stream = stream;
+        m_paths.add(null);
+        m_types.add(null);
+
+        // Check the header
+        byte[] magic = readBytes(TelemetryLogFormat.MAGIC.length);
+        if (!Arrays.equals(magic, TelemetryLogFormat.MAGIC)) {
+            throw new IOException("Not a Lib5K telemetry recording");
+        }
+        int version = readByte();
+        if (version != TelemetryLogFormat.VERSION) {
+            throw new IOException("Unsupported telemetry recording version: " + version);
+        }
+        m_startTimeMillis = readVarLong();
+    }
+
+    /**
+     * Get the wall clock time the recording was started at
+     *
+     * @return Milliseconds since the epoch
+     */
+    public long getStartTimeMillis() {
+        return m_startTimeMillis;
+    }
+
+    /**
+     * Read the next value
+     *
+     * @return Next value, or null at the end of the recording
+     * @throws IOException Thrown if the recording is corrupt
+     */
+    public Entry next() throws IOException {
+        while (true) {
+
+            // Read the next tag. A clean end of file is fine here
+            int tag = m_stream.read();
+            if (tag < 0) {
+                return null;
+            }
+
+            try {
+                switch (tag) {
+                    case TelemetryLogFormat.TAG_FIELD:
+                        int id = (int) readVarLong();
+                        int type = readByte();
+                        setAt(m_types, id, type);
+                        setAt(m_paths, id, readString());
+                        break;
+
+                    case TelemetryLogFormat.TAG_VALUE:
+                        return readValue();
+
+                    default:
+                        throw new IOException("Unknown telemetry recording tag: " + tag);
+                }
+            } catch (EOFException e) {
+                // The robot was most likely turned off mid-write
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        m_stream.close();
+    }
+
+    /**
+     * Read the body of a value
+     *
+     * @return Value
+     * @throws IOException Thrown if the recording is corrupt
+     */
+    private Entry readValue() throws IOException {
+        int id = (int) readVarLong();
+        m_timestampMicros += TelemetryLogFormat.unzigzag(readVarLong());
+        if (id <= 0 || id >= m_paths.size() || m_paths.get(id) == null) {
+            throw new IOException("Value for undefined field: " + id);
+        }
+
+        Object value;
+        switch (m_types.get(id)) {
+            case TelemetryLogFormat.TYPE_DOUBLE:
+                value = Double.longBitsToDouble(readLong());
+                break;
+            case TelemetryLogFormat.TYPE_BOOLEAN:
+                value = readByte() != 0;
+                break;
+            case TelemetryLogFormat.TYPE_STRING:
+                value = readString();
+                break;
+            default:
+                throw new IOException("Unknown telemetry field type: " + m_types.get(id));
+        }
+
+        return new Entry(m_timestampMicros / 1e6, m_paths.get(id), value);
+    }
+
+    /**
+     * Set a list element, growing the list if needed
+     *
+     * @param <T>   Element type
+     * @param list  List
+     * @param index Index
+     * @param value Value
+     */
+    private static <T> void setAt(ArrayList<T> list, int index, T value) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        list.set(index, value);
+    }
+
+    private int readByte() throws IOException {
+        int value = m_stream.read();
+        if (value < 0) {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+    private byte[] readBytes(int count) throws IOException {
+        byte[] bytes = m_stream.readNBytes(count);
+        if (bytes.length != count) {
+            throw new EOFException();
+        }
+        return bytes;
+    }
+
+    private long readLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value |= ((long) readByte()) << (8 * i);
+        }
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = readByte();
+            value |= ((long) (b & 0x7F)) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        return new String(readBytes((int) readVarLong()), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,385 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+import io.github.frc5024.lib5k.utils.FileManagement;
+
+/**
+ * The TelemetryRecorder saves every value published through a
+ * {@link TelemetryChannel} field to a compact binary file in the session
+ * directory, along with its FPGA timestamp. Matches can then be reviewed in
+ * Shuffleboard after the fact with {@link TelemetryReplay}, even if no
+ * dashboard was connected at the time.
+ *
+ * <pre>
+ * {@code
+ * TelemetryRecorder.getInstance().start();
+ *
+ * // Optionally, stop sending telemetry over the network during matches
+ * TelemetryRecorder.getInstance().setLivePublishing(false);
+ * }
+ * </pre>
+ *
+ * Values are encoded into memory as they are published, and written to the
+ * file twice per second from the file IO lane of the
+ * {@link RealTimeExecutor}.
+ *
+ * The recorder is also a {@link SignalConsumer}, so every sample of a
+ * high-rate {@link Signal} can be saved under "/Lib5K-Signals/&lt;name&gt;"
+ * with {@code signal.addConsumer(TelemetryRecorder.getInstance())}.
+ */
+public class TelemetryRecorder implements SignalConsumer {
+    private static TelemetryRecorder instance = null;
+
+    // Time between file writes
+    private static final double WRITE_PERIOD = 0.5;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // Every field path, indexed by id - 1. Guarded by this
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private final ArrayList<String> paths = new ArrayList<>();
+    private final ArrayList<Integer> types = new ArrayList<>();
+
+    // Fields that have been defined in the current file. Guarded by this
+    private boolean[] defined = new boolean[0];
+
+    // Settings
+    private volatile boolean recording = false;
+    private volatile boolean livePublishing = true;
+
+    // Output. Guarded by this
+    private OutputStream m_file = null;
+    private byte[] m_buffer = new byte[16 * 1024];
+    private int m_length = 0;
+    private long m_lastTimestampMicros = 0;
+    private ScheduledTask writeTask = null;
+
+    // Buffer being written to the file, so recording never waits on IO. Guarded
+    // by m_writeLock, which is always taken before this
+    private final Object m_writeLock = new Object();
+    private byte[] m_writeBuffer = new byte[16 * 1024];
+
+    TelemetryRecorder() {
+    }
+
+    /**
+     * Get the TelemetryRecorder instance
+     *
+     * @return TelemetryRecorder
+     */
+    public static synchronized TelemetryRecorder getInstance() {
+        if (instance == null) {
+            instance = new TelemetryRecorder();
+        }
+        return instance;
+    }
+
+    /**
+     * Start recording to "telemetry.l5kt" in the session directory
+     */
+    public void start() {
+        start(TelemetryLogFormat.DEFAULT_FILENAME);
+    }
+
+    /**
+     * Start recording to a file in the session directory
+     *
+     * @param filename File name
+     */
+    public synchronized void start(String filename) {
+        if (recording) {
+            return;
+        }
+
+        try {
+            start(FileManagement.createFileOutputStream(filename));
+        } catch (IOException e) {
+            logger.log("Failed to create %s file!!", Level.kWarning, filename);
+            return;
+        }
+
+        // Write the file from the file IO lane
+        writeTask = RealTimeExecutor.getInstance().schedule("TelemetryRecorder", Lane.kFileIO, WRITE_PERIOD,
+                this::flush);
+        logger.log("Recording telemetry to %s", Level.kInfo, filename);
+    }
+
+    /**
+     * Start recording to any stream. This is mostly useful for unit tests, which
+     * must call {@link #flush()} themselves
+     *
+     * @param stream Output stream
+     */
+    synchronized void start(OutputStream stream) {
+        m_file = stream;
+        m_length = 0;
+        m_lastTimestampMicros = 0;
+        defined = new boolean[paths.size()];
+
+        // Write the file header
+        writeBytes(TelemetryLogFormat.MAGIC, 0, TelemetryLogFormat.MAGIC.length);
+        writeByte(TelemetryLogFormat.VERSION);
+        writeVarLong(System.currentTimeMillis());
+        recording = true;
+    }
+
+    /**
+     * Stop recording, and close the file
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!recording) {
+                return;
+            }
+            recording = false;
+
+            if (writeTask != null) {
+                writeTask.cancel();
+                writeTask = null;
+            }
+        }
+
+        // Write anything left, then close the file once no write is running
+        synchronized (m_writeLock) {
+            flush();
+            synchronized (this) {
+                try {
+                    m_file.close();
+                } catch (IOException e) {
+                    logger.log("Failed to close telemetry recording", Level.kWarning);
+                }
+                m_file = null;
+            }
+        }
+    }
+
+    /**
+     * Check if telemetry is being recorded
+     *
+     * @return Is recording?
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Set if fields should still publish to NetworkTables. Turning this off while
+     * recording keeps every value, without the network bandwidth. Values that
+     * don't change after this is turned back on won't be republished until they
+     * do. Defaults to true
+     *
+     * @param enabled Should fields publish live?
+     */
+    public void setLivePublishing(boolean enabled) {
+        this.livePublishing = enabled;
+    }
+
+    /**
+     * Check if fields should publish to NetworkTables
+     *
+     * @return Is live publishing enabled?
+     */
+    public boolean isLivePublishing() {
+        return livePublishing;
+    }
+
+    /**
+     * Get the id for a field, registering it if needed
+     *
+     * @param path Full NetworkTables path
+     * @param type Field type (see {@link TelemetryLogFormat})
+     * @return Field id
+     */
+    synchronized int register(String path, int type) {
+        Integer id = ids.get(path);
+        if (id == null) {
+            paths.add(path);
+            types.add(type);
+            id = paths.size();
+            ids.put(path, id);
+        }
+        return id;
+    }
+
+    /**
+     * Record a numeric value
+     *
+     * @param id    Field id
+     * @param value Value
+     */
+    synchronized void recordDouble(int id, double value) {
+        if (writeValueHeader(id)) {
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+    }
+
+    /**
+     * Record a boolean value
+     *
+     * @param id    Field id
+     * @param value Value
+     */
+    synchronized void recordBoolean(int id, boolean value) {
+        if (writeValueHeader(id)) {
+            writeByte(value ? 1 : 0);
+        }
+    }
+
+    /**
+     * Record a string value
+     *
+     * @param id    Field id
+     * @param value Value
+     */
+    synchronized void recordString(int id, String value) {
+        if (writeValueHeader(id)) {
+            writeString(value);
+        }
+    }
+
+    @Override
+    public void accept(Signal signal, long[] timestamps, double[] values, int count) {
+        if (!recording) {
+            return;
+        }
+
+        int id = register("/Lib5K-Signals/" + signal.getName(), TelemetryLogFormat.TYPE_DOUBLE);
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                if (writeValueHeader(id, timestamps[i])) {
+                    writeLong(Double.doubleToRawLongBits(values[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write everything recorded since the last flush to the file in a single write.
+     * The recording buffer is swapped out under the lock, and written outside it
+     */
+    void flush() {
+        synchronized (m_writeLock) {
+            OutputStream file;
+            byte[] buffer;
+            int length;
+            synchronized (this) {
+                if (m_length == 0 || m_file == null) {
+                    return;
+                }
+
+                file = m_file;
+                buffer = m_buffer;
+                length = m_length;
+                m_buffer = m_writeBuffer;
+                m_writeBuffer = buffer;
+                m_length = 0;
+            }
+
+            try {
+                file.write(buffer, 0, length);
+                file.flush();
+            } catch (IOException e) {
+                logger.log("Failed to write telemetry recording", Level.kWarning);
+            }
+        }
+    }
+
+    /**
+     * Write a value header, defining the field first if needed
+     *
+     * @param id Field id
+     * @return Should the value be written? (false if not recording)
+     */
+    private boolean writeValueHeader(int id) {
+        return writeValueHeader(id, Math.round(FPGAClock.getFPGASeconds() * 1e6));
+    }
+
+    /**
+     * Write a value header with a known timestamp, defining the field first if
+     * needed
+     *
+     * @param id              Field id
+     * @param timestampMicros FPGA timestamp in microseconds
+     * @return Should the value be written? (false if not recording)
+     */
+    private boolean writeValueHeader(int id, long timestampMicros) {
+        if (!recording) {
+            return false;
+        }
+
+        // Define the field the first time it is seen in this file
+        if (id > defined.length) {
+            defined = Arrays.copyOf(defined, paths.size());
+        }
+        if (!defined[id - 1]) {
+            defined[id - 1] = true;
+            writeByte(TelemetryLogFormat.TAG_FIELD);
+            writeVarLong(id);
+            writeByte(types.get(id - 1));
+            writeString(paths.get(id - 1));
+        }
+
+        writeByte(TelemetryLogFormat.TAG_VALUE);
+        writeVarLong(id);
+        writeVarLong(TelemetryLogFormat.zigzag(timestampMicros - m_lastTimestampMicros));
+        m_lastTimestampMicros = timestampMicros;
+        return true;
+    }
+
+    /**
+     * Make sure there is room for more bytes in the buffer
+     *
+     * @param count Number of bytes about to be written
+     */
+    private void ensureCapacity(int count) {
+        if (m_length + count > m_buffer.length) {
+            m_buffer = Arrays.copyOf(m_buffer, Math.max(m_buffer.length * 2, m_length + count));
+        }
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        m_buffer[m_length++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, m_buffer, m_length, length);
+        m_length += length;
+    }
+
+    private void writeLong(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            m_buffer[m_length++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            m_buffer[m_length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        m_buffer[m_length++] = (byte) value;
+    }
+
+    private void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+}
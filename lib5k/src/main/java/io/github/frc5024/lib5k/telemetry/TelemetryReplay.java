@@ -0,0 +1,181 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import io.github.frc5024.lib5k.telemetry.TelemetryLogReader.Entry;
+
+/**
+ * A command line tool that replays a recording made by
+ * {@link TelemetryRecorder} to a local NetworkTables server, so a match can be
+ * reviewed in Shuffleboard without the robot. Point Shuffleboard at
+ * "localhost" to watch.
+ *
+ * <pre>
+ * usage: java -cp lib5k.jar io.github.frc5024.lib5k.telemetry.TelemetryReplay [options] file
+ *
+ *   -r RATE     Playback speed (1 for real time, 2 for double speed, ...). Defaults to 1
+ *   -s SECONDS  Skip values recorded before this FPGA time
+ *   -e SECONDS  Stop at this FPGA time
+ * </pre>
+ */
+public class TelemetryReplay {
+
+    private final NetworkTableInstance instance;
+    private final HashMap<String, NetworkTableEntry> entries = new HashMap<>();
+
+    // Settings
+    private double rate = 1.0;
+    private double startTime = Double.NEGATIVE_INFINITY;
+    private double endTime = Double.POSITIVE_INFINITY;
+
+    /**
+     * Create a TelemetryReplay
+     *
+     * @param instance NetworkTables instance to publish to
+     */
+    public TelemetryReplay(NetworkTableInstance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * Set the playback speed
+     *
+     * @param rate Playback speed (1 for real time)
+     * @return This replay
+     */
+    public TelemetryReplay setRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Playback rate must be positive");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    /**
+     * Only replay values from a time range
+     *
+     * @param startSeconds Earliest FPGA time to replay
+     * @param endSeconds   Latest FPGA time to replay
+     * @return This replay
+     */
+    public TelemetryReplay setTimeRange(double startSeconds, double endSeconds) {
+        this.startTime = startSeconds;
+        this.endTime = endSeconds;
+        return this;
+    }
+
+    /**
+     * Replay every value in a recording, in real time (scaled by the rate).
+     * Values before the start time are published all at once, so the dashboard
+     * starts out in the right state
+     *
+     * @param reader Recording
+     * @throws IOException          Thrown if the recording is corrupt
+     * @throws InterruptedException Thrown if the replay is interrupted
+     */
+    public void play(TelemetryLogReader reader) throws IOException, InterruptedException {
+        long wallStart = 0;
+        double firstTimestamp = Double.NaN;
+
+        Entry entry;
+        while ((entry = reader.next()) != null) {
+            double timestamp = entry.getTimestamp();
+            if (timestamp > endTime) {
+                break;
+            }
+
+            // Wait until the value is due
+            if (timestamp >= startTime) {
+                if (Double.isNaN(firstTimestamp)) {
+                    firstTimestamp = timestamp;
+                    wallStart = System.nanoTime();
+                }
+
+                long due = wallStart + (long) ((timestamp - firstTimestamp) / rate * 1e9);
+                long wait = due - System.nanoTime();
+                if (wait > 1_000_000L) {
+                    instance.flush();
+                    Thread.sleep(wait / 1_000_000L);
+                }
+            }
+
+            publish(entry);
+        }
+        instance.flush();
+    }
+
+    /**
+     * Publish a single value
+     *
+     * @param entry Recorded value
+     */
+    private void publish(Entry entry) {
+        NetworkTableEntry ntEntry = entries.computeIfAbsent(entry.getPath(), instance::getEntry);
+
+        Object value = entry.getValue();
+        if (value instanceof Double) {
+            ntEntry.setDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            ntEntry.setBoolean((Boolean) value);
+        } else {
+            ntEntry.setString(value.toString());
+        }
+    }
+
+    /**
+     * Command line entrypoint
+     *
+     * @param args Arguments
+     */
+    public static void main(String[] args) {
+        NetworkTableInstance instance = NetworkTableInstance.getDefault();
+        TelemetryReplay replay = new TelemetryReplay(instance);
+        String file = null;
+        double start = Double.NEGATIVE_INFINITY;
+        double end = Double.POSITIVE_INFINITY;
+
+        // Parse arguments
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-r":
+                        replay.setRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "-s":
+                        start = Double.parseDouble(args[++i]);
+                        break;
+                    case "-e":
+                        end = Double.parseDouble(args[++i]);
+                        break;
+                    default:
+                        file = args[i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            file = null;
+        }
+
+        if (file == null) {
+            System.err.println("usage: TelemetryReplay [-r RATE] [-s SECONDS] [-e SECONDS] file");
+            System.exit(1);
+        }
+        replay.setTimeRange(start, end);
+
+        // Serve the recording to dashboards
+        instance.startServer();
+        try (TelemetryLogReader reader = new TelemetryLogReader(file)) {
+            System.out.println("Replaying " + file + ". Connect a dashboard to localhost");
+            replay.play(reader);
+            System.out.println("Replay finished");
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance.stopServer();
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import java.util.Arrays;
+
+import io.github.frc5024.lib5k.logging.Loggable;
+import io.github.frc5024.lib5k.logging.RobotLogger;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+/**
+ * The TelemetryScheduler calls {@link Loggable#updateTelemetry()} once the main
+ * robot loop is done, so robot code doesn't have to. Each component gets its
+ * own rate, so fast-changing data (like drivetrain outputs) can be published
+ * every loop, while config flags are only checked at 2Hz:
+ *
+ * <pre>
+ * {@code
+ * TelemetryScheduler.getInstance().register(leftGearbox, 50.0);
+ * TelemetryScheduler.getInstance().register(shifterSolenoid, 2.0);
+ * }
+ * </pre>
+ *
+ * Components that share a rate are offset from each other, so no single loop
+ * has to publish everything. Combined with {@link TelemetryChannel} fields only
+ * publishing changed values, this keeps both CPU time and NetworkTables
+ * bandwidth down.
+ *
+ * updateTelemetry() runs on the main robot thread, so it can read the same
+ * state the rest of the loop writes. Only sending values over the network
+ * happens in the background, on NetworkTables' own thread.
+ * {@link io.github.frc5024.lib5k.autonomous.RobotProgram} calls
+ * {@link #update()} at the end of every loop. Robots that don't use it must call
+ * update() themselves, at the end of robotPeriodic().
+ */
+public class TelemetryScheduler {
+    private static TelemetryScheduler instance = null;
+
+    // Default loop period in seconds (the TimedRobot default)
+    private static final double DEFAULT_LOOP_PERIOD = 0.02;
+
+    private RobotLogger logger = RobotLogger.getInstance();
+
+    // Tick rate. Every component rate is rounded to a whole number of loops
+    private double tickHz;
+
+    /**
+     * A single scheduled component
+     */
+    private static final class Registration {
+        final Loggable component;
+        final double hz;
+        final int period;
+        final int phase;
+
+        Registration(Loggable component, double hz, int period, int phase) {
+            this.component = component;
+            this.hz = hz;
+            this.period = period;
+            this.phase = phase;
+        }
+    }
+
+    // Every registered component. Replaced (never modified) while holding this
+    private volatile Registration[] registrations = new Registration[0];
+
+    // Number of components that run on each tick of a one second frame. Periods
+    // that divide the frame evenly are spread perfectly
+    private int[] frameLoad;
+
+    // Tick state. Only touched by the main robot thread
+    private long tick = 0;
+
+    /**
+     * Create a TelemetryScheduler
+     *
+     * @param tickHz Number of times per second {@link #update()} is called
+     */
+    TelemetryScheduler(double tickHz) {
+        this.tickHz = tickHz;
+        this.frameLoad = new int[(int) Math.max(1, Math.round(tickHz))];
+    }
+
+    /**
+     * Get the TelemetryScheduler instance
+     *
+     * @return TelemetryScheduler
+     */
+    public static synchronized TelemetryScheduler getInstance() {
+        if (instance == null) {
+            instance = new TelemetryScheduler(1.0 / DEFAULT_LOOP_PERIOD);
+        }
+        return instance;
+    }
+
+    /**
+     * Set how often {@link #update()} will be called. Component rates are
+     * recalculated for the new period
+     *
+     * @param seconds Robot loop period in seconds
+     */
+    public synchronized void setLoopPeriod(double seconds) {
+        Registration[] current = registrations;
+
+        // Start over with an empty frame
+        tickHz = 1.0 / seconds;
+        frameLoad = new int[(int) Math.max(1, Math.round(tickHz))];
+        registrations = new Registration[0];
+
+        for (Registration registration : current) {
+            add(registration.component, registration.hz);
+        }
+    }
+
+    /**
+     * Publish a component's telemetry at a fixed rate
+     *
+     * @param component Component to publish
+     * @param hz        Publish rate in Hz (capped at the robot loop rate)
+     */
+    public void register(Loggable component, double hz) {
+        add(component, hz);
+    }
+
+    /**
+     * Stop publishing a component's telemetry
+     *
+     * @param component Component to remove
+     */
+    public synchronized void unregister(Loggable component) {
+        Registration[] current = registrations;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].component == component) {
+
+                // Give the component's ticks back
+                updateLoad(current[i].period, current[i].phase, -1);
+
+                // Remove it from the list
+                Registration[] next = new Registration[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                registrations = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of registered components
+     *
+     * @return Component count
+     */
+    public int getComponentCount() {
+        return registrations.length;
+    }
+
+    /**
+     * Add a component
+     *
+     * @param component Component to publish
+     * @param hz        Publish rate in Hz
+     * @return Tick offset the component was given
+     */
+    synchronized int add(Loggable component, double hz) {
+        unregister(component);
+
+        // Convert the rate to ticks
+        int period = (int) Math.max(1, Math.round(tickHz / hz));
+        int phase = pickPhase(period);
+        updateLoad(period, phase, 1);
+
+        Registration[] next = Arrays.copyOf(registrations, registrations.length + 1);
+        next[next.length - 1] = new Registration(component, hz, period, phase);
+        registrations = next;
+        return phase;
+    }
+
+    /**
+     * Find the tick offset that puts the least work on the busiest tick a
+     * component would run on
+     *
+     * @param period Component period in ticks
+     * @return Tick offset
+     */
+    private int pickPhase(int period) {
+        int bestPhase = 0;
+        long bestCost = Long.MAX_VALUE;
+
+        for (int phase = 0; phase < Math.min(period, frameLoad.length); phase++) {
+
+            // Rank by the busiest tick, then by total work
+            int worst = 0;
+            int total = 0;
+            for (int t = phase; t < frameLoad.length; t += period) {
+                worst = Math.max(worst, frameLoad[t]);
+                total += frameLoad[t];
+            }
+            long cost = ((long) worst << 32) + total;
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestPhase = phase;
+            }
+        }
+
+        return bestPhase;
+    }
+
+    private void updateLoad(int period, int phase, int delta) {
+        for (int t = phase; t < frameLoad.length; t += period) {
+            frameLoad[t] += delta;
+        }
+    }
+
+    /**
+     * Publish every component that is due this loop. This must be called once per
+     * loop, from the main robot thread
+     */
+    public void update() {
+        long now = tick++;
+
+        for (Registration registration : registrations) {
+            if (now % registration.period != registration.phase) {
+                continue;
+            }
+
+            // Don't let one broken component stop everything else
+            try {
+                registration.component.updateTelemetry();
+            } catch (RuntimeException e) {
+                logger.log("Telemetry update failed for a component. Removing it. %s", Level.kWarning, e.toString());
+                unregister(registration.component);
+            }
+        }
+    }
+}
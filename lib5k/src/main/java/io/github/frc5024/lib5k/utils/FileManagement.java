@@ -2,12 +2,15 @@ package io.github.frc5024.lib5k.utils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.RobotBase;
@@ -62,6 +65,10 @@ public class FileManagement {
             // Set the session path
             sessionPath = basePath.toString();
 
+            // Clean up after older sessions in the background
+            Path current = Paths.get(sessionPath);
+            SessionStore.getInstance().startMaintenance(current.getParent(), current);
+
         }
 
         // Return the session path
@@ -89,6 +96,30 @@ public class FileManagement {
         return new FileWriter(getSessionDirectoryPath() + "/" + filename);
     }
 
+    /**
+     * Create a FileOutputStream for a binary file inside the current session
+     * 
+     * @param filename File name
+     * @return Session FileOutputStream
+     * @throws IOException Thrown when the specified file cannot be opened
+     */
+    public static FileOutputStream createFileOutputStream(String filename) throws IOException {
+        return new FileOutputStream(getSessionDirectoryPath() + "/" + filename);
+    }
+
+    /**
+     * Create a FileChannel for writing to a file inside the current session. Any
+     * existing file is replaced.
+     * 
+     * @param filename File name
+     * @return Session FileChannel
+     * @throws IOException Thrown when the specified file cannot be opened
+     */
+    public static FileChannel createFileChannel(String filename) throws IOException {
+        return FileChannel.open(Paths.get(getSessionDirectoryPath(), filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
     /**
      * Create a FileReader for a file inside the current session
      * 
@@ -115,11 +146,12 @@ public class FileManagement {
     }
 
     /**
-     * Get if the USB stick is plugged in
+     * Get if the USB stick is plugged in. This is cached by the
+     * {@link USBMountWatcher}, so it is cheap to call often.
      * 
      * @return Is USB stick plugged in?
      */
     public static boolean isUSBAttached() {
-        return Files.exists(Path.of(getUSBStickBasePath()));
+        return USBMountWatcher.getInstance().isAttached();
     }
 }
\ No newline at end of file
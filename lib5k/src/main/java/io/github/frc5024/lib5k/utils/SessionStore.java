@@ -0,0 +1,430 @@
+package io.github.frc5024.lib5k.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * The SessionStore keeps the sessions folder on the USB stick from growing
+ * forever. Shortly after boot, a background thread:
+ * <ul>
+ * <li>Deletes sessions older than the age cap</li>
+ * <li>Deletes the oldest sessions until the folder is under its size cap, and
+ * the stick has enough free space</li>
+ * <li>Once the robot is disabled, compresses every file left over from the
+ * remaining sessions (they are all closed by now). If the robot is enabled part
+ * way through, the rest are left for the next boot</li>
+ * </ul>
+ * Eviction runs first, so the stick is cleared right away, and sessions that
+ * are about to be deleted are never compressed.
+ * The current session is never touched.
+ *
+ * Settings should be changed in the robot constructor, before anything is
+ * logged. By default, this only runs on a real robot.
+ */
+public class SessionStore {
+    private static SessionStore instance = null;
+
+    // Time to wait after boot before doing any work, so robot startup gets the USB
+    // stick to itself
+    private static final long STARTUP_DELAY_MS = 5000;
+
+    // Time between checks while waiting for the robot to be disabled
+    private static final long DISABLED_POLL_MS = 1000;
+
+    // Suffixes for compressed files and in-progress compressions
+    static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String PARTIAL_SUFFIX = ".gz.tmp";
+
+    // Settings
+    private volatile boolean enabled = RobotBase.isReal();
+    private volatile boolean compressOldSessions = true;
+    private volatile boolean compressNewFiles = false;
+    private volatile long maxTotalBytes = 2L * 1024 * 1024 * 1024;
+    private volatile long minFreeBytes = 256L * 1024 * 1024;
+    private volatile long maxAgeMillis = 30L * 24 * 60 * 60 * 1000;
+
+    private Thread thread = null;
+
+    // Checks if the robot is disabled. Replaced by tests
+    BooleanSupplier robotDisabled = () -> DriverStation.getInstance().isDisabled();
+
+    SessionStore() {
+    }
+
+    /**
+     * Get the SessionStore instance
+     *
+     * @return SessionStore
+     */
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Set if old sessions should be cleaned up at all
+     *
+     * @param enabled Should sessions be maintained?
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Set if files from previous sessions should be compressed. Defaults to true
+     *
+     * @param compress Should old files be compressed?
+     */
+    public void setCompressOldSessions(boolean compress) {
+        this.compressOldSessions = compress;
+    }
+
+    /**
+     * Set if new CSV files and robot.log should be compressed as they are
+     * written. This reduces how much is written to the USB stick, but files can't
+     * be opened until they are decompressed. Defaults to false
+     *
+     * @param compress Should new files be compressed?
+     */
+    public void setCompressNewFiles(boolean compress) {
+        this.compressNewFiles = compress;
+    }
+
+    /**
+     * Get if new CSV files and robot.log should be compressed as they are written
+     *
+     * @return Should new files be compressed?
+     */
+    public boolean isCompressingNewFiles() {
+        return compressNewFiles;
+    }
+
+    /**
+     * Set the most space all sessions together may use. Defaults to 2 GiB
+     *
+     * @param bytes Maximum size in bytes
+     */
+    public void setMaxTotalSize(long bytes) {
+        this.maxTotalBytes = bytes;
+    }
+
+    /**
+     * Set the least free space that should be left on the USB stick. Defaults to
+     * 256 MiB
+     *
+     * @param bytes Minimum free space in bytes
+     */
+    public void setMinFreeSpace(long bytes) {
+        this.minFreeBytes = bytes;
+    }
+
+    /**
+     * Set the oldest a session may be before it is deleted. Defaults to 30 days
+     *
+     * @param days Maximum age in days
+     */
+    public void setMaxAge(double days) {
+        this.maxAgeMillis = (long) (days * 24 * 60 * 60 * 1000);
+    }
+
+    /**
+     * Start cleaning up old sessions in the background. This is called by
+     * {@link FileManagement} when the session is created
+     *
+     * @param root    Folder containing every session
+     * @param current The current session
+     */
+    synchronized void startMaintenance(Path root, Path current) {
+        if (!enabled || thread != null) {
+            return;
+        }
+
+        thread = new Thread(() -> {
+            try {
+                Thread.sleep(STARTUP_DELAY_MS);
+
+                // Make room on the stick right away
+                evictSessions(root, current, System.currentTimeMillis());
+
+                // Compression is slow, so keep it out of matches
+                if (!compressOldSessions) {
+                    return;
+                }
+                while (!robotDisabled.getAsBoolean()) {
+                    Thread.sleep(DISABLED_POLL_MS);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            compressSessions(root, current, robotDisabled);
+        }, "Lib5K SessionStore");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Clean up old sessions now, on the calling thread
+     */
+    public void runMaintenance() {
+        Path current = FileManagement.getSessionDirectory().toPath();
+        maintain(current.getParent(), current, System.currentTimeMillis());
+    }
+
+    /**
+     * Compress and evict old sessions
+     *
+     * @param root    Folder containing every session
+     * @param current The current session
+     * @param now     Current time in milliseconds since the epoch
+     * @return Sessions that were deleted
+     */
+    List<Path> maintain(Path root, Path current, long now) {
+        return maintain(root, current, now, () -> true);
+    }
+
+    /**
+     * Evict old sessions, then compress the ones that are left
+     *
+     * @param root            Folder containing every session
+     * @param current         The current session
+     * @param now             Current time in milliseconds since the epoch
+     * @param keepCompressing Checked before each file is compressed. Once this
+     *                        returns false, nothing else is compressed
+     * @return Sessions that were deleted
+     */
+    List<Path> maintain(Path root, Path current, long now, BooleanSupplier keepCompressing) {
+        List<Path> deleted = evictSessions(root, current, now);
+        if (compressOldSessions) {
+            compressSessions(root, current, keepCompressing);
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete old sessions until every cap is met
+     *
+     * @param root    Folder containing every session
+     * @param current The current session
+     * @param now     Current time in milliseconds since the epoch
+     * @return Sessions that were deleted
+     */
+    synchronized List<Path> evictSessions(Path root, Path current, long now) {
+        return evict(root, listSessions(root, current), now);
+    }
+
+    /**
+     * Compress every file left over in old sessions, oldest session first
+     *
+     * @param root            Folder containing every session
+     * @param current         The current session
+     * @param keepCompressing Checked before each file is compressed. Once this
+     *                        returns false, nothing else is compressed
+     */
+    synchronized void compressSessions(Path root, Path current, BooleanSupplier keepCompressing) {
+        for (Path session : listSessions(root, current)) {
+            if (!compressSession(session, keepCompressing)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete sessions, oldest first, until every cap is met
+     *
+     * @param root     Folder containing every session
+     * @param sessions Old sessions, oldest first
+     * @param now      Current time in milliseconds since the epoch
+     * @return Sessions that were deleted
+     */
+    private List<Path> evict(Path root, List<Path> sessions, long now) {
+        ArrayList<Path> deleted = new ArrayList<>();
+
+        // Add up all session sizes
+        long[] sizes = new long[sessions.size()];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sizeOf(sessions.get(i));
+            total += sizes[i];
+        }
+
+        for (int i = 0; i < sizes.length; i++) {
+            Path session = sessions.get(i);
+
+            // Stop once the oldest remaining session is new enough, and everything fits
+            boolean tooOld = now - getSessionTime(session) > maxAgeMillis;
+            if (!tooOld && total <= maxTotalBytes && getFreeSpace(root) >= minFreeBytes) {
+                break;
+            }
+
+            if (deleteRecursively(session)) {
+                total -= sizes[i];
+                deleted.add(session);
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Compress every uncompressed file in a session
+     *
+     * @param session         Session folder
+     * @param keepCompressing Checked before each file is compressed
+     * @return Was every file compressed? False if compression was stopped early
+     */
+    private boolean compressSession(Path session, BooleanSupplier keepCompressing) {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(session)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            // Skip sessions that can't be read
+            return true;
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+
+            // Clean up compressions that were interrupted by a power loss
+            if (name.endsWith(PARTIAL_SUFFIX)) {
+                deleteQuietly(file);
+            } else if (!name.endsWith(COMPRESSED_SUFFIX)) {
+                if (!keepCompressing.getAsBoolean()) {
+                    return false;
+                }
+                compressFile(file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replace a file with a GZIP compressed copy. The copy is written to a
+     * temporary file first, so a power loss can never leave a half-written file
+     * in place of the original.
+     *
+     * @param file File to compress
+     */
+    static void compressFile(Path file) {
+        Path partial = file.resolveSibling(file.getFileName() + PARTIAL_SUFFIX);
+        Path compressed = file.resolveSibling(file.getFileName() + COMPRESSED_SUFFIX);
+
+        try (InputStream input = Files.newInputStream(file);
+                OutputStream output = new FastGZIPOutputStream(Files.newOutputStream(partial))) {
+            input.transferTo(output);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            return;
+        }
+
+        try {
+            Files.move(partial, compressed, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(file);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+        }
+    }
+
+    /**
+     * List every session except the current one, oldest first
+     *
+     * @param root    Folder containing every session
+     * @param current The current session
+     * @return Old sessions
+     */
+    private static List<Path> listSessions(Path root, Path current) {
+        ArrayList<Path> sessions = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path entry : entries) {
+                if (!entry.equals(current)) {
+                    sessions.add(entry);
+                }
+            }
+        } catch (IOException e) {
+            return sessions;
+        }
+
+        sessions.sort(Comparator.comparingLong(SessionStore::getSessionTime));
+        return sessions;
+    }
+
+    /**
+     * Get the time a session was started. Session folders are named with their
+     * start time, but anything else falls back to the folder's modified time
+     *
+     * @param session Session folder
+     * @return Start time in milliseconds since the epoch
+     */
+    private static long getSessionTime(Path session) {
+        try {
+            return Long.parseLong(session.getFileName().toString());
+        } catch (NumberFormatException e) {
+            try {
+                return Files.getLastModifiedTime(session).toMillis();
+            } catch (IOException e2) {
+                return 0;
+            }
+        }
+    }
+
+    private static long getFreeSpace(Path root) {
+        try {
+            return Files.getFileStore(root).getUsableSpace();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long sizeOf(Path session) {
+        try (Stream<Path> files = Files.walk(session)) {
+            return files.filter(Files::isRegularFile).mapToLong((file) -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean deleteRecursively(Path session) {
+        try (Stream<Path> files = Files.walk(session)) {
+            files.sorted(Comparator.reverseOrder()).forEach(SessionStore::deleteQuietly);
+        } catch (IOException e) {
+            return false;
+        }
+        return !Files.exists(session);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Nothing else can be done
+        }
+    }
+
+    /**
+     * A GZIPOutputStream that trades compression ratio for speed
+     */
+    static class FastGZIPOutputStream extends GZIPOutputStream {
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, 64 * 1024);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.frc5024.lib5k.utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Keeps track of if the USB stick is mounted, without touching the filesystem
+ * every time someone asks.
+ *
+ * The directory containing the mount point is watched for the mount point
+ * appearing or disappearing, so plugging or unplugging the stick is picked up
+ * right away. As a safety net (and on filesystems that can't be watched), the
+ * mount point is also re-checked every few seconds.
+ */
+public class USBMountWatcher implements AutoCloseable {
+    private static USBMountWatcher instance = null;
+
+    // Time between safety net checks
+    private static final long RECHECK_PERIOD_NANOS = 5_000_000_000L;
+
+    private final Path m_mountPoint;
+    private WatchService m_watchService;
+    private Thread m_thread;
+
+    // Cached state
+    private volatile boolean m_attached;
+    private volatile long m_lastCheck;
+
+    /**
+     * Create a USBMountWatcher
+     *
+     * @param mountPoint Directory the USB stick is mounted at
+     */
+    USBMountWatcher(Path mountPoint) {
+        this.m_mountPoint = mountPoint.toAbsolutePath();
+
+        // Start watching before the first check, so nothing is missed in between
+        startWatching();
+        check();
+    }
+
+    /**
+     * Get the USBMountWatcher for the robot's USB stick
+     *
+     * @return USBMountWatcher
+     */
+    public static synchronized USBMountWatcher getInstance() {
+        if (instance == null) {
+            instance = new USBMountWatcher(Path.of(FileManagement.getUSBStickBasePath()));
+        }
+        return instance;
+    }
+
+    /**
+     * Get if the USB stick is plugged in
+     *
+     * @return Is USB stick plugged in?
+     */
+    public boolean isAttached() {
+
+        // Occasionally check the filesystem directly, in case an event was missed
+        if (System.nanoTime() - m_lastCheck > RECHECK_PERIOD_NANOS) {
+            check();
+        }
+
+        return m_attached;
+    }
+
+    /**
+     * Get if mount changes are being picked up by a watcher thread. If not, they
+     * will only be noticed by the periodic re-check.
+     *
+     * @return Is the mount point being watched?
+     */
+    public boolean isWatching() {
+        return m_thread != null && m_thread.isAlive();
+    }
+
+    /**
+     * Check the filesystem for the mount point
+     */
+    private void check() {
+        m_lastCheck = System.nanoTime();
+        m_attached = Files.isDirectory(m_mountPoint);
+    }
+
+    /**
+     * Register a watch on the mount point's parent directory, and start handling
+     * its events
+     */
+    private void startWatching() {
+        Path parent = m_mountPoint.getParent();
+        if (parent == null || !Files.isDirectory(parent)) {
+            return;
+        }
+
+        try {
+            m_watchService = FileSystems.getDefault().newWatchService();
+            parent.register(m_watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Fall back to periodic checks
+            m_watchService = null;
+            return;
+        }
+
+        m_thread = new Thread(this::watch, "USBMountWatcher");
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /**
+     * Handle watch events until the watch service is closed
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = m_watchService.take();
+
+                // Any event in the parent (including an overflow) triggers a re-check
+                key.pollEvents();
+                check();
+
+                // Stop if the parent directory went away
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher is shutting down
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (m_watchService != null) {
+            m_watchService.close();
+        }
+    }
+}
@@ -6,12 +6,16 @@ import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 
+import io.github.frc5024.lib5k.logging.LogChannel;
 import io.github.frc5024.lib5k.logging.RobotLogger;
 import io.github.frc5024.lib5k.logging.RobotLogger.Level;
 
 public class StateMachine<T> {
     private RobotLogger logger = RobotLogger.getInstance();
 
+    // setState() is called every loop, so it gets a pre-bound log channel
+    private LogChannel stateLog = logger.getChannel(StateMachine.class, "setState");
+
     // The state to be run in the event of an error with state handling. Should be
     // an idle state
     public T defaultStateKey;
@@ -146,7 +150,7 @@ public class StateMachine<T> {
      */
     public void setState(T key) {
         if (desiredStateKey != null && !desiredStateKey.equals(key)) {
-            logger.log("Switching to state: %s", Level.kDebug, key);
+            stateLog.log("Switching to state: %s", Level.kDebug, key);
         }
         desiredStateKey = key;
     }
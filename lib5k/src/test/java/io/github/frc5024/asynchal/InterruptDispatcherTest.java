@@ -0,0 +1,48 @@
+package io.github.frc5024.asynchal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class InterruptDispatcherTest {
+
+    /**
+     * Test that edges are handled in order, with their timestamps, and that a
+     * handler that throws doesn't stop the rest
+     */
+    @Test
+    public void testDispatchOrder() {
+        InterruptDispatcher dispatcher = new InterruptDispatcher(false);
+        ArrayList<String> edges = new ArrayList<>();
+
+        dispatcher.post((rising, timestamp) -> edges.add((rising ? "rise@" : "fall@") + timestamp), true, 1.5);
+        dispatcher.post((rising, timestamp) -> {
+            throw new RuntimeException("Test");
+        }, true, 1.6);
+        dispatcher.post((rising, timestamp) -> edges.add((rising ? "rise@" : "fall@") + timestamp), false, 1.75);
+        dispatcher.drain();
+
+        assertEquals("[rise@1.5, fall@1.75]", edges.toString());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    /**
+     * Test that edges past the queue size are dropped, not blocked on
+     */
+    @Test
+    public void testFullQueue() {
+        InterruptDispatcher dispatcher = new InterruptDispatcher(false);
+        int[] count = { 0 };
+
+        for (int i = 0; i < 300; i++) {
+            dispatcher.post((rising, timestamp) -> count[0]++, true, i);
+        }
+        dispatcher.drain();
+
+        assertEquals(256, count[0]);
+        assertEquals(44, dispatcher.getDroppedCount());
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.frc5024.asynchal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.asynchal.Pollable.Rate;
+
+public class PollerTest {
+
+    /**
+     * Test that Pollables are grouped by rate, and only polled with their group
+     */
+    @Test
+    public void testRateGroups() {
+        Poller poller = new Poller(false);
+        int[] fastCount = { 0 };
+        int[] slowCount = { 0 };
+
+        Pollable fast = new Pollable() {
+            @Override
+            public void checkForUpdates() {
+                fastCount[0]++;
+            }
+
+            @Override
+            public Rate getPollRate() {
+                return Rate.k1000Hz;
+            }
+        };
+        Pollable slow = () -> slowCount[0]++;
+
+        poller.register(fast);
+        poller.register(fast);
+        poller.register(slow, Rate.k10Hz);
+        assertEquals(1, poller.getCount(Rate.k1000Hz));
+        assertEquals(Rate.k10Hz, poller.getRate(slow));
+
+        poller.poll(Rate.k1000Hz);
+        poller.poll(Rate.k1000Hz);
+        poller.poll(Rate.k10Hz);
+        assertEquals(2, fastCount[0]);
+        assertEquals(1, slowCount[0]);
+
+        poller.deregister(fast);
+        assertNull(poller.getRate(fast));
+        poller.poll(Rate.k1000Hz);
+        assertEquals(2, fastCount[0]);
+    }
+
+    /**
+     * Test that faster groups are given higher priorities
+     */
+    @Test
+    public void testRateMonotonicPriorities() {
+        Rate[] rates = Rate.values();
+        for (int i = 1; i < rates.length; i++) {
+            assertTrue(rates[i - 1].name() + " should be polled before " + rates[i].name(),
+                    rates[i - 1].period < rates[i].period
+                            && Poller.getPriority(rates[i - 1]) > Poller.getPriority(rates[i]));
+        }
+    }
+
+    /**
+     * Test that a Pollable that throws is removed without affecting its group
+     */
+    @Test
+    public void testErrorIsolation() {
+        Poller poller = new Poller(false);
+        int[] count = { 0 };
+
+        poller.register(() -> {
+            throw new RuntimeException("Test");
+        }, Rate.k50Hz);
+        poller.register(() -> count[0]++, Rate.k50Hz);
+
+        poller.poll(Rate.k50Hz);
+        poller.poll(Rate.k50Hz);
+        assertEquals(2, count[0]);
+        assertEquals(1, poller.getCount(Rate.k50Hz));
+    }
+
+}
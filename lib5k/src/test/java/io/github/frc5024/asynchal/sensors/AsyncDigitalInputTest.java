@@ -0,0 +1,90 @@
+package io.github.frc5024.asynchal.sensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.simulation.DIOSim;
+import io.github.frc5024.asynchal.InterruptDispatcher;
+import io.github.frc5024.asynchal.Poller;
+
+public class AsyncDigitalInputTest {
+
+    /**
+     * Create a polled input that is only updated by hand
+     *
+     * @param dispatcher Dispatcher to run callbacks from
+     * @param edges      List to add each edge to
+     * @return Input
+     */
+    private static AsyncDigitalInput createInput(InterruptDispatcher dispatcher, ArrayList<String> edges) {
+        AsyncDigitalInput input = new AsyncDigitalInput(11, false, dispatcher);
+        Poller.getInstance().deregister(input);
+
+        input.registerTriggerCallback((double timestamp) -> edges.add("rise@" + timestamp));
+        input.registerReleaseCallback((double timestamp) -> edges.add("fall@" + timestamp));
+        return input;
+    }
+
+    /**
+     * Test that interrupt masks are decoded, and that both edges of a short pulse
+     * are sent in the order they happened
+     */
+    @Test
+    public void testInterruptEdges() {
+        InterruptDispatcher dispatcher = new InterruptDispatcher(false);
+        ArrayList<String> edges = new ArrayList<>();
+        AsyncDigitalInput input = createInput(dispatcher, edges);
+        assertFalse("Polling in tests", input.isUsingInterrupts());
+
+        // Single edges
+        input.handleInterrupt(0x1, 1.0, 0.0);
+        input.handleInterrupt(0x100, 0.0, 2.0);
+        input.handleInterrupt(0x0, 0.0, 0.0);
+        dispatcher.drain();
+        assertEquals("[rise@1.0, fall@2.0]", edges.toString());
+        edges.clear();
+
+        // A low pulse, then a high pulse, each caught by one interrupt
+        input.handleInterrupt(0x101, 3.5, 3.25);
+        input.handleInterrupt(0x101, 4.0, 4.25);
+        dispatcher.drain();
+        assertEquals("[fall@3.25, rise@3.5, rise@4.0, fall@4.25]", edges.toString());
+
+        input.close();
+    }
+
+    /**
+     * Test that the polling fallback sends one callback per state change
+     */
+    @Test
+    public void testPollingFallback() {
+        InterruptDispatcher dispatcher = new InterruptDispatcher(false);
+        ArrayList<String> edges = new ArrayList<>();
+        AsyncDigitalInput input = createInput(dispatcher, edges);
+        DIOSim sim = new DIOSim(input);
+
+        // Start from a known state
+        sim.setValue(false);
+        input.checkForUpdates();
+        dispatcher.drain();
+        edges.clear();
+
+        sim.setValue(true);
+        input.checkForUpdates();
+        input.checkForUpdates();
+        sim.setValue(false);
+        input.checkForUpdates();
+        dispatcher.drain();
+
+        assertEquals(2, edges.size());
+        assertEquals("rise", edges.get(0).substring(0, 4));
+        assertEquals("fall", edges.get(1).substring(0, 4));
+
+        input.close();
+    }
+
+}
@@ -0,0 +1,223 @@
+package io.github.frc5024.lib5k.hardware.common.motors;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.hardware.common.motors.OutputCoalescer.Output;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+
+public class OutputCoalescerTest {
+
+    /**
+     * Test that requests are written straight through while disabled
+     */
+    @Test
+    public void testDisabledWritesImmediately() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        double[] written = { Double.NaN };
+        Output output = coalescer.register("Test", 2, (value) -> written[0] = value);
+
+        output.request(0.5);
+        assertEquals(0.5, written[0], 1e-9);
+        output.request(0.5);
+        assertEquals(4, coalescer.getFramesWritten());
+    }
+
+    /**
+     * Test that outputs written while disabled aren't skipped by the deadband
+     * once coalescing is turned back on
+     */
+    @Test
+    public void testReenableAfterDirectWrites() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setEnabled(true);
+        double[] written = { Double.NaN };
+        Output output = coalescer.register("Test", 1, (value) -> written[0] = value);
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        output.request(0.5);
+        coalescer.flush();
+
+        // Written straight through
+        coalescer.setEnabled(false);
+        output.request(1.0);
+        assertEquals(1.0, written[0], 1e-9);
+
+        // Going back to the old value must still be sent
+        coalescer.setEnabled(true);
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.5);
+        coalescer.flush();
+        assertEquals(0.5, written[0], 1e-9);
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+
+    /**
+     * Test the deadband, zero writes, and keep-alive interval
+     */
+    @Test
+    public void testDeadbandAndKeepAlive() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setDeadband(0.05);
+        coalescer.setKeepAlive(0.1);
+        coalescer.setEnabled(true);
+        int[] writes = { 0 };
+        Output output = coalescer.register("Test", 1, (value) -> writes[0]++);
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        // The first request is always written, and only once per loop
+        output.request(0.5);
+        output.request(0.5);
+        coalescer.flush();
+        assertEquals(1, writes[0]);
+        assertEquals(1, coalescer.getFramesSaved());
+
+        // Small changes are dropped
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.52);
+        coalescer.flush();
+        assertEquals(1, writes[0]);
+        assertEquals(0.5, output.getLastWritten(), 1e-9);
+
+        // Big changes are written
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.6);
+        coalescer.flush();
+        assertEquals(2, writes[0]);
+
+        // Until the keep-alive interval passes
+        FPGAClock.incrementSystemClockOverride(0.1);
+        output.request(0.61);
+        coalescer.flush();
+        assertEquals(3, writes[0]);
+
+        // Stopping is always written, even from inside the deadband
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.03);
+        coalescer.flush();
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.0);
+        coalescer.flush();
+        assertEquals(5, writes[0]);
+        assertEquals(0.0, output.getLastWritten(), 0.0);
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+
+    /**
+     * Test that the frame budget sends high priority outputs first, and defers
+     * the rest to the next flush
+     */
+    @Test
+    public void testFrameBudget() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setFrameBudget(3);
+        coalescer.setEnabled(true);
+        StringBuilder order = new StringBuilder();
+        Output low = coalescer.register("Low", 2, (value) -> order.append('L'));
+        Output high = coalescer.register("High", 2, (value) -> order.append('H'));
+        high.setPriority(10);
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        low.request(1.0);
+        high.request(1.0);
+        coalescer.flush();
+        assertEquals("H", order.toString());
+        assertEquals(2, coalescer.getFramesDeferred());
+
+        // The deferred output is sent next loop
+        FPGAClock.incrementSystemClockOverride(0.02);
+        coalescer.flush();
+        assertEquals("HL", order.toString());
+        assertEquals(4, coalescer.getFramesWritten());
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+
+    /**
+     * Test that re-requesting a deferred output isn't counted as a saved frame
+     */
+    @Test
+    public void testDeferredOutputsAreNotSaved() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setFrameBudget(2);
+        coalescer.setEnabled(true);
+        Output first = coalescer.register("First", 2, (value) -> {
+        });
+        Output second = coalescer.register("Second", 2, (value) -> {
+        });
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        first.request(1.0);
+        second.request(1.0);
+        coalescer.flush();
+        assertEquals(2, coalescer.getFramesDeferred());
+
+        // The deferred output is requested again next loop
+        FPGAClock.incrementSystemClockOverride(0.02);
+        second.request(1.0);
+        coalescer.flush();
+        assertEquals(4, coalescer.getFramesWritten());
+        assertEquals(0, coalescer.getFramesSaved());
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+
+    /**
+     * Test that stops are sent first, and even when the budget has run out
+     */
+    @Test
+    public void testStopsIgnoreBudget() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setEnabled(true);
+        StringBuilder order = new StringBuilder();
+        Output drive = coalescer.register("Drive", 2, (value) -> order.append('D'));
+        Output intake = coalescer.register("Intake", 2, (value) -> order.append(value == 0.0 ? 'S' : 'I'));
+        drive.setPriority(10);
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        intake.request(0.5);
+        coalescer.flush();
+
+        // Only the drivetrain fits in the budget, but the intake still stops
+        FPGAClock.incrementSystemClockOverride(0.02);
+        coalescer.setFrameBudget(2);
+        drive.request(1.0);
+        intake.request(0.0);
+        coalescer.flush();
+        assertEquals("ISD", order.toString());
+        assertEquals(0, coalescer.getFramesDeferred());
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+
+    /**
+     * Test that outputs without CAN frames are always written
+     */
+    @Test
+    public void testFramelessOutputsIgnoreDeadband() {
+        OutputCoalescer coalescer = new OutputCoalescer();
+        coalescer.setEnabled(true);
+        int[] writes = { 0 };
+        Output output = coalescer.register("PWM", 0, (value) -> writes[0]++);
+
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+
+        output.request(0.5);
+        coalescer.flush();
+        FPGAClock.incrementSystemClockOverride(0.02);
+        output.request(0.501);
+        coalescer.flush();
+        assertEquals(2, writes[0]);
+        assertEquals(0.501, output.getLastWritten(), 1e-9);
+
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+    }
+}
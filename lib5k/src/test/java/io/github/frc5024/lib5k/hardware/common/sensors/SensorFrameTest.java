@@ -0,0 +1,79 @@
+package io.github.frc5024.lib5k.hardware.common.sensors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+
+public class SensorFrameTest {
+
+    /**
+     * Test that snapshots hold the latest frame, with its timestamp
+     */
+    @Test
+    public void testUpdateAndRead() {
+        SensorFrame frame = new SensorFrame("heading", "left", "right");
+        SensorFrame.Snapshot snapshot = frame.newSnapshot();
+        assertEquals(1, frame.getChannel("left"));
+        assertEquals("right", frame.getChannelName(2));
+
+        // Nothing published yet
+        frame.read(snapshot);
+        assertEquals(0, snapshot.getSequence());
+        assertTrue(Double.isNaN(snapshot.getTimestamp()));
+
+        FPGAClock.enableSystemClockOverride(true, 2.0);
+        frame.update((values) -> {
+            values[0] = 1.0;
+            values[1] = 2.0;
+            values[2] = 3.0;
+        });
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+
+        frame.read(snapshot);
+        assertEquals(1, snapshot.getSequence());
+        assertEquals(1, frame.getFrameCount());
+        assertEquals(2.0, snapshot.getTimestamp(), 1e-9);
+        assertEquals(1.0, snapshot.get(0), 1e-9);
+        assertEquals(2.0, snapshot.get(1), 1e-9);
+        assertEquals(3.0, snapshot.get(2), 1e-9);
+    }
+
+    /**
+     * Test that a reader never sees a mix of two frames while a writer is
+     * publishing
+     */
+    @Test
+    public void testCoherentSnapshots() throws InterruptedException {
+        SensorFrame frame = new SensorFrame("a", "b", "c", "d");
+        int frames = 200000;
+
+        // Every channel of a frame holds the same value
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= frames; i++) {
+                double value = i;
+                frame.update((values) -> {
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = value;
+                    }
+                });
+            }
+        });
+        writer.start();
+
+        SensorFrame.Snapshot snapshot = frame.newSnapshot();
+        long lastSequence = 0;
+        while (lastSequence < frames) {
+            frame.read(snapshot);
+            for (int j = 1; j < frame.getChannelCount(); j++) {
+                assertEquals(snapshot.get(0), snapshot.get(j), 0.0);
+            }
+            assertEquals(snapshot.getSequence(), snapshot.get(0), 0.0);
+            assertTrue(snapshot.getSequence() >= lastSequence);
+            lastSequence = snapshot.getSequence();
+        }
+        writer.join();
+    }
+}
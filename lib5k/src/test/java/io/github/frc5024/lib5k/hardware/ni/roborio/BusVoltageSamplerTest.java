@@ -0,0 +1,32 @@
+package io.github.frc5024.lib5k.hardware.ni.roborio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BusVoltageSamplerTest {
+
+    /**
+     * Test that the filter starts at the first sample, then smooths out changes
+     */
+    @Test
+    public void testFiltering() {
+        BusVoltageSampler sampler = new BusVoltageSampler(false);
+
+        sampler.update(12.0);
+        assertEquals(12.0, sampler.getVoltage(), 1e-9);
+
+        // A single low sample only moves the output part of the way
+        sampler.update(8.0);
+        assertEquals(8.0, sampler.getRawVoltage(), 1e-9);
+        assertTrue(sampler.getVoltage() < 12.0);
+        assertTrue(sampler.getVoltage() > 10.0);
+
+        // A sustained sag is followed within a few time constants
+        for (int i = 0; i < 50; i++) {
+            sampler.update(8.0);
+        }
+        assertEquals(8.0, sampler.getVoltage(), 0.01);
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.frc5024.lib5k.hardware.ni.roborio.fpga;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.Lane;
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.RealTimeExecutor.ScheduledTask;
+
+public class RealTimeExecutorTest {
+
+    /**
+     * Test that due tasks run in priority order, and are rescheduled by their
+     * period
+     */
+    @Test
+    public void testPriorityAndPeriod() {
+        RealTimeExecutor executor = new RealTimeExecutor(false);
+        ArrayList<String> runs = new ArrayList<>();
+
+        long start = System.nanoTime();
+        executor.schedule("Low", Lane.kControl, 1.0, 0.0, 0, () -> runs.add("Low"));
+        executor.schedule("High", Lane.kControl, 1.0, 0.0, 5, () -> runs.add("High"));
+        executor.schedule("Later", Lane.kControl, 1.0, 100.0, 0, () -> runs.add("Later"));
+        assertEquals(3, executor.getTaskCount(Lane.kControl));
+        assertEquals(0, executor.getTaskCount(Lane.kBackground));
+
+        // Both due tasks should run, highest priority first
+        long next = executor.runDue(Lane.kControl, System.nanoTime());
+        assertEquals("[High, Low]", runs.toString());
+
+        // Nothing else is due for about a second
+        assertTrue("Next run is one period away", next - start >= 900_000_000L);
+        executor.runDue(Lane.kControl, System.nanoTime());
+        assertEquals(2, runs.size());
+    }
+
+    /**
+     * Test that a task that throws is stopped without affecting the rest of its
+     * lane
+     */
+    @Test
+    public void testErrorIsolation() {
+        RealTimeExecutor executor = new RealTimeExecutor(false);
+        int[] count = { 0 };
+
+        ScheduledTask broken = executor.schedule("Broken", Lane.kBackground, 0.001, () -> {
+            throw new RuntimeException("Test");
+        });
+        ScheduledTask working = executor.schedule("Working", Lane.kBackground, 0.001, () -> count[0]++);
+
+        // Run the lane a few times
+        for (int i = 0; i < 3; i++) {
+            executor.runDue(Lane.kBackground, System.nanoTime() + 1_000_000_000L * i);
+        }
+
+        assertTrue("Broken task was stopped", broken.isCancelled());
+        assertFalse("Working task is still running", working.isCancelled());
+        assertEquals(3, count[0]);
+        assertEquals(1, executor.getTaskCount(Lane.kBackground));
+    }
+
+    /**
+     * Test that one-shot tasks run once, then leave the lane
+     */
+    @Test
+    public void testRunOnce() {
+        RealTimeExecutor executor = new RealTimeExecutor(false);
+        int[] count = { 0 };
+
+        ScheduledTask task = executor.runOnce("Once", Lane.kFileIO, () -> count[0]++);
+        executor.runDue(Lane.kFileIO, System.nanoTime());
+        executor.runDue(Lane.kFileIO, System.nanoTime() + 1_000_000_000L);
+
+        assertEquals(1, count[0]);
+        assertTrue("One-shot task is finished", task.isCancelled());
+        assertEquals(0, executor.getTaskCount(Lane.kFileIO));
+    }
+
+}
@@ -27,4 +27,27 @@ public class SafeNotifierTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNotifierRecordsTiming() {
+        // Build a safe notifier with a task that always takes longer than its period
+        SafeNotifier n = new SafeNotifier("TimingTestNotifier", 0.001, () -> {
+            try {
+                Thread.sleep(3);
+            } catch (InterruptedException e) {
+            }
+        });
+
+        // Run the task a few times
+        for (int i = 0; i < 3; i++) {
+            n.getUnderlyingRunnable().run();
+        }
+
+        NotifierStats stats = n.getStats();
+        assertEquals(3, stats.getRunCount());
+        assertEquals("Every run overran", 3, stats.getOverrunCount());
+        assertTrue("Cycles were skipped", stats.getSkippedCycles() >= 2);
+        assertTrue("Execution time", stats.getMaxExecution() >= 0.003);
+        assertTrue("Interval", stats.getMeanInterval() >= 0.003);
+    }
+
+}
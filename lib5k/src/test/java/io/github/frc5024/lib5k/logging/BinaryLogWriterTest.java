@@ -0,0 +1,130 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.logging.BinaryLogReader.Entry;
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+public class BinaryLogWriterTest {
+
+    @Test
+    public void testRecordsRoundTrip() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryLogWriter writer = new BinaryLogWriter(stream);
+        CallSite site = new CallSite("io.github.frc5024.lib5k.Example", "periodic");
+
+        // Write a few records, including one that goes back in time
+        writer.write(Level.kInfo, 1.5, site, "Output: %.2f, Enabled: %b", new Object[] { 0.25, true });
+        writer.write(Level.kDebug, 1.52, site, "Count %d of %d", new Object[] { -3, 40000000000L });
+        writer.write(Level.kWarning, 1.4, site, "Mode is %s", new Object[] { Level.kRobot });
+        writer.flush();
+
+        // Read everything back
+        BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(stream.toByteArray()));
+
+        Entry first = reader.next();
+        assertEquals(Level.kInfo, first.getLevel());
+        assertEquals(1.5, first.getTimestamp(), 1e-6);
+        assertEquals("Output: 0.25, Enabled: true", first.getMessage());
+        assertEquals("INFO at 1.50s: io...lib5k.Example::periodic() -> Output: 0.25, Enabled: true", first.toString());
+
+        Entry second = reader.next();
+        assertEquals("Count -3 of 40000000000", second.getMessage());
+        assertEquals(1.52, second.getTimestamp(), 1e-6);
+
+        Entry third = reader.next();
+        assertEquals(1.4, third.getTimestamp(), 1e-6);
+        assertEquals("Mode is kRobot", third.getMessage());
+
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testPrimitiveRecords() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryLogWriter writer = new BinaryLogWriter(stream);
+
+        // Build a record the same way the primitive log overloads do
+        LogRecord record = new LogRecord();
+        record.level = Level.kDebug;
+        record.timestamp = 2.0;
+        record.site = new CallSite("io.github.frc5024.lib5k.Example", "periodic");
+        record.format = "Ticks: %d, Speed: %.1f";
+        record.addLong(-42);
+        record.addDouble(3.25);
+        writer.write(record);
+
+        // Large integral values must not be truncated
+        record.clear();
+        record.level = Level.kInfo;
+        record.timestamp = 2.5;
+        record.site = new CallSite("io.github.frc5024.lib5k.Example", "periodic");
+        record.format = "Time: %d, Enabled: %b";
+        record.addLong(40000000000L);
+        record.addBoolean(true);
+        writer.write(record);
+        writer.flush();
+
+        // Read everything back
+        BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(stream.toByteArray()));
+        assertEquals("Ticks: -42, Speed: 3.3", reader.next().getMessage());
+        assertEquals("Time: 40000000000, Enabled: true", reader.next().getMessage());
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testDecoderFiltering() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryLogWriter writer = new BinaryLogWriter(stream);
+        CallSite drive = new CallSite("io.github.frc5024.lib5k.DriveTrain", "periodic");
+        CallSite shooter = new CallSite("io.github.frc5024.lib5k.Shooter", "periodic");
+
+        writer.write(Level.kInfo, 1.0, drive, "a", new Object[0]);
+        writer.write(Level.kDebug, 2.0, shooter, "b", new Object[0]);
+        writer.write(Level.kInfo, 3.0, shooter, "c", new Object[0]);
+        writer.flush();
+
+        // Only info logs from the shooter after 1.5 seconds
+        BinaryLogDecoder decoder = new BinaryLogDecoder().setClasses("shooter").setTimeRange(1.5, 10.0);
+        BinaryLogReader reader = new BinaryLogReader(new ByteArrayInputStream(stream.toByteArray()));
+
+        int accepted = 0;
+        Entry entry;
+        while ((entry = reader.next()) != null) {
+            if (decoder.accepts(entry)) {
+                accepted++;
+                assertEquals("c", entry.getMessage());
+            }
+        }
+        assertEquals(1, accepted);
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanText() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BinaryLogWriter writer = new BinaryLogWriter(stream);
+        CallSite site = new CallSite("io.github.frc5024.y2020.darthraider.subsystems.Shooter", "periodic");
+
+        // Log the same line a bunch of times
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            Object[] args = { i * 10.0, 3000.0 };
+            writer.write(Level.kDebug, i * 0.02, site, "Flywheel at %.2f RPM. Goal: %.2f RPM", args);
+            text.append(String.format("DEBUG at %.2fs: %s -> %s%n", i * 0.02, site.name,
+                    String.format("Flywheel at %.2f RPM. Goal: %.2f RPM", args)));
+        }
+        writer.flush();
+
+        assertTrue("Binary log is smaller", stream.size() * 3 < text.length());
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.utils.FileManagement;
+import io.github.frc5024.lib5k.utils.SessionStore;
+
+public class CSVFileTest {
+
+    /**
+     * Read back a CSV file from the session directory
+     *
+     * @param name File name, without the extension
+     * @return File lines
+     */
+    private static List<String> read(String name) throws IOException {
+        return Files.readAllLines(Paths.get(FileManagement.getSessionDirectoryPath(), name + ".csv"));
+    }
+
+    @Test
+    public void testTypedColumns() throws IOException {
+        CSVFile file = CSVFile.builder("CSVFileTestTyped").withTimestampedName(false).doubleCol("Time", 2)
+                .longCol("Ticks").booleanCol("Enabled").stringCol("Mode").build();
+
+        // Write one full row, and one with a missing column
+        file.set(0, 0.02);
+        file.set(1, 4096L);
+        file.set(2, true);
+        file.set(3, "Auto, fast");
+        file.endRow();
+
+        file.set(0, -1.005);
+        file.set(2, false);
+        file.endRow();
+        file.close();
+
+        List<String> lines = read("CSVFileTestTyped");
+        assertEquals("Time,Ticks,Enabled,Mode", lines.get(0));
+        assertEquals("0.02,4096,true,\"Auto, fast\"", lines.get(1));
+        assertEquals("-1.00,,false,", lines.get(2));
+    }
+
+    @Test
+    public void testNumericRows() throws IOException {
+        CSVFile file = CSVFile.builder("CSVFileTestNumeric").withTimestampedName(false).doubleCol("X", 1)
+                .doubleCol("Y", 3).build();
+
+        file.writeDoubleRow(1.25, 2.0);
+        file.close();
+
+        assertEquals("1.3,2.000", read("CSVFileTestNumeric").get(1));
+    }
+
+    @Test
+    public void testUntypedRows() throws IOException {
+        CSVFile file = new CSVFile("CSVFileTestUntyped", false, "X", "Name", "Count");
+
+        // Untyped doubles should keep their full precision
+        file.set(0, 0.1234567891);
+        file.set(1, "robot");
+        file.set(2, 3L);
+        file.endRow();
+
+        // The old object row API should still work
+        file.writeRow(1.0E-9, "robot", 3);
+        file.close();
+
+        List<String> lines = read("CSVFileTestUntyped");
+        assertEquals("0.1234567891,robot,3", lines.get(1));
+        assertEquals("1.0E-9,robot,3", lines.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testColumnTypesAreChecked() throws IOException {
+        try (CSVFile file = CSVFile.builder("CSVFileTestChecked").withTimestampedName(false).longCol("Ticks")
+                .build()) {
+            file.set(0, 1.5);
+        }
+    }
+
+    @Test
+    public void testCompressedFile() throws IOException {
+        SessionStore.getInstance().setCompressNewFiles(true);
+        CSVFile file;
+        try {
+            file = CSVFile.builder("CSVFileTestCompressed").withTimestampedName(false).longCol("Count").build();
+        } finally {
+            SessionStore.getInstance().setCompressNewFiles(false);
+        }
+
+        // Write enough rows to need more than one batch
+        StringBuilder expected = new StringBuilder("Count\n");
+        for (int i = 0; i < 5000; i++) {
+            file.set(0, i);
+            file.endRow();
+            expected.append(i).append('\n');
+            if (i == 2500) {
+                file.flush();
+            }
+        }
+        file.close();
+
+        // Decompress and compare
+        try (InputStream input = new GZIPInputStream(
+                Files.newInputStream(Paths.get(FileManagement.getSessionDirectoryPath(), "CSVFileTestCompressed.csv.gz")))) {
+            assertEquals(expected.toString(), new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+}
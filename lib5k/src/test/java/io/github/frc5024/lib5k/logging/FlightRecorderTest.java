@@ -0,0 +1,84 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+import io.github.frc5024.lib5k.utils.FileManagement;
+
+public class FlightRecorderTest {
+
+    @Test
+    public void testDumpKeepsLatestEntries() throws IOException {
+        FlightRecorder recorder = new FlightRecorder();
+        FlightRecorderBuffer shooter = recorder.getBuffer("Shooter", 4);
+
+        // Buffers are shared by name
+        assertTrue(shooter == recorder.getBuffer("Shooter"));
+
+        // Overfill the buffer
+        for (int i = 0; i < 10; i++) {
+            shooter.signal("Velocity", i);
+        }
+        shooter.event("Spun up to %.1f RPM", 9.0);
+
+        // Dump, and make sure a second trigger right away is ignored
+        assertTrue(recorder.dump("UnitTest"));
+        assertFalse(recorder.dump("UnitTest"));
+        assertEquals(1, recorder.getDumpCount());
+
+        // Find the dump
+        File[] dumps = FileManagement.getSessionDirectory()
+                .listFiles((dir, name) -> name.startsWith("FlightRecorder_UnitTest"));
+        assertEquals(1, dumps.length);
+        List<String> lines = Files.readAllLines(dumps[0].toPath());
+
+        // Only the newest 4 entries should be saved
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(1).contains(",Shooter,signal,Velocity,7.000000,"));
+        assertTrue(lines.get(4).endsWith(",Shooter,event,,,Spun up to 9.0 RPM"));
+    }
+
+    @Test
+    public void testDebugLogsAreRecorded() throws IOException {
+        FlightRecorder recorder = new FlightRecorder();
+        RobotLogger logger = RobotLogger.getInstance();
+
+        // Log through both the varargs and primitive paths
+        recorder.setRecordingDebugLogs(true);
+        try {
+            logger.log("Spinning up to %s", Level.kDebug, "full speed");
+            logger.logPrimitive("Goal is %d RPM", Level.kDebug, 3000L);
+            logger.log("Not a debug log");
+
+            // Logs are copied into the recorder as the logger drains
+            logger.flush();
+        } finally {
+            recorder.setRecordingDebugLogs(false);
+        }
+        logger.log("Recording is off", Level.kDebug);
+
+        // Logs go into the buffer named after the calling class
+        assertEquals("FlightRecorderTest", FlightRecorder.getSubsystemName(getClass().getName()));
+        assertTrue(recorder.dump("DebugLogTest"));
+
+        File[] dumps = FileManagement.getSessionDirectory()
+                .listFiles((dir, name) -> name.startsWith("FlightRecorder_DebugLogTest"));
+        assertEquals(1, dumps.length);
+        List<String> lines = Files.readAllLines(dumps[0].toPath());
+
+        String site = ",FlightRecorderTest,log,io...logging.FlightRecorderTest::testDebugLogsAreRecorded(),,";
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).endsWith(site + "Spinning up to full speed"));
+        assertTrue(lines.get(2).endsWith(site + "Goal is 3000 RPM"));
+    }
+
+}
@@ -0,0 +1,130 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+public class LogBufferTest {
+
+    /**
+     * Write a record into a buffer
+     *
+     * @param buffer  Buffer
+     * @param level   Log level
+     * @param message Message
+     * @return Was the record accepted?
+     */
+    private static boolean write(LogBuffer buffer, Level level, String message) {
+        LogRecord record = buffer.claim(level);
+        if (record == null) {
+            return false;
+        }
+        record.format = message;
+        buffer.publish(record);
+        return true;
+    }
+
+    @Test
+    public void testRecordsDrainInOrder() {
+        LogBuffer buffer = new LogBuffer(8);
+
+        // Write a few laps worth of records
+        ArrayList<String> output = new ArrayList<>();
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 5; i++) {
+                write(buffer, Level.kInfo, lap + ":" + i);
+            }
+            buffer.drain((record) -> output.add(record.format));
+        }
+
+        // Check everything came out in order
+        assertEquals(15, output.size());
+        assertEquals("0:0", output.get(0));
+        assertEquals("2:4", output.get(14));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testFullBufferDrops() {
+        LogBuffer buffer = new LogBuffer(4);
+
+        // Fill the buffer
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(buffer.claim(Level.kInfo));
+        }
+
+        // The next record should be dropped, since nothing is draining
+        assertNull(buffer.claim(Level.kInfo));
+        assertEquals(1, buffer.takeDroppedCount());
+    }
+
+    @Test
+    public void testLevelCapacity() {
+        LogBuffer buffer = new LogBuffer(8);
+        buffer.setLevelCapacity(Level.kDebug, 2);
+
+        // Debug logs should stop at their own limit
+        assertEquals(true, write(buffer, Level.kDebug, "a"));
+        assertEquals(true, write(buffer, Level.kDebug, "b"));
+        assertEquals(false, write(buffer, Level.kDebug, "c"));
+
+        // Other levels should still get through
+        assertEquals(true, write(buffer, Level.kWarning, "d"));
+
+        // Draining frees up the debug share again
+        assertEquals(3, buffer.drain((record) -> {
+        }));
+        assertEquals(true, write(buffer, Level.kDebug, "e"));
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        LogBuffer buffer = new LogBuffer(64);
+        buffer.setOverflowPolicy(RobotLogger.OverflowPolicy.kBlock);
+        buffer.setConsumerRunning(true);
+
+        // Start a few producers
+        final int producers = 4;
+        final int perProducer = 2000;
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < perProducer; j++) {
+                    write(buffer, Level.kInfo, "x");
+                }
+            });
+            threads[i].start();
+        }
+
+        // Drain until every producer is done
+        int[] received = { 0 };
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads) {
+                running |= thread.isAlive();
+            }
+            buffer.drain((record) -> received[0]++);
+        }
+        buffer.drain((record) -> received[0]++);
+
+        // Nothing should have been lost
+        assertEquals(producers * perProducer, received[0]);
+        assertEquals(0, buffer.takeDroppedCount());
+    }
+
+    @Test
+    public void testFixedFormatting() {
+        assertEquals("3.14", FastFormat.appendFixed(new StringBuilder(), 3.14159, 2).toString());
+        assertEquals("-2.50", FastFormat.appendFixed(new StringBuilder(), -2.5, 2).toString());
+        assertEquals("0.05", FastFormat.appendFixed(new StringBuilder(), 0.049999, 2).toString());
+        assertEquals("12", FastFormat.appendFixed(new StringBuilder(), 12.4, 0).toString());
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.logging.RobotLogger.Level;
+
+public class LogFilterTest {
+
+    @Test
+    public void testPrefixMatching() {
+        assertTrue(LogFilter.matches("frc.robot.DriveTrain", ""));
+        assertTrue(LogFilter.matches("frc.robot.DriveTrain", "frc.robot"));
+        assertTrue(LogFilter.matches("frc.robot.DriveTrain", "frc.robot.DriveTrain"));
+        assertTrue(LogFilter.matches("frc.robot.DriveTrain$Inner", "frc.robot.DriveTrain"));
+
+        // Prefixes must end on a name boundary
+        assertFalse(LogFilter.matches("frc.robot.DriveTrain", "frc.robot.Drive"));
+    }
+
+    @Test
+    public void testLongestPrefixWins() {
+        LogFilter filter = new LogFilter();
+        CallSite drive = new CallSite("frc.robot.subsystems.DriveTrain", "periodic");
+        CallSite shooter = new CallSite("frc.robot.subsystems.Shooter", "periodic");
+
+        // Hide debug logs from every subsystem except the drivetrain
+        filter.setMinimumLevel("frc.robot.subsystems", Level.kInfo);
+        filter.setMinimumLevel("frc.robot.subsystems.DriveTrain", Level.kDebug);
+
+        assertTrue(filter.accepts(drive, Level.kDebug));
+        assertFalse(filter.accepts(shooter, Level.kDebug));
+        assertTrue(filter.accepts(shooter, Level.kWarning));
+
+        // Changing the rules should apply to sites that were already resolved
+        filter.clear();
+        assertTrue(filter.accepts(shooter, Level.kDebug));
+    }
+
+    @Test
+    public void testRateLimit() {
+        LogFilter filter = new LogFilter();
+        CallSite site = new CallSite("frc.robot.subsystems.DriveTrain", "handleOpenLoopControl");
+
+        // Allow a burst of 3, refilling very slowly
+        filter.setRateLimit("frc.robot", 0.001, 3);
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (filter.accepts(site, Level.kWarning)) {
+                accepted++;
+            }
+        }
+
+        // Only the burst gets through, and everything else is counted
+        assertEquals(3, accepted);
+        assertEquals(7, site.takeSuppressed());
+        assertEquals(0, site.takeSuppressed());
+
+        // kRobot logs are never limited
+        assertTrue(filter.accepts(site, Level.kRobot));
+    }
+
+}
@@ -1,6 +1,11 @@
 package io.github.frc5024.lib5k.logging;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 
 import org.junit.Test;
 
@@ -24,4 +29,103 @@ public class RobotLoggerTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Test that call sites are only resolved once per class and method
+     */
+    @Test
+    public void testCallSiteCaching() {
+        CallSiteCache cache = new CallSiteCache();
+
+        // The same class and method should always give the same site
+        CallSite first = cache.get(RobotLoggerTest.class.getName(), "testCallSiteCaching");
+        CallSite second = cache.get(RobotLoggerTest.class.getName(), "testCallSiteCaching");
+        assertTrue("Call site is cached", first == second);
+        assertEquals(1, cache.size());
+
+        // Short class names should not be truncated
+        assertEquals("Short name", "a.b.C::run()", new CallSite("a.b.C", "run").name);
+    }
+
+    /**
+     * Test that channels are named the same way as stack-resolved logs
+     */
+    @Test
+    public void testChannelNaming() {
+        LogChannel channel = RobotLogger.getInstance().getChannel(RobotLoggerTest.class, "channel");
+
+        assertEquals("Channel name", "io...logging.RobotLoggerTest::channel()", channel.getName());
+    }
+
+    /**
+     * Test that logger metrics track what was logged
+     */
+    @Test
+    public void testMetrics() {
+        RobotLogger logger = RobotLogger.getInstance();
+        LoggerMetrics metrics = logger.getMetrics();
+        logger.flush();
+
+        long enqueued = metrics.getRecordsEnqueued();
+        long drained = metrics.getDrainLatency().getCount();
+        long consoleBytes = metrics.getBytesWritten(RobotLogger.Output.kConsole);
+
+        // Log a few messages, then push them
+        for (int i = 0; i < 3; i++) {
+            logger.log("Metrics test %d", i);
+        }
+        logger.flush();
+
+        assertEquals("Enqueued", enqueued + 3, metrics.getRecordsEnqueued());
+        assertEquals("Drained", drained + 3, metrics.getDrainLatency().getCount());
+        assertTrue("Console bytes", metrics.getBytesWritten(RobotLogger.Output.kConsole) > consoleBytes);
+        assertTrue("High-water mark", metrics.getQueueHighWaterMark() >= 3);
+    }
+
+    /**
+     * Log through the stack-resolved string method
+     *
+     * @param logger Logger
+     */
+    private void logThroughString(RobotLogger logger) {
+        logger.log("Call site test (string)");
+    }
+
+    /**
+     * Log through a primitive overload
+     *
+     * @param logger Logger
+     */
+    private void logThroughPrimitive(RobotLogger logger) {
+        logger.logPrimitive("Call site test (primitive) %d", 5L);
+    }
+
+    /**
+     * Test that stack-resolved logs are attributed to the code that called the
+     * logger, not to a RobotLogger method
+     */
+    @Test
+    public void testResolvedCallSite() {
+        RobotLogger logger = RobotLogger.getInstance();
+        logger.flush();
+
+        // Capture the console while the logs are pushed
+        PrintStream console = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            logThroughString(logger);
+            logThroughPrimitive(logger);
+            logger.flush();
+        } finally {
+            System.setOut(console);
+        }
+
+        String output = captured.toString();
+        assertTrue(output,
+                output.contains("io...logging.RobotLoggerTest::logThroughString() -> Call site test (string)"));
+        assertTrue(output,
+                output.contains("io...logging.RobotLoggerTest::logThroughPrimitive() -> Call site test (primitive) 5"));
+        assertFalse(output, output.contains("RobotLogger::log()"));
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.frc5024.lib5k.logging;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.utils.FileManagement;
+import io.github.frc5024.lib5k.utils.SessionStore;
+
+public class USBLoggerTest {
+
+    @Test
+    public void testLargeBatchIsWrittenInFull() throws IOException {
+        USBLogger logger = new USBLogger();
+
+        // Write more than a single encode chunk, including some multi-byte text
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String line = "INFO at " + i + "s: io...test.USBLoggerTest::run() -> Temp\u00e9rature " + i;
+            logger.writeln(line);
+            expected.append(line).append('\n');
+        }
+        logger.close();
+
+        // Check the file contents
+        byte[] contents = Files.readAllBytes(Paths.get(FileManagement.getSessionDirectoryPath(), "robot.log"));
+        assertEquals(expected.toString(), new String(contents, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCompressedLog() throws IOException {
+        SessionStore.getInstance().setCompressNewFiles(true);
+        USBLogger logger;
+        try {
+            logger = new USBLogger();
+        } finally {
+            SessionStore.getInstance().setCompressNewFiles(false);
+        }
+
+        logger.writeln("INFO at 0.00s: io...test.USBLoggerTest::run() -> Compressed");
+        logger.close();
+
+        // The log should be a complete GZIP stream
+        try (InputStream input = new GZIPInputStream(
+                Files.newInputStream(Paths.get(FileManagement.getSessionDirectoryPath(), "robot.log.gz")))) {
+            assertEquals("INFO at 0.00s: io...test.USBLoggerTest::run() -> Compressed\n",
+                    new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GCMonitorTest {
+
+    // Keeps allocations from being optimized away
+    private static byte[] sink;
+
+    /**
+     * Test that allocation is tracked per loop, and that an overrun during a
+     * collection is counted
+     */
+    @Test
+    public void testOverrunWithGC() throws InterruptedException {
+        GCMonitor monitor = new GCMonitor();
+        monitor.setLoopPeriod(0.001);
+
+        // A loop that allocates, collects, and overruns
+        monitor.startIteration();
+        for (int i = 0; i < 16; i++) {
+            sink = new byte[64 * 1024];
+        }
+        System.gc();
+        Thread.sleep(5);
+        monitor.endIteration();
+
+        assertEquals(1, monitor.getOverrunCount());
+        assertEquals(1, monitor.getOverrunsWithGC());
+        assertTrue("Allocation was tracked", monitor.getMaxAllocationPerLoop() >= 1024 * 1024);
+        assertTrue("Heap is in use", monitor.getHeapUsed() > 0);
+
+        // A quick loop should not be an overrun
+        monitor.setLoopPeriod(1.0);
+        monitor.startIteration();
+        monitor.endIteration();
+        assertEquals(1, monitor.getOverrunCount());
+    }
+
+    /**
+     * Test that reading the allocation counter isn't counted as allocation
+     */
+    @Test
+    public void testEmptyLoopDoesNotAllocate() {
+        GCMonitor monitor = new GCMonitor();
+
+        for (int i = 0; i < 100; i++) {
+            monitor.startIteration();
+            monitor.endIteration();
+        }
+
+        assertEquals(0.0, monitor.getMeanAllocationPerLoop(), 1.0);
+    }
+
+}
@@ -0,0 +1,54 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    /**
+     * Test that every value lands in a bucket that covers it
+     */
+    @Test
+    public void testBucketBounds() {
+        long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE };
+
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue("Value fits under its bucket's upper bound", value <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                assertTrue("Value is above the previous bucket", value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    /**
+     * Test percentile estimates
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        // Record 1us to 1000us
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000L, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 1e-6);
+
+        // Estimates should never be low, and be within one bucket (12.5%)
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue("p50 estimate", p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        assertTrue("p99 estimate", p99 >= 990_000 && p99 <= 1_000_000);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+}
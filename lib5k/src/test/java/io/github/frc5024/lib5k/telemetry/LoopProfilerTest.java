@@ -0,0 +1,36 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.telemetry.LoopProfiler.Section;
+
+public class LoopProfilerTest {
+
+    /**
+     * Test that sections are shared by name, and record their times
+     */
+    @Test
+    public void testSections() throws InterruptedException {
+        LoopProfiler profiler = new LoopProfiler();
+        Section section = profiler.getSection("Test.periodic");
+        assertTrue("Sections are cached", section == profiler.getSection("Test.periodic"));
+
+        // Time a short sleep
+        section.start();
+        Thread.sleep(2);
+        section.stop();
+
+        assertEquals(1, section.getHistogram().getCount());
+        assertTrue("Recorded time", section.getHistogram().getMax() >= 2_000_000L);
+
+        // Nothing should be recorded while disabled
+        profiler.setEnabled(false);
+        section.start();
+        section.stop();
+        assertEquals(1, section.getHistogram().getCount());
+    }
+
+}
@@ -0,0 +1,65 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class OverrunSamplerTest {
+
+    /**
+     * Test that only iterations past their budget are sampled
+     */
+    @Test
+    public void testSamplesOverruns() throws IOException {
+        OverrunSampler sampler = new OverrunSampler();
+        sampler.enable(0.005);
+
+        // A fast iteration should not be sampled
+        sampler.startIteration();
+        sampler.endIteration();
+
+        // A slow one should
+        sampler.startIteration();
+        slowMethod(50);
+        sampler.endIteration();
+        sampler.disable();
+
+        assertEquals(1, sampler.getOverrunCount());
+        assertTrue("Stacks were sampled", sampler.getSampleCount() > 0);
+
+        // The slow method should show up in the folded stacks
+        StringWriter writer = new StringWriter();
+        sampler.writeTo(writer);
+        String folded = writer.toString();
+        assertTrue("Folded stack contains the slow method",
+                folded.contains("OverrunSamplerTest.testSamplesOverruns;" + getClass().getName() + ".slowMethod"));
+    }
+
+    /**
+     * Test the folded-stack format
+     */
+    @Test
+    public void testFoldedFormat() throws IOException {
+        OverrunSampler sampler = new OverrunSampler();
+        StackTraceElement[] trace = { new StackTraceElement("Inner", "leaf", null, 0),
+                new StackTraceElement("Outer", "root", null, 0) };
+        sampler.record(trace);
+        sampler.record(trace);
+
+        StringWriter writer = new StringWriter();
+        sampler.writeTo(writer);
+        assertEquals("Outer.root;Inner.leaf 2\n", writer.toString());
+    }
+
+    private static void slowMethod(long millis) {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+}
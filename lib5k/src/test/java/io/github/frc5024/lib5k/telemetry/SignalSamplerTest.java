@@ -0,0 +1,99 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.telemetry.SignalSampler.Signal;
+
+public class SignalSamplerTest {
+
+    /**
+     * Test that samples are drained in order, in batches
+     */
+    @Test
+    public void testDrain() {
+        SignalSampler sampler = new SignalSampler();
+        long[] value = { 0 };
+        Signal signal = sampler.create("Ticks", () -> value[0], 1000);
+        assertEquals(1024, signal.getCapacity());
+
+        // Take a few samples
+        for (int i = 0; i < 10; i++) {
+            FPGAClock.enableSystemClockOverride(true, i * 0.001);
+            value[0] = i * 100;
+            signal.sample();
+        }
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+
+        // Drain in two batches
+        long[] timestamps = new long[6];
+        long[] values = new long[6];
+        assertEquals(6, signal.drain(timestamps, values));
+        assertEquals(500, values[5]);
+        assertEquals(5000, timestamps[5]);
+        assertEquals(4, signal.drain(timestamps, values));
+        assertEquals(900, values[3]);
+        assertEquals(0, signal.drain(timestamps, values));
+        assertEquals(0, signal.getDroppedCount());
+    }
+
+    /**
+     * Test that samples overwritten before a drain are counted as dropped
+     */
+    @Test
+    public void testOverflow() {
+        SignalSampler sampler = new SignalSampler();
+        double[] value = { 0.0 };
+        Signal signal = sampler.create("Voltage", () -> value[0], 50);
+        int capacity = signal.getCapacity();
+
+        // Overfill the buffer
+        for (int i = 0; i < capacity + 10; i++) {
+            value[0] = i;
+            signal.sample();
+        }
+
+        long[] timestamps = new long[capacity * 2];
+        double[] values = new double[capacity * 2];
+        int count = signal.drain(timestamps, values);
+        assertEquals(capacity - 1, count);
+        assertEquals(11, signal.getDroppedCount());
+        assertEquals("Oldest kept sample", 11.0, values[0], 0.0);
+        assertEquals("Newest sample", capacity + 9, values[count - 1], 0.0);
+    }
+
+    /**
+     * Test that consumers receive every sample
+     */
+    @Test
+    public void testConsumers() {
+        SignalSampler sampler = new SignalSampler();
+        Signal signal = sampler.create("Constant", () -> 5.0, 100);
+        double[] sum = { 0.0 };
+        signal.addConsumer((s, timestamps, values, count) -> {
+            for (int i = 0; i < count; i++) {
+                sum[0] += values[i];
+            }
+        });
+
+        for (int i = 0; i < 4; i++) {
+            signal.sample();
+        }
+        sampler.drainAll();
+        assertEquals(20.0, sum[0], 0.0);
+        assertTrue("Rates above the max are rejected", rejects(sampler, 2000));
+    }
+
+    private static boolean rejects(SignalSampler sampler, double hz) {
+        try {
+            sampler.create("Too fast", () -> 0.0, hz);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StepResponseAnalyzerTest {
+
+    /**
+     * A flywheel spinning up from 0 to 1000 rpm with 10% overshoot, settling 5
+     * rpm low, then dipping by 100 rpm from a shot at 1 second
+     *
+     * @param t Seconds since the step
+     * @return RPM
+     */
+    private static double response(double t) {
+        if (t < 0.1) {
+            return 11000 * t;
+        } else if (t < 1.0) {
+            return Math.max(995, 1100 - 1000 * (t - 0.1));
+        } else if (t < 1.05) {
+            return 900;
+        } else {
+            return Math.min(995, 900 + 1000 * (t - 1.05));
+        }
+    }
+
+    @Test
+    public void testStepResponse() {
+        StepResponseAnalyzer analyzer = new StepResponseAnalyzer(4000);
+        analyzer.start(0.0, 1000.0, 1_000_000L);
+
+        // Sample at 1kHz for 2 seconds
+        for (int i = 0; i <= 2000; i++) {
+            analyzer.add(1_000_000L + i * 1000L, response(i / 1000.0));
+        }
+
+        assertEquals("Rise time", 0.0727, analyzer.getRiseTime(), 0.002);
+        assertEquals("Overshoot", 10.0, analyzer.getOvershoot(), 0.1);
+        assertTrue("Settled", analyzer.isSettled());
+        assertEquals("Settling time", 0.18, analyzer.getSettlingTime(), 0.002);
+        assertEquals("Steady-state error", 5.0, analyzer.getSteadyStateError(), 0.5);
+        assertEquals("Dip depth", 100.0, analyzer.getDipDepth(), 0.1);
+        assertEquals("Recovery time", 0.13, analyzer.getRecoveryTime(), 0.002);
+
+        // Downsample the trace
+        double[] times = new double[11];
+        double[] values = new double[11];
+        assertEquals(11, analyzer.downsampleTrace(times, values));
+        assertEquals(0.0, times[0], 1e-9);
+        assertEquals(2.0, times[10], 1e-9);
+        assertEquals(995.0, values[10], 1e-9);
+    }
+
+    @Test
+    public void testDipAfterStepDown() {
+        StepResponseAnalyzer analyzer = new StepResponseAnalyzer(4000);
+        analyzer.start(2000.0, 1000.0, 0L);
+
+        // Slow from 2000 to 1000 rpm, then dip by 100 rpm from a shot at 1 second
+        for (int i = 0; i <= 2000; i++) {
+            double t = i / 1000.0;
+            double rpm;
+            if (t < 0.1) {
+                rpm = 2000 - 10000 * t;
+            } else if (t < 1.0) {
+                rpm = 1000;
+            } else if (t < 1.05) {
+                rpm = 900;
+            } else {
+                rpm = Math.min(1000, 900 + 1000 * (t - 1.05));
+            }
+            analyzer.add(i * 1000L, rpm);
+        }
+
+        assertTrue("Settled", analyzer.isSettled());
+        assertEquals("Dip depth", 100.0, analyzer.getDipDepth(), 0.1);
+        assertEquals("Recovery time", 0.13, analyzer.getRecoveryTime(), 0.002);
+    }
+
+    @Test
+    public void testUnsettled() {
+        StepResponseAnalyzer analyzer = new StepResponseAnalyzer(10);
+        analyzer.start(0.0, 1000.0, 0L);
+        analyzer.add(0L, 0.0);
+        analyzer.add(10_000L, 500.0);
+
+        assertTrue("Rise time not known yet", Double.isNaN(analyzer.getRiseTime()));
+        assertTrue("Not settled", Double.isNaN(analyzer.getSettlingTime()));
+        assertTrue("No dips", Double.isNaN(analyzer.getRecoveryTime()));
+    }
+
+}
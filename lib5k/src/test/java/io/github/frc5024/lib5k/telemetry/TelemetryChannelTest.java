@@ -0,0 +1,35 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.BooleanField;
+import io.github.frc5024.lib5k.telemetry.TelemetryChannel.DoubleField;
+
+public class TelemetryChannelTest {
+
+    /**
+     * Test that fields only publish changes
+     */
+    @Test
+    public void testChangeDetection() {
+        TelemetryChannel channel = ComponentTelemetry.getInstance().getChannelForComponent("TelemetryChannelTest");
+
+        // The first value is always published
+        DoubleField output = channel.doubleField("Output", 0.01);
+        assertTrue(output.set(0.5));
+
+        // Changes inside the epsilon are skipped
+        assertFalse(output.set(0.5));
+        assertFalse(output.set(0.505));
+        assertTrue(output.set(0.52));
+
+        BooleanField enabled = channel.booleanField("Enabled");
+        assertTrue(enabled.set(false));
+        assertFalse(enabled.set(false));
+        assertTrue(enabled.set(true));
+    }
+
+}
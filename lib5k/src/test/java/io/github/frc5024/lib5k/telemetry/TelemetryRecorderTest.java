@@ -0,0 +1,85 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.hardware.ni.roborio.fpga.FPGAClock;
+import io.github.frc5024.lib5k.telemetry.TelemetryLogReader.Entry;
+
+public class TelemetryRecorderTest {
+
+    /**
+     * Test that recorded values can be read back with their types and timestamps
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        TelemetryRecorder recorder = new TelemetryRecorder();
+        int speed = recorder.register("/Lib5K-Telemetry/Components/Shooter/Speed", TelemetryLogFormat.TYPE_DOUBLE);
+        int ready = recorder.register("/Lib5K-Telemetry/Components/Shooter/Ready", TelemetryLogFormat.TYPE_BOOLEAN);
+        int state = recorder.register("/Lib5K-Telemetry/Components/Shooter/State", TelemetryLogFormat.TYPE_STRING);
+        assertEquals("Fields are shared by path", speed,
+                recorder.register("/Lib5K-Telemetry/Components/Shooter/Speed", TelemetryLogFormat.TYPE_DOUBLE));
+
+        // Nothing is recorded before starting
+        recorder.recordDouble(speed, 1.0);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        recorder.start(output);
+        FPGAClock.enableSystemClockOverride(true, 1.5);
+        recorder.recordDouble(speed, 3000.5);
+        recorder.recordString(state, "Spinning up");
+        FPGAClock.enableSystemClockOverride(true, 2.25);
+        recorder.recordBoolean(ready, true);
+        recorder.recordDouble(speed, 3100.0);
+        recorder.flush();
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+
+        try (TelemetryLogReader reader = new TelemetryLogReader(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEntry(reader.next(), 1.5, "/Lib5K-Telemetry/Components/Shooter/Speed", 3000.5);
+            assertEntry(reader.next(), 1.5, "/Lib5K-Telemetry/Components/Shooter/State", "Spinning up");
+            assertEntry(reader.next(), 2.25, "/Lib5K-Telemetry/Components/Shooter/Ready", true);
+            assertEntry(reader.next(), 2.25, "/Lib5K-Telemetry/Components/Shooter/Speed", 3100.0);
+            assertNull(reader.next());
+        }
+    }
+
+    /**
+     * Test that a recording cut off mid-write still reads up to the cut
+     */
+    @Test
+    public void testTruncatedRecording() throws IOException {
+        TelemetryRecorder recorder = new TelemetryRecorder();
+        int speed = recorder.register("/Test/Speed", TelemetryLogFormat.TYPE_DOUBLE);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        recorder.start(output);
+        FPGAClock.enableSystemClockOverride(true, 1.0);
+        recorder.recordDouble(speed, 1.0);
+        recorder.recordDouble(speed, 2.0);
+        recorder.flush();
+        FPGAClock.enableSystemClockOverride(false, 0.0);
+
+        // Drop the last few bytes
+        byte[] bytes = output.toByteArray();
+        byte[] truncated = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        try (TelemetryLogReader reader = new TelemetryLogReader(new ByteArrayInputStream(truncated))) {
+            assertEntry(reader.next(), 1.0, "/Test/Speed", 1.0);
+            assertNull(reader.next());
+        }
+    }
+
+    private static void assertEntry(Entry entry, double timestamp, String path, Object value) {
+        assertEquals(timestamp, entry.getTimestamp(), 1e-6);
+        assertEquals(path, entry.getPath());
+        assertEquals(value, entry.getValue());
+    }
+
+}
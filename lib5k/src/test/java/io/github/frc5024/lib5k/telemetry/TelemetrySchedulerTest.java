@@ -0,0 +1,88 @@
+package io.github.frc5024.lib5k.telemetry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import io.github.frc5024.lib5k.logging.Loggable;
+
+public class TelemetrySchedulerTest {
+
+    /**
+     * Loggable that counts its updates
+     */
+    private static class CountingLoggable implements Loggable {
+        int updates = 0;
+
+        @Override
+        public void logStatus() {
+        }
+
+        @Override
+        public void updateTelemetry() {
+            updates++;
+        }
+    }
+
+    /**
+     * Test that components are published at their own rates
+     */
+    @Test
+    public void testRates() {
+        TelemetryScheduler scheduler = new TelemetryScheduler(100.0);
+        CountingLoggable fast = new CountingLoggable();
+        CountingLoggable slow = new CountingLoggable();
+        scheduler.add(fast, 50.0);
+        scheduler.add(slow, 2.0);
+
+        // Run for one second
+        for (int i = 0; i < 100; i++) {
+            scheduler.update();
+        }
+
+        assertEquals("Fast updates", 50, fast.updates);
+        assertEquals("Slow updates", 2, slow.updates);
+
+        // Removed components should stop updating
+        scheduler.unregister(fast);
+        scheduler.update();
+        scheduler.update();
+        assertEquals("Fast updates after removal", 50, fast.updates);
+        assertEquals(1, scheduler.getComponentCount());
+    }
+
+    /**
+     * Test that components sharing a rate are spread across ticks
+     */
+    @Test
+    public void testSpreading() {
+        TelemetryScheduler scheduler = new TelemetryScheduler(100.0);
+
+        // Ten 10Hz components should each get their own tick
+        boolean[] used = new boolean[10];
+        for (int i = 0; i < 10; i++) {
+            int phase = scheduler.add(new CountingLoggable(), 10.0);
+            assertTrue("Phase is unique", !used[phase]);
+            used[phase] = true;
+        }
+    }
+
+    /**
+     * Test that rates are recalculated when the loop period changes
+     */
+    @Test
+    public void testLoopPeriod() {
+        TelemetryScheduler scheduler = new TelemetryScheduler(100.0);
+        CountingLoggable component = new CountingLoggable();
+        scheduler.add(component, 10.0);
+
+        // At a 50Hz loop, a 10Hz component runs every fifth loop
+        scheduler.setLoopPeriod(0.02);
+        for (int i = 0; i < 50; i++) {
+            scheduler.update();
+        }
+        assertEquals(10, component.updates);
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.frc5024.lib5k.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+public class SessionStoreTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * Create a fake session with a single log file
+     *
+     * @param root  Sessions folder
+     * @param time  Session start time
+     * @param bytes Log file size
+     * @return Session folder
+     */
+    private static Path createSession(Path root, long time, int bytes) throws IOException {
+        Path session = Files.createDirectory(root.resolve(Long.toString(time)));
+        StringBuilder contents = new StringBuilder();
+        while (contents.length() < bytes) {
+            contents.append((char) ('a' + (contents.length() * 7919 % 26)));
+        }
+        Files.write(session.resolve("robot.log"), contents.toString().getBytes(StandardCharsets.UTF_8));
+        return session;
+    }
+
+    private static void deleteAll(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach((path) -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testOldSessionsAreCompressed() throws IOException {
+        Path root = Files.createTempDirectory("sessions");
+        try {
+            long now = 100 * DAY;
+            Path old = createSession(root, now - DAY, 1000);
+            Path current = createSession(root, now, 1000);
+
+            SessionStore store = new SessionStore();
+            store.setMinFreeSpace(0);
+            assertTrue(store.maintain(root, current, now).isEmpty());
+
+            // The old log should be replaced by a compressed copy
+            assertFalse(Files.exists(old.resolve("robot.log")));
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(old.resolve("robot.log.gz")))) {
+                assertEquals(1000, input.readAllBytes().length);
+            }
+
+            // The current session is never touched
+            assertTrue(Files.exists(current.resolve("robot.log")));
+        } finally {
+            deleteAll(root);
+        }
+    }
+
+    @Test
+    public void testCompressionStopsWhenEnabled() throws IOException {
+        Path root = Files.createTempDirectory("sessions");
+        try {
+            long now = 100 * DAY;
+            Path older = createSession(root, now - 2 * DAY, 1000);
+            Path newer = createSession(root, now - DAY, 1000);
+            Path current = createSession(root, now, 1000);
+
+            // Pretend the robot is enabled after the first file
+            int[] checks = { 0 };
+            SessionStore store = new SessionStore();
+            store.setMinFreeSpace(0);
+            store.maintain(root, current, now, () -> checks[0]++ == 0);
+
+            // Only the oldest session should have been compressed
+            assertTrue(Files.exists(older.resolve("robot.log.gz")));
+            assertTrue(Files.exists(newer.resolve("robot.log")));
+            assertFalse(Files.exists(newer.resolve("robot.log.gz")));
+        } finally {
+            deleteAll(root);
+        }
+    }
+
+    @Test
+    public void testEvictionDoesNotWaitForCompression() throws IOException {
+        Path root = Files.createTempDirectory("sessions");
+        try {
+            long now = 100 * DAY;
+            Path expired = createSession(root, now - 40 * DAY, 1000);
+            Path recent = createSession(root, now - DAY, 1000);
+            Path current = createSession(root, now, 1000);
+
+            // The robot stays enabled, so nothing is compressed
+            SessionStore store = new SessionStore();
+            store.setMinFreeSpace(0);
+            List<Path> deleted = store.maintain(root, current, now, () -> false);
+
+            assertEquals(1, deleted.size());
+            assertEquals(expired, deleted.get(0));
+            assertTrue(Files.exists(recent.resolve("robot.log")));
+        } finally {
+            deleteAll(root);
+        }
+    }
+
+    @Test
+    public void testEvictionIsOldestFirst() throws IOException {
+        Path root = Files.createTempDirectory("sessions");
+        try {
+            long now = 100 * DAY;
+            Path ancient = createSession(root, now - 40 * DAY, 100);
+            Path older = createSession(root, now - 3 * DAY, 4000);
+            Path newer = createSession(root, now - 2 * DAY, 4000);
+            Path current = createSession(root, now, 4000);
+
+            // Leave room for a single old session
+            SessionStore store = new SessionStore();
+            store.setCompressOldSessions(false);
+            store.setMinFreeSpace(0);
+            store.setMaxTotalSize(5000);
+            List<Path> deleted = store.maintain(root, current, now);
+
+            // The expired session goes first, then the oldest until everything fits
+            assertEquals(2, deleted.size());
+            assertEquals(ancient, deleted.get(0));
+            assertEquals(older, deleted.get(1));
+            assertTrue(Files.exists(newer));
+            assertTrue(Files.exists(current));
+        } finally {
+            deleteAll(root);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package io.github.frc5024.lib5k.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class USBMountWatcherTest {
+
+    /**
+     * Wait for a watcher to reach a state
+     *
+     * @param watcher  Watcher
+     * @param attached Expected state
+     * @return Was the state reached?
+     */
+    private static boolean waitFor(USBMountWatcher watcher, boolean attached) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (watcher.isAttached() == attached) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    @Test
+    public void testMountChangesAreNoticed() throws IOException, InterruptedException {
+        Path media = Files.createTempDirectory("media");
+        Path mountPoint = media.resolve("sda1");
+
+        try (USBMountWatcher watcher = new USBMountWatcher(mountPoint)) {
+            assertFalse("Nothing mounted", watcher.isAttached());
+
+            // Plug in
+            Files.createDirectory(mountPoint);
+            assertTrue("Mount noticed", waitFor(watcher, true));
+
+            // Unplug
+            Files.delete(mountPoint);
+            assertTrue("Unmount noticed", waitFor(watcher, false));
+        } finally {
+            Files.deleteIfExists(mountPoint);
+            Files.deleteIfExists(media);
+        }
+    }
+
+}